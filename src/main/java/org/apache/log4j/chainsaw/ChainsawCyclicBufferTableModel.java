@@ -19,23 +19,30 @@ package org.apache.log4j.chainsaw;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import javax.swing.*;
 import javax.swing.event.EventListenerList;
 import javax.swing.table.AbstractTableModel;
-import org.apache.log4j.chainsaw.color.RuleColorizer;
 import org.apache.log4j.chainsaw.components.loggernamepanel.LoggerNameListener;
 import org.apache.log4j.chainsaw.components.loggernamepanel.LoggerNameModel;
 import org.apache.log4j.chainsaw.components.loggernamepanel.LoggerNameModelSupport;
 import org.apache.log4j.chainsaw.helper.SwingHelper;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.helpers.Constants;
+import org.apache.log4j.rule.CacheableRule;
 import org.apache.log4j.rule.Rule;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,6 +50,11 @@ import org.apache.logging.log4j.Logger;
 /**
  * A CyclicBuffer implementation of the EventContainer.
  * <p>
+ * The model is a view over the tab's EventStore: it holds no events of its own, only
+ * the order of the rows it displays, a bitset of the store slots it displays and the
+ * row heights calculated for its table.  The tab offers each event added to the store
+ * to each of its views.
+ * <p>
  * NOTE:  This implementation prevents duplicate rows from being added to the model.
  * <p>
  * Ignoring duplicates was added to support receivers which may attempt to deliver the same
@@ -54,44 +66,96 @@ import org.apache.logging.log4j.Logger;
  * @author Stephen Pain
  */
 public class ChainsawCyclicBufferTableModel extends AbstractTableModel
-        implements EventContainer, PropertyChangeListener {
+        implements EventContainer, PropertyChangeListener, TableRefreshScheduler.Refreshable, EventStore.Listener {
 
+    private static final int DEFAULT_HEIGHT = -1;
+    private static final int[] NO_ROWS = new int[0];
+    // small, so the first screenful of a refilter is published straight away
+    private static final int FIRST_REFILTER_CHUNK_SIZE = 256;
+    private static final int REFILTER_CHUNK_SIZE = 8192;
     // cyclic field used internally in this class, but not exposed via the eventcontainer
     private boolean cyclic = true;
-    private final int cyclicBufferSize;
-    // original list of LoggingEventWrapper instances
-    private List<LoggingEventWrapper> unfilteredList;
+    private final EventStore eventStore;
     // filtered list of LoggingEventWrapper instances
-    private List<LoggingEventWrapper> filteredList;
+    private RingBuffer<LoggingEventWrapper> filteredList;
+    // store slots of the events in the filtered list
+    private final BitSet displayedSlots = new BitSet();
+    // filtered list sequence of the row displaying each store slot, for constant time row lookup
+    private long[] rowSequences = new long[0];
+    // marker and message cell heights of each store slot (two entries per slot)
+    private int[] cellHeights = new int[0];
+    // millis since the previous row of each store slot, in this view's order
+    private long[] millisDeltas = new long[0];
+    // a displayed event was evicted from the store but is not yet removed from the filtered list
+    private boolean evictedRowsPending;
+    // incremented by every refilter, a running refilter stops once it is no longer current
+    private final AtomicLong refilterGeneration = new AtomicLong();
+    // matching events added while a refilter is running, null when none is (guarded by mutex)
+    private List<LoggingEventWrapper> refilterBacklog;
+    // sequence of the newest event in the refilter snapshot (guarded by mutex)
+    private long refilterSnapshotEnd;
+    // rows added to a sorted view since it was last sorted, merged in by sort()
+    private final List<LoggingEventWrapper> unsortedRows = new ArrayList<>();
+    // the filtered list is in the order of the current sort
+    private boolean rowsSorted;
+    // the row added most recently, for the millis delta of the next one
+    private LoggingEventWrapper newestRow;
     private boolean currentSortAscending;
     private int currentSortColumn;
     private final EventListenerList eventListenerList = new EventListenerList();
-    private final List<String> columnNames = new ArrayList<>(ChainsawColumns.getColumnsNames());
+    private final List<String> columnNames;
     private boolean sortEnabled = false;
-    private boolean reachedCapacity = false;
     private final Logger logger = LogManager.getLogger();
 
     //  protected final Object syncLock = new Object();
     private final LoggerNameModel loggerNameModelDelegate = new LoggerNameModelSupport();
-    private final Object mutex = new Object();
+    private final Object mutex;
 
-    // because we may be using a cyclic buffer, if an ID is not provided in the property,
-    // use and increment this row counter as the ID for each received row
-    private int uniqueRow;
-    private final Set uniquePropertyKeys = new HashSet();
+    private final Set<String> uniquePropertyKeys = ConcurrentHashMap.newKeySet();
     private Rule ruleMediator;
+    // cached results of the rule mediator for the store's events, null if it isn't cacheable (guarded by mutex)
+    private RuleOutcomeCache.Outcomes ruleOutcomes;
+    // the fingerprint of the rule mediator ruleOutcomes belongs to (guarded by mutex)
+    private String ruleOutcomesFingerprint;
     private final PropertyChangeSupport propertySupport = new PropertyChangeSupport(this);
-    private RuleColorizer colorizer;
     private final String tableModelName;
 
-    public ChainsawCyclicBufferTableModel(int cyclicBufferSize, RuleColorizer colorizer, String tableModelName) {
-        propertySupport.addPropertyChangeListener("cyclic", new ModelChanger());
-        this.cyclicBufferSize = cyclicBufferSize;
-        this.colorizer = colorizer;
+    /*
+     * Changes waiting for the next frame of the TableRefreshScheduler (guarded by mutex).  The
+     * views are only told about rows once they are published, so getRowCount returns the
+     * published count rather than the current size of the filtered list.
+     */
+    private boolean pendingUpdateAll;
+    private boolean pendingDataChanged;
+    private boolean pendingCountChanged;
+    // rows inserted into a sorted view, as indexes into the current filtered list, ascending
+    private int[] pendingInsertedRows = NO_ROWS;
+    private volatile int publishedRowCount;
+
+    public ChainsawCyclicBufferTableModel(EventStore eventStore, String tableModelName) {
+        this(eventStore, tableModelName, ChainsawColumns.getColumnsNames());
+    }
+
+    /**
+     * Creates a model with the given fixed columns, in the order of the ChainsawColumns indexes.
+     * Unlike ChainsawColumns itself, this needs no display.
+     */
+    ChainsawCyclicBufferTableModel(EventStore eventStore, String tableModelName, List<String> columnNames) {
+        this.columnNames = new CopyOnWriteArrayList<>(columnNames);
+        this.eventStore = eventStore;
+        this.mutex = eventStore.getLock();
         this.tableModelName = tableModelName;
+        this.cyclic = eventStore.isCyclic();
+
+        filteredList = createFilteredList();
+        eventStore.addListener(this);
+    }
 
-        unfilteredList = new CyclicBufferList(cyclicBufferSize);
-        filteredList = new CyclicBufferList(cyclicBufferSize);
+    private RingBuffer<LoggingEventWrapper> createFilteredList() {
+        if (eventStore.isCyclic()) {
+            return new RingBuffer<>(eventStore.getMaxSize());
+        }
+        return new RingBuffer<>();
     }
 
     /* (non-Javadoc)
@@ -114,110 +178,261 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
     @Override
     public List<LoggingEventWrapper> getMatchingEvents(Rule rule) {
         List<LoggingEventWrapper> list = new ArrayList<>();
-        List<LoggingEventWrapper> unfilteredCopy;
-        synchronized (mutex) {
-            unfilteredCopy = new ArrayList<>(unfilteredList);
-        }
-
-        for (LoggingEventWrapper loggingEventWrapper : unfilteredCopy) {
-            if (rule.evaluate(loggingEventWrapper.getLoggingEvent(), null)) {
+        String fingerprint = fingerprint(rule);
+        RuleOutcomeCache.Outcomes outcomes = eventStore.getRuleOutcomes(fingerprint);
+        List<LoggingEventWrapper> evaluated = new ArrayList<>();
+        BitSet evaluatedMatches = new BitSet();
+        List<LoggingEventWrapper> candidates = eventStore.getCandidates(rule);
+
+        for (LoggingEventWrapper loggingEventWrapper : candidates != null ? candidates : eventStore.getEvents()) {
+            boolean result;
+            if (outcomes != null && outcomes.isKnown(eventStore.slotOf(loggingEventWrapper))) {
+                result = outcomes.isMatched(eventStore.slotOf(loggingEventWrapper));
+            } else {
+                result = rule.evaluate(loggingEventWrapper.getLoggingEvent(), null);
+                evaluatedMatches.set(evaluated.size(), result);
+                evaluated.add(loggingEventWrapper);
+            }
+            if (result) {
                 list.add(loggingEventWrapper);
             }
         }
+        // a mediator's rules may have been replaced meanwhile
+        if (outcomes != null && fingerprint.equals(fingerprint(rule))) {
+            synchronized (mutex) {
+                for (int i = 0; i < evaluated.size(); i++) {
+                    recordOutcome(outcomes, evaluated.get(i), evaluatedMatches.get(i));
+                }
+            }
+        }
 
         return list;
     }
 
+    /**
+     * Rebuilds the filtered list from the events in the store.
+     * <p>
+     * The rule is evaluated on the refilter pool, against a snapshot of the store split
+     * into chunks, so neither ingestion nor painting waits for it.  Chunk results are
+     * appended in order as soon as they are ready - the first chunk is small, so the
+     * first screenful of rows is published straight away.  Events added to the store
+     * meanwhile are held back and appended once the snapshot is done.  Calling reFilter
+     * again (for example because the refine focus expression changed) abandons the
+     * previous refilter.
+     */
     @Override
     public void reFilter() {
-        final int previousSize;
-        final int newSize;
+        final long generation;
+        final List<LoggingEventWrapper> snapshot;
+        final Rule rule;
+        final RuleOutcomeCache.Outcomes outcomes;
+        String fingerprint = fingerprint(ruleMediator);
+        // events the message index rules out aren't evaluated
+        final Predicate<LoggingEventWrapper> candidates = ruleMediator instanceof RuleMediator
+                ? eventStore.getCandidateFilter(((RuleMediator) ruleMediator).getRequiredRules())
+                : eventStore.getCandidateFilter(ruleMediator);
         synchronized (mutex) {
             // post refilter with newValue of TRUE (filtering is about to begin)
             propertySupport.firePropertyChange("refilter", Boolean.FALSE, Boolean.TRUE);
-            previousSize = filteredList.size();
-            filteredList.clear();
-            if (ruleMediator == null) {
-                LoggingEventWrapper lastEvent = null;
-                for (LoggingEventWrapper loggingEventWrapper : unfilteredList) {
-                    loggingEventWrapper.setDisplayed(true);
-                    updateEventMillisDelta(loggingEventWrapper, lastEvent);
-                    filteredList.add(loggingEventWrapper);
-                    lastEvent = loggingEventWrapper;
-                }
-            } else {
-                Iterator<LoggingEventWrapper> iter = unfilteredList.iterator();
-                LoggingEventWrapper lastEvent = null;
-                while (iter.hasNext()) {
-                    LoggingEventWrapper loggingEventWrapper = iter.next();
-
-                    if (ruleMediator.evaluate(loggingEventWrapper.getLoggingEvent(), null)) {
-                        loggingEventWrapper.setDisplayed(true);
-                        filteredList.add(loggingEventWrapper);
-                        updateEventMillisDelta(loggingEventWrapper, lastEvent);
-                        lastEvent = loggingEventWrapper;
-                    } else {
-                        loggingEventWrapper.setDisplayed(false);
+            generation = refilterGeneration.incrementAndGet();
+            // the store may have switched between cyclic and unlimited mode
+            cyclic = eventStore.isCyclic();
+            filteredList = createFilteredList();
+            displayedSlots.clear();
+            evictedRowsPending = false;
+            resetSortState();
+            refilterBacklog = new ArrayList<>();
+            snapshot = eventStore.getEvents();
+            refilterSnapshotEnd =
+                    snapshot.isEmpty() ? -1 : snapshot.get(snapshot.size() - 1).getSequence();
+            rule = ruleMediator;
+            // re-applying a recently used rule only evaluates it against the events it hasn't seen
+            outcomes = eventStore.getRuleOutcomes(fingerprint);
+            ruleOutcomes = outcomes;
+            ruleOutcomesFingerprint = fingerprint;
+            pendingDataChanged = true;
+            pendingCountChanged = true;
+        }
+        TableRefreshScheduler.getInstance().schedule(this);
+        EventStore.WORKER_POOL.execute(
+                () -> runRefilter(generation, snapshot, rule, outcomes, fingerprint, candidates));
+    }
+
+    private static String fingerprint(Rule rule) {
+        return rule instanceof CacheableRule ? ((CacheableRule) rule).getFingerprint() : null;
+    }
+
+    /**
+     * Evaluates the chunks of the snapshot in parallel and appends their matches in order.
+     * Runs on the refilter pool.
+     */
+    private void runRefilter(
+            long generation,
+            List<LoggingEventWrapper> snapshot,
+            Rule rule,
+            RuleOutcomeCache.Outcomes outcomes,
+            String fingerprint,
+            Predicate<LoggingEventWrapper> candidates) {
+        List<ForkJoinTask<BitSet>> chunks = new ArrayList<>();
+        List<Integer> chunkStarts = new ArrayList<>();
+        int start = 0;
+        int chunkSize = FIRST_REFILTER_CHUNK_SIZE;
+        while (start < snapshot.size()) {
+            final int from = start;
+            final int to = Math.min(snapshot.size(), start + chunkSize);
+            chunkStarts.add(from);
+            chunks.add(ForkJoinTask.adapt(() ->
+                            evaluateChunk(generation, snapshot, from, to, rule, outcomes, fingerprint, candidates))
+                    .fork());
+            start = to;
+            chunkSize = REFILTER_CHUNK_SIZE;
+        }
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                BitSet matches = chunks.get(i).join();
+                synchronized (mutex) {
+                    if (refilterGeneration.get() != generation) {
+                        break;
                     }
+                    int offset = chunkStarts.get(i);
+                    for (int bit = matches.nextSetBit(0); bit >= 0; bit = matches.nextSetBit(bit + 1)) {
+                        LoggingEventWrapper loggingEventWrapper = snapshot.get(offset + bit);
+                        // skip events evicted since the snapshot was taken
+                        if (eventStore.indexOf(loggingEventWrapper) >= 0) {
+                            appendRow(loggingEventWrapper);
+                        }
+                    }
+                    pendingCountChanged = true;
                 }
+                TableRefreshScheduler.getInstance().schedule(this);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to refilter {}", tableModelName, e);
+        } finally {
+            for (ForkJoinTask<BitSet> chunk : chunks) {
+                chunk.cancel(false);
             }
-            newSize = filteredList.size();
         }
-        SwingHelper.invokeOnEDT(() -> {
-            if (newSize > 0) {
-                if (previousSize == newSize) {
-                    // same - update all
-                    fireTableRowsUpdated(0, newSize - 1);
-                } else if (previousSize > newSize) {
-                    // less now..update and delete difference
-                    fireTableRowsUpdated(0, newSize - 1);
-                    // swing bug exposed by variable height rows when calling fireTableRowsDeleted..use
-                    // tabledatacchanged
-                    fireTableDataChanged();
-                } else if (previousSize < newSize) {
-                    // more now..update and insert difference
-                    if (previousSize > 0) {
-                        fireTableRowsUpdated(0, previousSize - 1);
-                    }
-                    fireTableRowsInserted(Math.max(0, previousSize), newSize - 1);
+        synchronized (mutex) {
+            if (refilterGeneration.get() != generation) {
+                return;
+            }
+            for (LoggingEventWrapper loggingEventWrapper : refilterBacklog) {
+                if (eventStore.indexOf(loggingEventWrapper) >= 0) {
+                    appendRow(loggingEventWrapper);
                 }
-            } else {
-                // no rows to show
-                fireTableDataChanged();
             }
-            notifyCountListeners();
+            refilterBacklog = null;
+            if (sortEnabled) {
+                sortRows();
+            }
+            pendingUpdateAll = true;
+            pendingCountChanged = true;
+        }
+        SwingHelper.invokeOnEDT(() -> {
+            // publish straight away rather than on the next frame, listeners expect the
+            // table to be up to date when filtering is reported complete
+            publishPendingChanges();
             // post refilter with newValue of FALSE (filtering is complete)
             SwingHelper.invokeOnEDT(() -> propertySupport.firePropertyChange("refilter", Boolean.TRUE, Boolean.FALSE));
         });
     }
 
+    /**
+     * @return the offsets (from <code>from</code>) of the events matching the rule, or
+     * an empty set if the refilter was abandoned
+     */
+    private BitSet evaluateChunk(
+            long generation,
+            List<LoggingEventWrapper> snapshot,
+            int from,
+            int to,
+            Rule rule,
+            RuleOutcomeCache.Outcomes outcomes,
+            String fingerprint,
+            Predicate<LoggingEventWrapper> candidates) {
+        BitSet matches = new BitSet(to - from);
+        // the events whose result wasn't cached
+        BitSet evaluated = new BitSet(to - from);
+        for (int i = from; i < to; i++) {
+            if ((i & 0xFF) == 0 && refilterGeneration.get() != generation) {
+                return new BitSet();
+            }
+            LoggingEventWrapper loggingEventWrapper = snapshot.get(i);
+            boolean result;
+            if (rule == null) {
+                result = true;
+            } else if (candidates != null && !candidates.test(loggingEventWrapper)) {
+                result = false;
+            } else if (outcomes != null && outcomes.isKnown(eventStore.slotOf(loggingEventWrapper))) {
+                // if the event was evicted and its slot reused this is the new event's result,
+                // but evicted events aren't appended
+                result = outcomes.isMatched(eventStore.slotOf(loggingEventWrapper));
+            } else {
+                result = rule.evaluate(loggingEventWrapper.getLoggingEvent(), null);
+                evaluated.set(i - from);
+            }
+            if (result) {
+                matches.set(i - from);
+            }
+        }
+        // the mediator's rules may have been replaced while the chunk was evaluated
+        if (outcomes != null && !evaluated.isEmpty() && fingerprint.equals(fingerprint(rule))) {
+            synchronized (mutex) {
+                for (int bit = evaluated.nextSetBit(0); bit >= 0; bit = evaluated.nextSetBit(bit + 1)) {
+                    recordOutcome(outcomes, snapshot.get(from + bit), matches.get(bit));
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Caches the result of the rule for an event, unless it was evicted.  Must hold the mutex.
+     */
+    private void recordOutcome(
+            RuleOutcomeCache.Outcomes outcomes, LoggingEventWrapper loggingEventWrapper, boolean result) {
+        if (eventStore.indexOf(loggingEventWrapper) >= 0) {
+            outcomes.record(eventStore.slotOf(loggingEventWrapper), result);
+        }
+    }
+
+    /**
+     * @return true while a refilter is running, in which case reFilter is appending the
+     * rows.  Must hold the mutex.
+     */
+    private boolean isRefiltering() {
+        return refilterBacklog != null;
+    }
+
     @Override
     public int locate(Rule rule, int startLocation, boolean searchForward) {
         List<LoggingEventWrapper> filteredListCopy;
         synchronized (mutex) {
             filteredListCopy = new ArrayList<>(filteredList);
         }
+        Predicate<LoggingEventWrapper> candidates = eventStore.getCandidateFilter(rule);
         if (searchForward) {
             for (int i = startLocation; i < filteredListCopy.size(); i++) {
-                if (rule.evaluate((filteredListCopy.get(i)).getLoggingEvent(), null)) {
+                if (matches(rule, candidates, filteredListCopy.get(i))) {
                     return i;
                 }
             }
             // if there was no match, start at row zero and go to startLocation
             for (int i = 0; i < startLocation; i++) {
-                if (rule.evaluate((filteredListCopy.get(i)).getLoggingEvent(), null)) {
+                if (matches(rule, candidates, filteredListCopy.get(i))) {
                     return i;
                 }
             }
         } else {
             for (int i = startLocation; i > -1; i--) {
-                if (rule.evaluate((filteredListCopy.get(i)).getLoggingEvent(), null)) {
+                if (matches(rule, candidates, filteredListCopy.get(i))) {
                     return i;
                 }
             }
             // if there was no match, start at row list.size() - 1 and go to startLocation
             for (int i = filteredListCopy.size() - 1; i > startLocation; i--) {
-                if (rule.evaluate((filteredListCopy.get(i)).getLoggingEvent(), null)) {
+                if (matches(rule, candidates, filteredListCopy.get(i))) {
                     return i;
                 }
             }
@@ -226,6 +441,12 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
         return -1;
     }
 
+    private static boolean matches(
+            Rule rule, Predicate<LoggingEventWrapper> candidates, LoggingEventWrapper loggingEventWrapper) {
+        return (candidates == null || candidates.test(loggingEventWrapper))
+                && rule.evaluate(loggingEventWrapper.getLoggingEvent(), null);
+    }
+
     @Override
     public void removeLoggerNameListener(LoggerNameListener l) {
         loggerNameModelDelegate.removeLoggerNameListener(l);
@@ -268,16 +489,80 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
 
     @Override
     public void notifyCountListeners() {
-        EventCountListener[] listeners = eventListenerList.getListeners(EventCountListener.class);
+        // counts are published with the rows on the next frame
+        synchronized (mutex) {
+            pendingCountChanged = true;
+        }
+        TableRefreshScheduler.getInstance().schedule(this);
+    }
 
-        int filteredListSize;
-        int unfilteredListSize;
+    /**
+     * Fires the table and count notifications for everything which changed since the
+     * previous call, however many batches that covers.  Called on the EDT by the
+     * TableRefreshScheduler.
+     */
+    @Override
+    public void publishPendingChanges() {
+        final int rowCount;
+        final boolean updateAll;
+        final boolean dataChanged;
+        final boolean countChanged;
+        final int unfilteredListSize;
+        final int[] insertedRows;
         synchronized (mutex) {
-            filteredListSize = filteredList.size();
-            unfilteredListSize = unfilteredList.size();
+            rowCount = filteredList.size();
+            unfilteredListSize = eventStore.size();
+            updateAll = pendingUpdateAll;
+            dataChanged = pendingDataChanged;
+            countChanged = pendingCountChanged;
+            insertedRows = pendingInsertedRows;
+            pendingInsertedRows = NO_ROWS;
+            pendingUpdateAll = false;
+            pendingDataChanged = false;
+            pendingCountChanged = false;
+        }
+        final int previousRowCount = publishedRowCount;
+        publishedRowCount = rowCount;
+
+        if (dataChanged || rowCount < previousRowCount) {
+            // swing bug exposed by variable height rows when calling fireTableRowsDeleted..use
+            // tabledatachanged
+            fireTableDataChanged();
+        } else if (insertedRows.length > 0 && !updateAll) {
+            if (insertedRows.length == rowCount - previousRowCount) {
+                fireRowsInserted(insertedRows);
+            } else {
+                // rows were also appended, the inserted indexes don't add up
+                fireTableDataChanged();
+            }
+        } else {
+            if (updateAll && previousRowCount > 0) {
+                fireTableRowsUpdated(0, previousRowCount - 1);
+            }
+            if (rowCount > previousRowCount) {
+                fireTableRowsInserted(previousRowCount, rowCount - 1);
+            }
         }
-        for (EventCountListener listener : listeners) {
-            listener.eventCountChanged(filteredListSize, unfilteredListSize);
+
+        if (countChanged) {
+            for (EventCountListener listener : eventListenerList.getListeners(EventCountListener.class)) {
+                listener.eventCountChanged(rowCount, unfilteredListSize);
+            }
+        }
+    }
+
+    /**
+     * Fires one notification for each run of consecutive inserted rows.
+     */
+    private void fireRowsInserted(int[] insertedRows) {
+        int first = insertedRows[0];
+        for (int i = 1; i <= insertedRows.length; i++) {
+            if (i == insertedRows.length || insertedRows[i] != insertedRows[i - 1] + 1) {
+                fireTableRowsInserted(first, insertedRows[i - 1]);
+                if (i < insertedRows.length) {
+                    first = insertedRows[i];
+                }
+            }
         }
     }
 
@@ -305,28 +590,120 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
     /* (non-Javadoc)
      * @see org.apache.log4j.chainsaw.EventContainer#sort()
      */
+    /**
+     * Sorts the rows by the current sort column.  Once sorted, rows added since the
+     * previous call are sorted on their own and merged into the existing order.
+     */
     @Override
     public void sort() {
-        boolean sort;
-        final int filteredListSize;
+        boolean sorted = false;
         synchronized (mutex) {
-            filteredListSize = filteredList.size();
-            sort = (sortEnabled && filteredListSize > 0);
-            if (sort) {
-                // reset display (used to ensure row height is updated)
-                LoggingEventWrapper lastEvent = null;
-                for (LoggingEventWrapper e : filteredList) {
-                    e.setDisplayed(true);
-                    updateEventMillisDelta(e, lastEvent);
-                    lastEvent = e;
+            removeEvictedRows();
+            if (sortEnabled && !isRefiltering()) {
+                if (rowsSorted) {
+                    sorted = mergeUnsortedRows();
+                } else if (!filteredList.isEmpty()) {
+                    sortRows();
+                    sorted = true;
                 }
-                filteredList.sort(new ColumnComparator(
-                        getColumnName(currentSortColumn), currentSortColumn, currentSortAscending));
             }
         }
-        if (sort) {
-            SwingHelper.invokeOnEDT(() -> fireTableRowsUpdated(0, Math.max(filteredListSize - 1, 0)));
+        if (sorted) {
+            TableRefreshScheduler.getInstance().schedule(this);
+        }
+    }
+
+    /**
+     * Sorts the whole filtered list.  Must hold the mutex.
+     */
+    private void sortRows() {
+        for (LoggingEventWrapper loggingEventWrapper : unsortedRows) {
+            if (eventStore.indexOf(loggingEventWrapper) >= 0) {
+                appendRow(loggingEventWrapper);
+            }
+        }
+        unsortedRows.clear();
+        // reset display (used to ensure row height is updated)
+        LoggingEventWrapper lastEvent = null;
+        for (LoggingEventWrapper e : filteredList) {
+            setDisplayed(e);
+            updateEventMillisDelta(e, lastEvent);
+            lastEvent = e;
+        }
+        filteredList.sort(createComparator());
+        updateRowSequences(0);
+        rowsSorted = true;
+        pendingInsertedRows = NO_ROWS;
+        pendingUpdateAll = true;
+    }
+
+    /**
+     * Sorts the rows added since the previous sort and inserts them into the sorted rows.
+     * Must hold the mutex.
+     *
+     * @return true if any rows were inserted
+     */
+    private boolean mergeUnsortedRows() {
+        List<LoggingEventWrapper> added = new ArrayList<>(unsortedRows.size());
+        for (LoggingEventWrapper loggingEventWrapper : unsortedRows) {
+            // skip events evicted since they were added
+            if (eventStore.indexOf(loggingEventWrapper) >= 0) {
+                setDisplayed(loggingEventWrapper);
+                updateEventMillisDelta(loggingEventWrapper, newestRow);
+                newestRow = loggingEventWrapper;
+                added.add(loggingEventWrapper);
+            }
+        }
+        unsortedRows.clear();
+        if (added.isEmpty()) {
+            return false;
+        }
+        ColumnComparator comparator = createComparator();
+        added.sort(comparator);
+        int[] inserted = filteredList.insertSorted(added, comparator);
+        updateRowSequences(inserted[0]);
+        pendingInsertedRows = mergeInsertedRows(pendingInsertedRows, inserted);
+        return true;
+    }
+
+    /**
+     * Combines rows inserted earlier with rows inserted since, which moved the earlier rows down.
+     *
+     * @param previous rows inserted earlier, as indexes before the latest insert
+     * @param inserted rows inserted since, as indexes after the latest insert
+     * @return all the inserted rows, as indexes after the latest insert, ascending
+     */
+    static int[] mergeInsertedRows(int[] previous, int[] inserted) {
+        if (previous.length == 0) {
+            return inserted;
+        }
+        int[] merged = new int[previous.length + inserted.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < previous.length || j < inserted.length) {
+            // j rows were inserted in front of previous[i]
+            if (i < previous.length && (j == inserted.length || inserted[j] - j > previous[i])) {
+                merged[count++] = previous[i++] + j;
+            } else {
+                merged[count++] = inserted[j++];
+            }
         }
+        return merged;
+    }
+
+    private ColumnComparator createComparator() {
+        return new ColumnComparator(getColumnName(currentSortColumn), currentSortColumn, currentSortAscending);
+    }
+
+    /**
+     * Forgets the sort state of rows which are no longer displayed.  Must hold the mutex.
+     */
+    private void resetSortState() {
+        unsortedRows.clear();
+        rowsSorted = false;
+        newestRow = null;
+        pendingInsertedRows = NO_ROWS;
     }
 
     @Override
@@ -339,6 +716,9 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
         logger.debug("request to sort col={}", col);
         currentSortAscending = ascending;
         currentSortColumn = col;
+        synchronized (mutex) {
+            rowsSorted = false;
+        }
         sortEnabled = true;
         sort();
     }
@@ -348,25 +728,15 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
      */
     @Override
     public void clearModel() {
-        reachedCapacity = false;
+        // the views are cleared through eventsReset
+        eventStore.clear();
 
-        synchronized (mutex) {
-            unfilteredList.clear();
-            filteredList.clear();
-            uniqueRow = 0;
-        }
-
-        SwingHelper.invokeOnEDT(this::fireTableDataChanged);
-
-        notifyCountListeners();
         loggerNameModelDelegate.reset();
     }
 
     @Override
     public List<LoggingEventWrapper> getAllEvents() {
-        synchronized (mutex) {
-            return new ArrayList<>(unfilteredList);
-        }
+        return eventStore.getEvents();
     }
 
     @Override
@@ -380,6 +750,18 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
     @Override
     public int getRowIndex(LoggingEventWrapper loggingEventWrapper) {
         synchronized (mutex) {
+            if (eventStore.indexOf(loggingEventWrapper) < 0) {
+                return -1;
+            }
+            int slot = eventStore.slotOf(loggingEventWrapper);
+            if (!displayedSlots.get(slot)) {
+                return -1;
+            }
+            int index = filteredList.indexOfSequence(rowSequences[slot]);
+            if (index >= 0 && filteredList.get(index) == loggingEventWrapper) {
+                return index;
+            }
+            // rows evicted from a sorted view have not been removed yet
             return filteredList.indexOf(loggingEventWrapper);
         }
     }
@@ -388,10 +770,8 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
     public void removePropertyFromEvents(String propName) {
         // first remove the event from any displayed events, so we can fire row updated event
         List<LoggingEventWrapper> filteredListCopy;
-        List<LoggingEventWrapper> unfilteredListCopy;
         synchronized (mutex) {
             filteredListCopy = new ArrayList<>(filteredList);
-            unfilteredListCopy = new ArrayList<>(unfilteredList);
         }
         for (int i = 0; i < filteredListCopy.size(); i++) {
             LoggingEventWrapper loggingEventWrapper = filteredListCopy.get(i);
@@ -401,26 +781,22 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
             }
         }
         // now remove the event from all events
-        for (LoggingEventWrapper loggingEventWrapper : unfilteredListCopy) {
+        for (LoggingEventWrapper loggingEventWrapper : eventStore.getEvents()) {
             loggingEventWrapper.removeProperty(propName);
         }
+        eventStore.forgetRuleOutcomes();
     }
 
     @Override
     public int updateEventsWithFindRule(Rule findRule) {
-        int count = 0;
-        List<LoggingEventWrapper> unfilteredListCopy;
-        synchronized (mutex) {
-            unfilteredListCopy = new ArrayList<>(unfilteredList);
-        }
-        for (LoggingEventWrapper loggingEventWrapper : unfilteredListCopy) {
-            loggingEventWrapper.evaluateSearchRule(findRule);
-            // return the count of visible search matches
-            if (loggingEventWrapper.isSearchMatch() && loggingEventWrapper.isDisplayed()) {
-                count++;
-            }
+        // the events are shared with the other views of the store, so this updates those too
+        Predicate<LoggingEventWrapper> candidates = findRule == null ? null : eventStore.getCandidateFilter(findRule);
+        for (LoggingEventWrapper loggingEventWrapper : eventStore.getEvents()) {
+            loggingEventWrapper.evaluateSearchRule(
+                    candidates == null || candidates.test(loggingEventWrapper) ? findRule : null);
         }
-        return count;
+        // return the count of visible search matches
+        return getSearchMatchCount();
     }
 
     @Override
@@ -471,7 +847,7 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
         int searchMatchCount = 0;
         synchronized (mutex) {
             for (LoggingEventWrapper wrapper : filteredList) {
-                if (wrapper.isSearchMatch() && wrapper.isDisplayed()) {
+                if (wrapper.isSearchMatch()) {
                     searchMatchCount++;
                 }
             }
@@ -502,9 +878,7 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
 
     @Override
     public int getRowCount() {
-        synchronized (mutex) {
-            return filteredList.size();
-        }
+        return publishedRowCount;
     }
 
     @Override
@@ -593,67 +967,208 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
 
     @Override
     public boolean isAddRow(LoggingEventWrapper loggingEventWrapper) {
-        Object id = loggingEventWrapper.getLoggingEvent().getProperty(Constants.LOG4J_ID_KEY);
+        boolean rowAdded = false;
 
-        // only set the property if it doesn't already exist
-        if (id == null) {
-            id = ++uniqueRow;
-            loggingEventWrapper.setProperty(Constants.LOG4J_ID_KEY, id.toString());
+        synchronized (mutex) {
+            int storeIndex = eventStore.indexOf(loggingEventWrapper);
+            // the mediator's rules may be replaced before the next refilter, or while the
+            // event is evaluated, only cache results of the rules the outcomes belong to
+            RuleOutcomeCache.Outcomes outcomes = ruleOutcomes;
+            String outcomesFingerprint = ruleOutcomesFingerprint;
+            if (outcomes != null && !outcomesFingerprint.equals(fingerprint(ruleMediator))) {
+                outcomes = null;
+            }
+            // the event may already have been evicted by a later event of the same batch
+            boolean matches = storeIndex >= 0
+                    && ((ruleMediator == null) || (ruleMediator.evaluate(loggingEventWrapper.getLoggingEvent(), null)));
+            if (storeIndex >= 0 && outcomes != null && outcomesFingerprint.equals(fingerprint(ruleMediator))) {
+                outcomes.record(eventStore.slotOf(loggingEventWrapper), matches);
+            }
+            if (matches) {
+                if (isRefiltering()) {
+                    // events newer than the snapshot are appended once the refilter is done
+                    if (loggingEventWrapper.getSequence() > refilterSnapshotEnd) {
+                        refilterBacklog.add(loggingEventWrapper);
+                    }
+                } else if (sortEnabled && rowsSorted) {
+                    // merged into the sorted rows by the next sort()
+                    unsortedRows.add(loggingEventWrapper);
+                    rowAdded = true;
+                } else {
+                    appendRow(loggingEventWrapper);
+                    rowAdded = true;
+                }
+            }
         }
 
-        loggingEventWrapper.updateColorRuleColors(
-                colorizer.getBackgroundColor(loggingEventWrapper.getLoggingEvent()),
-                colorizer.getForegroundColor(loggingEventWrapper.getLoggingEvent()));
-        Rule findRule = colorizer.getFindRule();
-        if (findRule != null) {
-            loggingEventWrapper.evaluateSearchRule(colorizer.getFindRule());
-        }
+        checkForNewColumn(loggingEventWrapper);
 
-        boolean rowAdded = false;
+        return rowAdded;
+    }
 
-        /*
-         * If we're in cyclic mode and over budget on the size, the addition of a new event will
-         * cause the oldest event to fall off the cliff. We need to remove that events ID from the
-         * Set so we are not keeping track of IDs for all events ever received (we'd run out of
-         * memory...)
-         */
+    /**
+     * Drops the oldest event from this view when the store evicts it.  Unless the view
+     * is sorted that is the first row; otherwise the row is removed by removeEvictedRows.
+     */
+    @Override
+    public void eventEvicted(LoggingEventWrapper loggingEventWrapper) {
+        int slot = eventStore.slotOf(loggingEventWrapper);
+        if (!displayedSlots.get(slot)) {
+            return;
+        }
+        displayedSlots.clear(slot);
+        if (!filteredList.isEmpty() && filteredList.get(0) == loggingEventWrapper) {
+            filteredList.pollFirst();
+        } else {
+            evictedRowsPending = true;
+        }
+        // every displayed row moves up one
+        pendingUpdateAll = true;
+        TableRefreshScheduler.getInstance().schedule(this);
+    }
+
+    @Override
+    public void eventsReset(boolean cleared) {
+        if (!cleared) {
+            reFilter();
+            return;
+        }
         synchronized (mutex) {
-            if (cyclic) {
-                CyclicBufferList bufferList = (CyclicBufferList) unfilteredList;
-                if (bufferList.size() == bufferList.getMaxSize()) {
-                    reachedCapacity = true;
-                }
+            // abandon any refilter, the events it would add are gone
+            refilterGeneration.incrementAndGet();
+            refilterBacklog = null;
+            cyclic = eventStore.isCyclic();
+            filteredList = createFilteredList();
+            displayedSlots.clear();
+            evictedRowsPending = false;
+            resetSortState();
+            pendingDataChanged = true;
+            pendingCountChanged = true;
+        }
+
+        SwingHelper.invokeOnEDT(this::publishPendingChanges);
+    }
+
+    /**
+     * Removes rows whose events were evicted from the store.  Must hold the mutex.
+     */
+    private void removeEvictedRows() {
+        if (!evictedRowsPending) {
+            return;
+        }
+        RingBuffer<LoggingEventWrapper> remaining = createFilteredList();
+        for (LoggingEventWrapper loggingEventWrapper : filteredList) {
+            if (eventStore.indexOf(loggingEventWrapper) >= 0) {
+                remaining.add(loggingEventWrapper);
             }
-            int unfilteredSize = unfilteredList.size();
-            LoggingEventWrapper lastLoggingEventWrapper = null;
-            if (unfilteredSize > 0) {
-                lastLoggingEventWrapper = unfilteredList.get(unfilteredSize - 1);
-            }
-            unfilteredList.add(loggingEventWrapper);
-            if ((ruleMediator == null) || (ruleMediator.evaluate(loggingEventWrapper.getLoggingEvent(), null))) {
-                loggingEventWrapper.setDisplayed(true);
-                updateEventMillisDelta(loggingEventWrapper, lastLoggingEventWrapper);
-                filteredList.add(loggingEventWrapper);
-                rowAdded = true;
-            } else {
-                loggingEventWrapper.setDisplayed(false);
+        }
+        filteredList = remaining;
+        evictedRowsPending = false;
+        updateRowSequences(0);
+    }
+
+    /**
+     * Appends the event as the last row, recording its millis delta to the previous row.
+     * Must hold the mutex.
+     */
+    private void appendRow(LoggingEventWrapper loggingEventWrapper) {
+        if (evictedRowsPending && filteredList.isFull()) {
+            // make room, otherwise the ring would drop a row which is still in the store
+            removeEvictedRows();
+        }
+        addRow(loggingEventWrapper);
+        updateEventMillisDelta(loggingEventWrapper, newestRow);
+        newestRow = loggingEventWrapper;
+    }
+
+    /**
+     * Appends the event to the filtered list.  Must hold the mutex.
+     */
+    private void addRow(LoggingEventWrapper loggingEventWrapper) {
+        setDisplayed(loggingEventWrapper);
+        filteredList.add(loggingEventWrapper);
+        rowSequences[eventStore.slotOf(loggingEventWrapper)] =
+                filteredList.getFirstSequence() + filteredList.size() - 1;
+    }
+
+    /**
+     * Records the sequence of every row from the index on, after rows were moved.  Must
+     * hold the mutex.
+     */
+    private void updateRowSequences(int fromIndex) {
+        long sequence = filteredList.getFirstSequence() + fromIndex;
+        for (int i = fromIndex; i < filteredList.size(); i++) {
+            rowSequences[eventStore.slotOf(filteredList.get(i))] = sequence++;
+        }
+    }
+
+    /**
+     * Marks the event as displayed by this view and forgets any row heights calculated
+     * for it.  Must hold the mutex.
+     */
+    private void setDisplayed(LoggingEventWrapper loggingEventWrapper) {
+        int slot = eventStore.slotOf(loggingEventWrapper);
+        displayedSlots.set(slot);
+        if (slot >= rowSequences.length) {
+            // grow gradually, a large cyclic buffer may never fill up
+            int slots = Math.max(slot + 1, Math.max(16, rowSequences.length * 2));
+            if (eventStore.isCyclic()) {
+                slots = Math.min(slots, eventStore.getMaxSize());
             }
+            rowSequences = Arrays.copyOf(rowSequences, slots);
+            millisDeltas = Arrays.copyOf(millisDeltas, slots);
+            int oldLength = cellHeights.length;
+            cellHeights = Arrays.copyOf(cellHeights, slots * 2);
+            Arrays.fill(cellHeights, oldLength, cellHeights.length, DEFAULT_HEIGHT);
         }
+        int index = slot * 2;
+        cellHeights[index] = DEFAULT_HEIGHT;
+        cellHeights[index + 1] = DEFAULT_HEIGHT;
+    }
 
-        checkForNewColumn(loggingEventWrapper);
+    @Override
+    public int getCellHeight(LoggingEventWrapper loggingEventWrapper, int columnIndex) {
+        int index = cellHeightIndex(loggingEventWrapper, columnIndex);
+        int[] heights = cellHeights;
+        return index < heights.length ? heights[index] : DEFAULT_HEIGHT;
+    }
 
-        return rowAdded;
+    @Override
+    public void setCellHeight(LoggingEventWrapper loggingEventWrapper, int columnIndex, int height) {
+        int index = cellHeightIndex(loggingEventWrapper, columnIndex);
+        int[] heights = cellHeights;
+        if (index < heights.length) {
+            heights[index] = height;
+        }
+    }
+
+    private int cellHeightIndex(LoggingEventWrapper loggingEventWrapper, int columnIndex) {
+        int offset = columnIndex == ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME ? 0 : 1;
+        return eventStore.slotOf(loggingEventWrapper) * 2 + offset;
     }
 
+    /**
+     * Records the millis since the previous displayed row.  Must hold the mutex, after
+     * the event was set displayed.
+     */
     private void updateEventMillisDelta(
             LoggingEventWrapper loggingEventWrapper, LoggingEventWrapper lastLoggingEventWrapper) {
+        long delta = 0;
         if (lastLoggingEventWrapper != null) {
-            loggingEventWrapper.setPreviousDisplayedEventTimestamp(
-                    lastLoggingEventWrapper.getLoggingEvent().m_timestamp);
-        } else {
-            // delta to same event = 0
-            loggingEventWrapper.setPreviousDisplayedEventTimestamp(loggingEventWrapper.getLoggingEvent().m_timestamp);
+            Instant previous = lastLoggingEventWrapper.getLoggingEvent().m_timestamp;
+            Instant current = loggingEventWrapper.getLoggingEvent().m_timestamp;
+            if (previous != null && current != null) {
+                delta = ChronoUnit.MILLIS.between(previous, current);
+            }
         }
+        millisDeltas[eventStore.slotOf(loggingEventWrapper)] = delta;
+    }
+
+    @Override
+    public long getMillisDelta(LoggingEventWrapper loggingEventWrapper) {
+        int slot = eventStore.slotOf(loggingEventWrapper);
+        long[] deltas = millisDeltas;
+        return slot < deltas.length ? deltas[slot] : 0;
     }
 
     private void checkForNewColumn(LoggingEventWrapper loggingEventWrapper) {
@@ -661,64 +1176,38 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
          * Is this a new Property key we haven't seen before?  Remember that now MDC has been merged
          * into the Properties collection
          */
-        boolean newColumn = uniquePropertyKeys.addAll(loggingEventWrapper.getPropertyKeySet());
-
-        if (newColumn) {
+        loggingEventWrapper.getLoggingEvent().forEachProperty((propertyKey, value) -> {
+            if (!uniquePropertyKeys.add(propertyKey)) {
+                return;
+            }
             /**
              * If so, we should add them as columns and notify listeners.
              */
-            for (Object o : loggingEventWrapper.getPropertyKeySet()) {
-                String key = o.toString().toUpperCase();
-
-                // add all keys except the 'log4jid' key (columnNames is all-caps)
-                if (!columnNames.contains(key) && !(Constants.LOG4J_ID_KEY.equalsIgnoreCase(key))) {
-                    columnNames.add(key);
-                    logger.debug("Adding col '{}', columnNames={}", key, columnNames);
-                    fireNewKeyColumnAdded(new NewKeyEvent(
-                            this,
-                            columnNames.indexOf(key),
-                            key,
-                            loggingEventWrapper.getLoggingEvent().getProperty(key)));
-                }
+            String key = propertyKey.toUpperCase();
+
+            // add all keys except the 'log4jid' key (columnNames is all-caps)
+            if (!columnNames.contains(key) && !(Constants.LOG4J_ID_KEY.equalsIgnoreCase(key))) {
+                columnNames.add(key);
+                logger.debug("Adding col '{}', columnNames={}", key, columnNames);
+                fireNewKeyColumnAdded(new NewKeyEvent(this, columnNames.indexOf(key), key, value));
             }
-        }
+        });
     }
 
     @Override
     public void fireTableEvent(final int begin, final int end, final int count) {
-        SwingHelper.invokeOnEDT(() -> {
-            if (cyclic) {
-                if (!reachedCapacity) {
-                    // if we didn't loop and it's the 1st time, insert
-                    if ((begin + count) < cyclicBufferSize) {
-                        fireTableRowsInserted(begin, end);
-                    } else {
-                        // we did loop - insert and then update rows
-                        // rows are zero-indexed, subtract 1 from cyclicbuffersize for the event notification
-                        fireTableRowsInserted(begin, cyclicBufferSize - 1);
-                        fireTableRowsUpdated(0, cyclicBufferSize - 1);
-                        reachedCapacity = true;
-                    }
-                } else {
-                    fireTableRowsUpdated(0, cyclicBufferSize - 1);
-                }
-            } else {
-                fireTableRowsInserted(begin, end);
-            }
-        });
+        // the inserted range is worked out when the frame is published, from the number of rows
+        // the table already knows about, so consecutive batches become a single notification
+        TableRefreshScheduler.getInstance().schedule(this);
     }
 
     @Override
     public void fireRowUpdated(int row, boolean checkForNewColumns) {
         LoggingEventWrapper loggingEventWrapper = getRow(row);
         if (loggingEventWrapper != null) {
-            loggingEventWrapper.updateColorRuleColors(
-                    colorizer.getBackgroundColor(loggingEventWrapper.getLoggingEvent()),
-                    colorizer.getForegroundColor(loggingEventWrapper.getLoggingEvent()));
-            Rule findRule = colorizer.getFindRule();
-            if (findRule != null) {
-                loggingEventWrapper.evaluateSearchRule(colorizer.getFindRule());
-            }
+            // the event's properties may have changed
+            eventStore.forgetRuleOutcomes(loggingEventWrapper);
+            eventStore.updateColorsAndSearchMatch(loggingEventWrapper);
 
             fireTableRowsUpdated(row, row);
             if (checkForNewColumns) {
@@ -731,14 +1220,17 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
     private void fireNewKeyColumnAdded(NewKeyEvent e) {
         NewKeyListener[] listeners = eventListenerList.getListeners(NewKeyListener.class);
 
-        for (NewKeyListener listener : listeners) {
-            listener.newKeyAdded(e);
-        }
+        // listeners add table columns, so this must happen on the EDT
+        SwingHelper.invokeOnEDT(() -> {
+            for (NewKeyListener listener : listeners) {
+                listener.newKeyAdded(e);
+            }
+        });
     }
 
     @Override
     public int getMaxSize() {
-        return cyclicBufferSize;
+        return eventStore.getMaxSize();
     }
 
     /* (non-Javadoc)
@@ -780,6 +1272,8 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
 
         final boolean old = this.cyclic;
         this.cyclic = cyclic;
+        // the store moves the events and then asks its views to refilter
+        eventStore.setCyclic(cyclic);
         propertySupport.firePropertyChange("cyclic", old, cyclic);
     }
 
@@ -804,69 +1298,6 @@ public class ChainsawCyclicBufferTableModel extends AbstractTableModel
      */
     @Override
     public int size() {
-        synchronized (mutex) {
-            return unfilteredList.size();
-        }
-    }
-
-    private class ModelChanger implements PropertyChangeListener {
-        /* (non-Javadoc)
-         * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
-         */
-        @Override
-        public void propertyChange(PropertyChangeEvent arg0) {
-            Thread thread = new Thread(() -> {
-                ProgressMonitor monitor = null;
-
-                int index = 0;
-
-                try {
-                    synchronized (mutex) {
-                        monitor = new ProgressMonitor(
-                                null,
-                                "Switching models...",
-                                "Transferring between data structures, please wait...",
-                                0,
-                                unfilteredList.size() + 1);
-                        monitor.setMillisToDecideToPopup(250);
-                        monitor.setMillisToPopup(100);
-                        logger.debug("Changing Model, isCyclic is now {}", cyclic);
-
-                        List newUnfilteredList;
-                        List newFilteredList;
-
-                        if (cyclic) {
-                            newUnfilteredList = new CyclicBufferList(cyclicBufferSize);
-                            newFilteredList = new CyclicBufferList(cyclicBufferSize);
-                        } else {
-                            newUnfilteredList = new ArrayList(cyclicBufferSize);
-                            newFilteredList = new ArrayList(cyclicBufferSize);
-                        }
-
-                        for (Object anUnfilteredList : unfilteredList) {
-                            LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) anUnfilteredList;
-                            newUnfilteredList.add(loggingEventWrapper);
-                            monitor.setProgress(index++);
-                        }
-
-                        unfilteredList = newUnfilteredList;
-                        filteredList = newFilteredList;
-                    }
-
-                    monitor.setNote("Refiltering...");
-                    reFilter();
-
-                    monitor.setProgress(index++);
-                } finally {
-                    if (monitor != null) {
-                        monitor.close();
-                    }
-                }
-
-                logger.debug("Model Change completed");
-            });
-            thread.setPriority(Thread.MIN_PRIORITY + 1);
-            thread.start();
-        }
+        return eventStore.size();
     }
 }
@@ -18,14 +18,13 @@ package org.apache.log4j.chainsaw;
 
 import java.util.Comparator;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
-import org.apache.log4j.helpers.Constants;
 
 /**
  * @author Claude Duguay
  * @author Paul Smith &lt;psmith@apache.org&gt;
  * @author Scott Deboy &lt;sdeboy@apache.org&gt;
  */
-public class ColumnComparator implements Comparator {
+public class ColumnComparator implements Comparator<LoggingEventWrapper> {
     protected int index;
     protected boolean ascending;
     protected String columnName;
@@ -36,19 +35,19 @@ public class ColumnComparator implements Comparator {
         this.ascending = ascending;
     }
 
-    public int compare(Object o1, Object o2) {
+    public int compare(LoggingEventWrapper o1, LoggingEventWrapper o2) {
         int sort = 1;
 
-        if (o1 instanceof LoggingEventWrapper && o2 instanceof LoggingEventWrapper) {
+        if (o1 != null && o2 != null) {
 
             //		TODO not everything catered for here yet...
 
-            ChainsawLoggingEvent e1 = ((LoggingEventWrapper) o1).getLoggingEvent();
-            ChainsawLoggingEvent e2 = ((LoggingEventWrapper) o2).getLoggingEvent();
+            ChainsawLoggingEvent e1 = o1.getLoggingEvent();
+            ChainsawLoggingEvent e2 = o2.getLoggingEvent();
 
             switch (index + 1) {
                 case ChainsawColumns.INDEX_LEVEL_COL_NAME:
-                    sort = e1.m_level.ordinal() >= (e2.m_level.ordinal()) ? 1 : (-1);
+                    sort = Integer.compare(e1.m_level.ordinal(), e2.m_level.ordinal());
 
                     break;
 
@@ -124,9 +123,7 @@ public class ColumnComparator implements Comparator {
                     */
 
                 case ChainsawColumns.INDEX_ID_COL_NAME:
-                    int id1 = Integer.parseInt(e1.getProperty(Constants.LOG4J_ID_KEY));
-                    int id2 = Integer.parseInt(e2.getProperty(Constants.LOG4J_ID_KEY));
-                    sort = Integer.compare(id2, id1);
+                    sort = Long.compare(e2.getLog4jId(), e1.getLog4jId());
                     break;
 
                     /*
@@ -117,7 +117,7 @@ public interface EventContainer extends SortTableModel, LoggerNameModel {
     LoggingEventWrapper getRow(int row);
 
     /**
-     * Adds a row to the model.
+     * Offers an event which was just added to the EventStore to this view.
      *
      * @param e event
      * @return flag representing whether or not the row is being displayed (not filtered)
@@ -125,7 +125,27 @@ public interface EventContainer extends SortTableModel, LoggerNameModel {
     boolean isAddRow(LoggingEventWrapper e);
 
     /**
-     * Fire appropriate table update events for the range.
+     * Returns the height last calculated by this view's renderer for the marker or message
+     * cell of the event, or -1 if it has not been calculated since the event was displayed.
+     *
+     * @param e event
+     * @param columnIndex ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME or INDEX_MESSAGE_COL_NAME
+     */
+    int getCellHeight(LoggingEventWrapper e, int columnIndex);
+
+    void setCellHeight(LoggingEventWrapper e, int columnIndex, int height);
+
+    /**
+     * Returns the millis elapsed between the row displayed before the event in this view and
+     * the event, or 0 for the first row.
+     *
+     * @param e event
+     */
+    long getMillisDelta(LoggingEventWrapper e);
+
+    /**
+     * Fire appropriate table update events for the range.  Implementations may defer the
+     * events and coalesce them with those of other batches.
      */
     void fireTableEvent(int begin, int end, int count);
 
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.chainsaw.logevents.LocationInfo;
+import org.apache.log4j.chainsaw.logevents.StringDictionary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Append-only, memory-mapped segment files holding events which were moved out
+ * of the heap.
+ * <p>
+ * Each event is serialized into the newest segment and identified by a handle
+ * combining the segment number and the offset in the segment.  Segments are only
+ * ever deleted whole, oldest first, when the disk budget is used up or once none
+ * of their events are referenced any more.  Recently read events are kept in a
+ * small cache, since the table reads the same rows many times while painting.
+ * <p>
+ * Thread safe.
+ */
+public class EventOverflowStore {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int CACHE_SIZE = 1024;
+    private static final int NULL_LENGTH = -1;
+
+    private final Path directory;
+    private volatile long diskBudget;
+    private final int segmentSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(512);
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private final Map<Long, ChainsawLoggingEvent> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ChainsawLoggingEvent> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private int nextSegmentNumber;
+    private long diskUsage;
+
+    /**
+     * Creates a store writing its segments to a new temporary directory.
+     *
+     * @param diskBudget the most bytes the segments may use
+     */
+    public EventOverflowStore(long diskBudget) throws IOException {
+        this(Files.createTempDirectory("chainsaw-overflow"), diskBudget, DEFAULT_SEGMENT_SIZE);
+    }
+
+    EventOverflowStore(Path directory, long diskBudget, int segmentSize) {
+        this.directory = directory;
+        this.diskBudget = diskBudget;
+        // at least two segments, so the oldest can be dropped while the newest fills up
+        this.segmentSize = (int) Math.max(4096, Math.min(segmentSize, diskBudget / 2));
+        directory.toFile().deleteOnExit();
+    }
+
+    /**
+     * Serializes the event into the newest segment, starting a new segment if
+     * the newest one is full.
+     *
+     * @return the handle to read the event back with, or -1 if a new segment
+     * would exceed the disk budget
+     * @throws UncheckedIOException if a segment could not be created
+     */
+    public synchronized long write(ChainsawLoggingEvent event) {
+        recordBytes.reset();
+        try {
+            writeEvent(event);
+        } catch (IOException e) {
+            // writing to a byte array doesn't fail
+            throw new UncheckedIOException(e);
+        }
+        int length = recordBytes.size() + Integer.BYTES;
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.buffer.remaining() < length) {
+            int size = Math.max(segmentSize, length);
+            if (segment != null && diskUsage + size > diskBudget) {
+                return -1;
+            }
+            segment = createSegment(size);
+        }
+        int offset = segment.buffer.position();
+        segment.buffer.putInt(recordBytes.size());
+        segment.buffer.put(recordBytes.toByteArray());
+        return handle(segment.number, offset);
+    }
+
+    /**
+     * @return a copy of the event, or null if its segment was deleted
+     */
+    public synchronized ChainsawLoggingEvent read(long handle) {
+        ChainsawLoggingEvent event = cache.get(handle);
+        if (event != null) {
+            return event;
+        }
+        Segment segment = findSegment(segmentNumber(handle));
+        if (segment == null) {
+            return null;
+        }
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset(handle) + Integer.BYTES);
+        event = readEvent(buffer);
+        cache.put(handle, event);
+        return event;
+    }
+
+    /**
+     * @return the segment number of a handle
+     */
+    public static int segmentNumber(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    /**
+     * @return the number of the oldest segment, or -1 if there are none
+     */
+    public synchronized int getOldestSegmentNumber() {
+        Segment oldest = segments.peekFirst();
+        return oldest == null ? -1 : oldest.number;
+    }
+
+    /**
+     * Deletes the oldest segment; its events can no longer be read.
+     */
+    public synchronized void deleteOldestSegment() {
+        Segment oldest = segments.pollFirst();
+        if (oldest != null) {
+            delete(oldest);
+            cache.keySet().removeIf(handle -> segmentNumber(handle) == oldest.number);
+        }
+    }
+
+    /**
+     * Deletes every segment older than the segment number.
+     */
+    public synchronized void deleteSegmentsBefore(int segmentNumber) {
+        while (!segments.isEmpty() && segments.peekFirst().number < segmentNumber) {
+            deleteOldestSegment();
+        }
+    }
+
+    public synchronized long getDiskUsage() {
+        return diskUsage;
+    }
+
+    public long getDiskBudget() {
+        return diskBudget;
+    }
+
+    /**
+     * Changes the most bytes the segments may use.  The segments already over a
+     * lower budget are left for the caller to delete, as it has to evict their events.
+     */
+    public synchronized void setDiskBudget(long diskBudget) {
+        this.diskBudget = diskBudget;
+    }
+
+    /**
+     * Deletes all the segments.
+     */
+    public synchronized void clear() {
+        while (!segments.isEmpty()) {
+            delete(segments.pollFirst());
+        }
+        cache.clear();
+    }
+
+    /**
+     * Deletes all the segments and the directory holding them.
+     */
+    public synchronized void close() {
+        clear();
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            logger.warn("Unable to delete overflow directory {}", directory, e);
+        }
+    }
+
+    private Segment createSegment(int size) {
+        int number = nextSegmentNumber++;
+        Path file = directory.resolve("segment-" + number + ".dat");
+        try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            file.toFile().deleteOnExit();
+            Segment segment = new Segment(number, file, buffer);
+            segments.addLast(segment);
+            diskUsage += size;
+            logger.debug("Created overflow segment {} ({} bytes in use)", file, diskUsage);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create overflow segment " + file, e);
+        }
+    }
+
+    private void delete(Segment segment) {
+        diskUsage -= segment.buffer.capacity();
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            // on some platforms a file can't be deleted while it is mapped, deleteOnExit still applies
+            logger.debug("Unable to delete overflow segment {}", segment.file, e);
+        }
+    }
+
+    private Segment findSegment(int number) {
+        Segment oldest = segments.peekFirst();
+        if (oldest == null || number < oldest.number) {
+            return null;
+        }
+        for (Segment segment : segments) {
+            if (segment.number == number) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    private static long handle(int segmentNumber, int offset) {
+        return ((long) segmentNumber << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int offset(long handle) {
+        return (int) handle;
+    }
+
+    private void writeEvent(ChainsawLoggingEvent event) throws IOException {
+        if (event.m_timestamp == null) {
+            record.writeBoolean(false);
+        } else {
+            record.writeBoolean(true);
+            record.writeLong(event.m_timestamp.getEpochSecond());
+            record.writeInt(event.m_timestamp.getNano());
+        }
+        record.writeByte(event.m_level == null ? -1 : event.m_level.ordinal());
+        writeString(event.m_message);
+        writeString(event.m_threadName);
+        writeString(event.m_logger);
+        writeString(event.m_ndc);
+        LocationInfo locationInfo = event.m_locationInfo;
+        record.writeBoolean(locationInfo != null);
+        if (locationInfo != null) {
+            writeString(locationInfo.fileName);
+            writeString(locationInfo.className);
+            writeString(locationInfo.methodName);
+            record.writeInt(locationInfo.lineNumber);
+        }
+        writeMap(event.m_mdc);
+        writeMap(event.getProperties());
+    }
+
+    private void writeMap(Map<String, String> map) throws IOException {
+        if (map == null) {
+            record.writeInt(NULL_LENGTH);
+            return;
+        }
+        record.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(entry.getKey());
+            writeString(entry.getValue());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            record.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        record.writeInt(bytes.length);
+        record.write(bytes);
+    }
+
+    private static ChainsawLoggingEvent readEvent(ByteBuffer buffer) {
+        ChainsawLoggingEventBuilder builder = new ChainsawLoggingEventBuilder();
+        if (buffer.get() != 0) {
+            builder.setTimestamp(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()));
+        }
+        byte level = buffer.get();
+        if (level >= 0) {
+            builder.setLevel(Level.values()[level]);
+        }
+        builder.setMessage(readString(buffer));
+        builder.setThreadName(readString(buffer));
+        builder.setLogger(readString(buffer));
+        builder.setNDC(readString(buffer));
+        if (buffer.get() != 0) {
+            builder.setLocationInfo(
+                    new LocationInfo(readString(buffer), readString(buffer), readString(buffer), buffer.getInt()));
+        }
+        builder.setMDC(readMap(buffer));
+        ChainsawLoggingEvent event = builder.create();
+        Map<String, String> properties = readMap(buffer);
+        if (properties != null) {
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                event.setProperty(entry.getKey(), entry.getValue());
+            }
+        }
+        return event;
+    }
+
+    private static Map<String, String> readMap(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size == NULL_LENGTH) {
+            return null;
+        }
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(StringDictionary.KEYS.intern(readString(buffer)), readString(buffer));
+        }
+        return map;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+        private final int number;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+
+        private Segment(int number, Path file, MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
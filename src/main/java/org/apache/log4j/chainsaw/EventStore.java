@@ -0,0 +1,695 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import javax.swing.*;
+import org.apache.log4j.chainsaw.color.RuleColorizer;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.helpers.Constants;
+import org.apache.log4j.rule.EventIndex;
+import org.apache.log4j.rule.LevelIndex;
+import org.apache.log4j.rule.MessageTokenIndex;
+import org.apache.log4j.rule.Rule;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Holds every event received by a tab, once.
+ * <p>
+ * Each event is wrapped by a single LoggingEventWrapper however many views (the
+ * main table, the search results table) display it, and its colors and find rule
+ * matches are evaluated once, when it is added.  Views keep their own row order
+ * and a bitset of the slots they display.
+ * <p>
+ * Events are numbered in the order they are added.  In cyclic mode an event's
+ * slot is its sequence modulo the buffer size, so the slot of an evicted event is
+ * reused by the event which replaced it; in unlimited mode the slot is the sequence.
+ * <p>
+ * In cyclic mode the store can keep only the newest events on the heap and move older
+ * ones to an EventOverflowStore, which pages them back in when they are read.  When the
+ * overflow store's disk budget is used up, its oldest segment is deleted and the events
+ * in it are evicted, even if the cyclic buffer isn't full.
+ * <p>
+ * The store keeps a LevelIndex of the event levels, by sequence, and can also keep a
+ * MessageTokenIndex of the event messages, so the views only evaluate rules on the level
+ * or the message against the events which may match them.
+ */
+public class EventStore {
+    /**
+     * Implemented by the views over the store.
+     */
+    public interface Listener {
+        /**
+         * The oldest event is about to be discarded to make room in the cyclic buffer.
+         * Called holding the store lock, before the event's slot is reused.
+         */
+        void eventEvicted(LoggingEventWrapper loggingEventWrapper);
+
+        /**
+         * All events were removed, or were moved to a new buffer and renumbered.
+         * Called without holding the store lock.
+         *
+         * @param cleared true if the store is now empty
+         */
+        void eventsReset(boolean cleared);
+    }
+
+    private static final Logger logger = LogManager.getLogger();
+    private static final int COLOR_CHUNK_SIZE = 8192;
+    // shared by every store and view, refilters and recolors are short-lived bursts
+    static final ForkJoinPool WORKER_POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("Chainsaw-Worker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null,
+            false);
+
+    private final Object mutex = new Object();
+    private final int cyclicBufferSize;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private RingBuffer<LoggingEventWrapper> events;
+    private volatile boolean cyclic = true;
+
+    // because we may be using a cyclic buffer, if an ID is not provided in the property,
+    // use and increment this row counter as the ID for each received row
+    private int uniqueRow;
+    private volatile RuleColorizer colorizer;
+    // results of the rules recently applied to the events, by slot
+    private final RuleOutcomeCache outcomeCache;
+    // index of the messages by sequence, null unless enabled
+    private MessageTokenIndex messageIndex;
+
+    private LevelIndex levelIndex = new LevelIndex();
+    // incremented by each recolor, so a newer one abandons those still running
+    private final AtomicLong colorGeneration = new AtomicLong();
+    private final RingBuffer.EvictionListener<LoggingEventWrapper> evictionNotifier = this::notifyEvicted;
+
+    // null unless events are moved out of the heap
+    private EventOverflowStore overflowStore;
+    private int hotWindowSize;
+    // index of the oldest event which is still on the heap
+    private int firstHotIndex;
+    // whether the last write to the overflow store failed, so a failing disk is only logged once
+    private boolean overflowFailing;
+
+    public EventStore(int cyclicBufferSize, RuleColorizer colorizer) {
+        this.cyclicBufferSize = cyclicBufferSize;
+        this.colorizer = colorizer;
+        outcomeCache = new RuleOutcomeCache(cyclicBufferSize);
+        events = new RingBuffer<>(cyclicBufferSize);
+        events.setEvictionListener(evictionNotifier);
+    }
+
+    private void notifyEvicted(LoggingEventWrapper evicted) {
+        outcomeCache.evicted(slotOf(evicted));
+        levelIndex.removeBefore(evicted.getSequence() + 1);
+        if (messageIndex != null) {
+            messageIndex.removeBefore(evicted.getSequence() + 1);
+        }
+        for (Listener listener : listeners) {
+            listener.eventEvicted(evicted);
+        }
+    }
+
+    /**
+     * The lock guarding the events, shared by the views so their own state changes
+     * atomically with the store.
+     */
+    public Object getLock() {
+        return mutex;
+    }
+
+    /**
+     * The cached results of a rule for the events, recorded by the views as they
+     * evaluate it.  Results may only be recorded holding the store lock, for events
+     * which are still in the store.
+     *
+     * @param fingerprint fingerprint of the rule (see CacheableRule), or null
+     * @return the results, or null if the fingerprint is null or the store isn't cyclic
+     */
+    RuleOutcomeCache.Outcomes getRuleOutcomes(String fingerprint) {
+        if (fingerprint == null || !cyclic) {
+            return null;
+        }
+        return outcomeCache.get(fingerprint);
+    }
+
+    /**
+     * Keeps an index of the event messages, which narrows down the events the views
+     * evaluate rules on the message against, or drops it.  Enabling it indexes the
+     * events already in the store, which reads those moved to the overflow store back.
+     */
+    public void setMessageIndexEnabled(boolean enabled) {
+        synchronized (mutex) {
+            if (enabled == (messageIndex != null)) {
+                return;
+            }
+            messageIndex = enabled ? createMessageIndex() : null;
+        }
+    }
+
+    public boolean isMessageIndexEnabled() {
+        synchronized (mutex) {
+            return messageIndex != null;
+        }
+    }
+
+    /**
+     * Indexes the messages of the events in the store.  Must hold the mutex.
+     */
+    private MessageTokenIndex createMessageIndex() {
+        MessageTokenIndex index = new MessageTokenIndex();
+        for (LoggingEventWrapper loggingEventWrapper : events) {
+            index.add(loggingEventWrapper.getSequence(), loggingEventWrapper.getLoggingEvent().m_message);
+        }
+        return index;
+    }
+
+    /**
+     * Indexes the levels of the events in the store.  Must hold the mutex.
+     */
+    private LevelIndex createLevelIndex() {
+        LevelIndex index = new LevelIndex();
+        for (LoggingEventWrapper loggingEventWrapper : events) {
+            index.add(loggingEventWrapper.getSequence(), loggingEventWrapper.getLoggingEvent().m_level);
+        }
+        return index;
+    }
+
+    /**
+     * The events which may match all the rules according to the level and message indexes, oldest first.
+     *
+     * @param rules rules, null ones are ignored
+     * @return the candidates, or null if the indexes can't narrow down the rules
+     */
+    public List<LoggingEventWrapper> getCandidates(Rule... rules) {
+        synchronized (mutex) {
+            long[] sequences = getCandidateSequences(rules);
+            if (sequences == null) {
+                return null;
+            }
+            List<LoggingEventWrapper> candidates = new ArrayList<>(sequences.length);
+            for (long sequence : sequences) {
+                int index = events.indexOfSequence(sequence);
+                if (index >= 0) {
+                    candidates.add(events.get(index));
+                }
+            }
+            return candidates;
+        }
+    }
+
+    /**
+     * Like getCandidates, as a test of the events which are candidates, for the views
+     * going through the events in their own order.  Events added after the test was
+     * created are all candidates.  The test may be used from any thread.
+     *
+     * @param rules rules, null ones are ignored
+     * @return the test, or null if the indexes can't narrow down the rules
+     */
+    public Predicate<LoggingEventWrapper> getCandidateFilter(Rule... rules) {
+        long[] sequences;
+        long newest;
+        synchronized (mutex) {
+            sequences = getCandidateSequences(rules);
+            newest = events.getFirstSequence() + events.size() - 1;
+        }
+        if (sequences == null) {
+            return null;
+        }
+        long first = sequences.length == 0 ? newest : sequences[0];
+        BitSet offsets = new BitSet();
+        for (long sequence : sequences) {
+            offsets.set((int) (sequence - first));
+        }
+        return loggingEventWrapper -> {
+            long sequence = loggingEventWrapper.getSequence();
+            return sequence > newest || (sequence >= first && offsets.get((int) (sequence - first)));
+        };
+    }
+
+    /**
+     * Must hold the mutex.
+     */
+    private long[] getCandidateSequences(Rule... rules) {
+        EventIndex[] indexes =
+                messageIndex == null ? new EventIndex[] {levelIndex} : new EventIndex[] {levelIndex, messageIndex};
+        long[] candidates = null;
+        for (Rule rule : rules) {
+            long[] ruleCandidates = rule == null ? null : EventIndex.getCandidates(rule, indexes);
+            if (ruleCandidates != null) {
+                candidates = candidates == null ? ruleCandidates : intersection(candidates, ruleCandidates);
+            }
+        }
+        return candidates;
+    }
+
+    private static long[] intersection(long[] first, long[] second) {
+        long[] common = new long[Math.min(first.length, second.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, count);
+    }
+
+    /**
+     * Forgets the cached rule results for an event whose properties were changed, e.g. by
+     * setting a marker.
+     */
+    public void forgetRuleOutcomes(LoggingEventWrapper loggingEventWrapper) {
+        synchronized (mutex) {
+            if (cyclic && indexOf(loggingEventWrapper) >= 0) {
+                outcomeCache.evicted(slotOf(loggingEventWrapper));
+            }
+        }
+    }
+
+    /**
+     * Forgets all cached rule results, after the properties of many events were changed.
+     */
+    public void forgetRuleOutcomes() {
+        outcomeCache.clear();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setRuleColorizer(RuleColorizer colorizer) {
+        this.colorizer = colorizer;
+    }
+
+    public RuleColorizer getRuleColorizer() {
+        return colorizer;
+    }
+
+    /**
+     * Adds a batch of events, assigning a log4jid to those which have none, setting
+     * the millis delta to the previous event and evaluating their colors and find
+     * rule matches.  If the cyclic buffer fills up the
+     * oldest events are evicted.  The views are not offered the events, that is up to
+     * the caller; events evicted again before that are simply no longer in the store.
+     */
+    public void addAll(List<LoggingEventWrapper> loggingEventWrappers) {
+        for (LoggingEventWrapper loggingEventWrapper : loggingEventWrappers) {
+            // only set the property if it doesn't already exist
+            ChainsawLoggingEvent event = loggingEventWrapper.getLoggingEvent();
+            if (event.getLog4jId() == ChainsawLoggingEvent.NO_VALUE
+                    && event.getProperty(Constants.LOG4J_ID_KEY) == null) {
+                int id;
+                synchronized (mutex) {
+                    id = ++uniqueRow;
+                }
+                loggingEventWrapper.setLog4jId(id);
+            }
+            updateColorsAndSearchMatch(loggingEventWrapper);
+        }
+
+        synchronized (mutex) {
+            // the sequences are those the wrappers will have once appended, evictions don't change them
+            long sequence = events.getFirstSequence() + events.size();
+            Instant previousTimestamp =
+                    events.isEmpty() ? null : events.get(events.size() - 1).getLoggingEvent().m_timestamp;
+            for (LoggingEventWrapper loggingEventWrapper : loggingEventWrappers) {
+                loggingEventWrapper.setSequence(sequence++);
+                Instant timestamp = loggingEventWrapper.getLoggingEvent().m_timestamp;
+                loggingEventWrapper.setMillisDelta(
+                        previousTimestamp == null || timestamp == null
+                                ? 0
+                                : ChronoUnit.MILLIS.between(previousTimestamp, timestamp));
+                previousTimestamp = timestamp;
+                levelIndex.add(loggingEventWrapper.getSequence(), loggingEventWrapper.getLoggingEvent().m_level);
+                if (messageIndex != null) {
+                    messageIndex.add(
+                            loggingEventWrapper.getSequence(), loggingEventWrapper.getLoggingEvent().m_message);
+                }
+            }
+            events.addAll(loggingEventWrappers);
+            moveColdEventsToOverflow();
+        }
+    }
+
+    /**
+     * Keeps only the newest events on the heap, writing the older ones to a memory-mapped
+     * overflow store.  Changing the settings only moves the events the new hot window
+     * requires between the heap and the overflow store, and evicts those in the oldest
+     * segments if the disk budget went down.  Only applies in cyclic mode.
+     *
+     * @param hotWindowSize number of events to keep on the heap, or 0 to keep them all
+     * @param diskBudget    the most bytes the overflow store may use
+     */
+    public void setOverflow(int hotWindowSize, long diskBudget) {
+        synchronized (mutex) {
+            if (hotWindowSize <= 0) {
+                closeOverflowStore();
+                this.hotWindowSize = 0;
+                return;
+            }
+            if (overflowStore == null) {
+                try {
+                    overflowStore = new EventOverflowStore(diskBudget);
+                } catch (IOException e) {
+                    logger.error("Unable to create the overflow store, keeping all events on the heap", e);
+                    return;
+                }
+            } else if (this.hotWindowSize == hotWindowSize && overflowStore.getDiskBudget() == diskBudget) {
+                return;
+            } else {
+                overflowStore.setDiskBudget(diskBudget);
+                while (overflowStore.getDiskUsage() > diskBudget && evictOldestOverflowSegment()) {
+                    // the events of the deleted segments are evicted
+                }
+                restoreHotEventsFromOverflow(hotWindowSize);
+            }
+            this.hotWindowSize = hotWindowSize;
+            logger.debug("Keeping {} events on the heap, overflow budget {} bytes", hotWindowSize, diskBudget);
+            moveColdEventsToOverflow();
+        }
+    }
+
+    public boolean isOverflowEnabled() {
+        return overflowStore != null;
+    }
+
+    /**
+     * Moves the events in the overflow store which are within a larger hot window back
+     * on the heap.  Must hold the mutex.
+     */
+    private void restoreHotEventsFromOverflow(int newHotWindowSize) {
+        int firstHot = Math.max(0, events.size() - newHotWindowSize);
+        for (int i = Math.min(firstHotIndex, events.size()) - 1; i >= firstHot; i--) {
+            events.get(i).restoreFromOverflow();
+        }
+        firstHotIndex = Math.min(firstHotIndex, firstHot);
+    }
+
+    /**
+     * Moves events older than the hot window to the overflow store.  Must hold the mutex.
+     * An event which can't be written, as the disk failed, stays on the heap.
+     */
+    private void moveColdEventsToOverflow() {
+        if (overflowStore == null || !cyclic) {
+            return;
+        }
+        int coldCount = events.size() - hotWindowSize;
+        // evictions moved the events which were already written towards the head
+        firstHotIndex = Math.max(0, Math.min(firstHotIndex, events.size()));
+        while (firstHotIndex > 0 && !events.get(firstHotIndex - 1).isInOverflow()) {
+            firstHotIndex--;
+        }
+        while (firstHotIndex < coldCount) {
+            boolean moved;
+            try {
+                moved = events.get(firstHotIndex).moveToOverflow(overflowStore);
+            } catch (UncheckedIOException e) {
+                if (!overflowFailing) {
+                    overflowFailing = true;
+                    logger.error("Unable to write to the overflow store, keeping the newer events on the heap", e);
+                }
+                break;
+            }
+            overflowFailing = false;
+            if (!moved) {
+                if (!evictOldestOverflowSegment()) {
+                    break;
+                }
+                coldCount = events.size() - hotWindowSize;
+                continue;
+            }
+            firstHotIndex++;
+        }
+        // segments holding only evicted events aren't needed any more
+        if (!events.isEmpty() && events.get(0).isInOverflow()) {
+            overflowStore.deleteSegmentsBefore(
+                    EventOverflowStore.segmentNumber(events.get(0).getOverflowHandle()));
+        }
+    }
+
+    /**
+     * Evicts the events held in the oldest overflow segment and deletes it.  Must hold the mutex.
+     *
+     * @return false if there was nothing to evict
+     */
+    private boolean evictOldestOverflowSegment() {
+        int oldestSegment = overflowStore.getOldestSegmentNumber();
+        boolean evicted = false;
+        // events are written oldest first, so those in the oldest segment are at the head
+        while (!events.isEmpty()
+                && events.get(0).isInOverflow()
+                && EventOverflowStore.segmentNumber(events.get(0).getOverflowHandle()) == oldestSegment) {
+            notifyEvicted(events.pollFirst());
+            firstHotIndex--;
+            evicted = true;
+        }
+        overflowStore.deleteOldestSegment();
+        return evicted || oldestSegment >= 0;
+    }
+
+    /**
+     * Moves all the events back on the heap and deletes the overflow store.  Must hold the mutex.
+     */
+    private void closeOverflowStore() {
+        if (overflowStore == null) {
+            return;
+        }
+        for (LoggingEventWrapper loggingEventWrapper : events) {
+            loggingEventWrapper.restoreFromOverflow();
+        }
+        overflowStore.close();
+        overflowStore = null;
+        firstHotIndex = 0;
+    }
+
+    /**
+     * Re-evaluates the color rules and find rule for the event.
+     */
+    public void updateColorsAndSearchMatch(LoggingEventWrapper loggingEventWrapper) {
+        RuleColorizer ruleColorizer = colorizer;
+        ruleColorizer.updateColors(loggingEventWrapper);
+        Rule findRule = ruleColorizer.getFindRule();
+        if (findRule != null) {
+            loggingEventWrapper.evaluateSearchRule(findRule);
+        }
+    }
+
+    /**
+     * Re-evaluates the color rules for every event, in parallel chunks on the worker pool,
+     * after the rules changed.  Events added meanwhile are colored with the new rules when
+     * they are added; a newer call abandons this one.
+     *
+     * @return completes once every event has its new colors, or the recolor was abandoned
+     */
+    public CompletableFuture<Void> updateColors() {
+        long generation = colorGeneration.incrementAndGet();
+        List<LoggingEventWrapper> snapshot = getEvents();
+        return CompletableFuture.runAsync(
+                () -> {
+                    List<ForkJoinTask<?>> chunks = new ArrayList<>();
+                    for (int from = 0; from < snapshot.size(); from += COLOR_CHUNK_SIZE) {
+                        List<LoggingEventWrapper> chunk =
+                                snapshot.subList(from, Math.min(from + COLOR_CHUNK_SIZE, snapshot.size()));
+                        chunks.add(ForkJoinTask.adapt(() -> updateColors(generation, chunk)));
+                    }
+                    ForkJoinTask.invokeAll(chunks);
+                },
+                WORKER_POOL);
+    }
+
+    private void updateColors(long generation, List<LoggingEventWrapper> chunk) {
+        RuleColorizer ruleColorizer = colorizer;
+        for (LoggingEventWrapper loggingEventWrapper : chunk) {
+            if (colorGeneration.get() != generation) {
+                return;
+            }
+            ruleColorizer.updateColors(loggingEventWrapper);
+        }
+    }
+
+    /**
+     * @return the event at the index, oldest first, or null if the index is out of range
+     */
+    public LoggingEventWrapper get(int index) {
+        synchronized (mutex) {
+            if (index < 0 || index >= events.size()) {
+                return null;
+            }
+            return events.get(index);
+        }
+    }
+
+    /**
+     * @return the index of the event, or -1 if it is no longer (or never was) in the store
+     */
+    public int indexOf(LoggingEventWrapper loggingEventWrapper) {
+        synchronized (mutex) {
+            int index = events.indexOfSequence(loggingEventWrapper.getSequence());
+            return index >= 0 && events.get(index) == loggingEventWrapper ? index : -1;
+        }
+    }
+
+    /**
+     * @return the slot of an event which is in the store
+     */
+    public int slotOf(LoggingEventWrapper loggingEventWrapper) {
+        long sequence = loggingEventWrapper.getSequence();
+        return (int) (cyclic ? sequence % cyclicBufferSize : sequence);
+    }
+
+    public int size() {
+        synchronized (mutex) {
+            return events.size();
+        }
+    }
+
+    /**
+     * @return a copy of the events, oldest first
+     */
+    public List<LoggingEventWrapper> getEvents() {
+        synchronized (mutex) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    public int getMaxSize() {
+        return cyclicBufferSize;
+    }
+
+    public boolean isCyclic() {
+        return cyclic;
+    }
+
+    public void clear() {
+        synchronized (mutex) {
+            events.clear();
+            outcomeCache.clear();
+            levelIndex.clear();
+            if (messageIndex != null) {
+                messageIndex.clear();
+            }
+            uniqueRow = 0;
+            if (overflowStore != null) {
+                overflowStore.clear();
+            }
+            firstHotIndex = 0;
+        }
+        for (Listener listener : listeners) {
+            listener.eventsReset(true);
+        }
+    }
+
+    /**
+     * Moves the events to a cyclic buffer or an unlimited list, on a background thread.
+     * Does nothing if the store is already in the requested mode.
+     */
+    public void setCyclic(final boolean newCyclic) {
+        synchronized (mutex) {
+            if (cyclic == newCyclic) {
+                return;
+            }
+        }
+        Thread thread = new Thread(() -> {
+            ProgressMonitor monitor = null;
+
+            int index = 0;
+
+            try {
+                synchronized (mutex) {
+                    monitor = new ProgressMonitor(
+                            null,
+                            "Switching models...",
+                            "Transferring between data structures, please wait...",
+                            0,
+                            events.size() + 1);
+                    monitor.setMillisToDecideToPopup(250);
+                    monitor.setMillisToPopup(100);
+                    logger.debug("Changing Model, isCyclic is now {}", newCyclic);
+
+                    // the views are rebuilt afterwards, so they aren't told about events dropped here
+                    RingBuffer<LoggingEventWrapper> newEvents =
+                            newCyclic ? new RingBuffer<>(cyclicBufferSize) : new RingBuffer<>();
+                    newEvents.addAll(events);
+                    monitor.setProgress(index += events.size());
+                    // slots are numbered differently in the two modes, so renumber
+                    for (int i = 0; i < newEvents.size(); i++) {
+                        newEvents.get(i).setSequence(newEvents.getFirstSequence() + i);
+                    }
+                    if (newCyclic) {
+                        newEvents.setEvictionListener(evictionNotifier);
+                    }
+
+                    events = newEvents;
+                    cyclic = newCyclic;
+                    outcomeCache.clear();
+                    levelIndex = createLevelIndex();
+                    if (messageIndex != null) {
+                        messageIndex = createMessageIndex();
+                    }
+                    // events already in the overflow store stay there, but new ones are only moved when cyclic
+                    firstHotIndex = 0;
+                    moveColdEventsToOverflow();
+                }
+
+                monitor.setNote("Refiltering...");
+                for (Listener listener : listeners) {
+                    listener.eventsReset(false);
+                }
+
+                monitor.setProgress(index++);
+            } finally {
+                if (monitor != null) {
+                    monitor.close();
+                }
+            }
+
+            logger.debug("Model Change completed");
+        });
+        thread.setPriority(Thread.MIN_PRIORITY + 1);
+        thread.start();
+    }
+}
@@ -18,99 +18,211 @@ package org.apache.log4j.chainsaw;
 
 import java.awt.*;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
 import org.apache.log4j.helpers.Constants;
 import org.apache.log4j.rule.Rule;
 
 /**
- * Wrap access to a LoggingEvent.  All property updates need to go through this object and not through the wrapped logging event,
- * since the properties are shared by two views of the same backing LoggingEvent, and loggingEvent itself creates a copy of passed-in properties..
+ * Wrap access to a LoggingEvent.  All property updates need to go through this object and not through the wrapped logging event.
+ * <p>
+ * A single wrapper is held by a tab's EventStore and shared by all the views of the tab, so it only carries state which is
+ * the same in every view; row heights and whether the event is displayed are kept by each view.
  * <p>
  * Property reads can be made on the actual LoggingEvent.
+ * <p>
+ * The store may move the event to an EventOverflowStore, in which case the wrapper only keeps its handle and
+ * getLoggingEvent() reads a copy back.  Property changes made after the move are remembered by the wrapper and
+ * applied to each copy.
  */
 public class LoggingEventWrapper {
-    private final ChainsawLoggingEvent loggingEvent;
-    private static final int DEFAULT_HEIGHT = -1;
+    private static final ChainsawLoggingEvent UNAVAILABLE_EVENT = new ChainsawLoggingEventBuilder()
+            .setTimestamp(Instant.EPOCH)
+            .setLevel(Level.INFO)
+            .setLogger("")
+            .setThreadName("")
+            .setMessage("(event no longer available)")
+            .create();
+
+    // null once the event has been moved to the overflow store
+    private volatile ChainsawLoggingEvent loggingEvent;
+    private EventOverflowStore overflowStore;
+    private long overflowHandle = -1;
+    // property changes made after the event was moved, a null value is a removal
+    private Map<String, String> overflowPropertyChanges;
 
     private Color colorRuleBackground = ChainsawConstants.COLOR_DEFAULT_BACKGROUND;
     private Color colorRuleForeground = ChainsawConstants.COLOR_DEFAULT_FOREGROUND;
-    private int markerHeight = DEFAULT_HEIGHT;
-    private int msgHeight = DEFAULT_HEIGHT;
 
     // set to the log4jid value via setId - assumed to never change
     private int id;
+    // assigned by the EventStore
+    private long sequence = -1;
 
     private boolean searchMatch = false;
     // a Map of event fields to Sets of string matches (can be used to render matches differently)
-    Map eventMatches = new HashMap();
-    private LoggingEventWrapper syncWrapper;
-    private boolean displayed;
+    Map<String, Set<String>> eventMatches = Collections.emptyMap();
 
     public LoggingEventWrapper(ChainsawLoggingEvent loggingEvent) {
         this.loggingEvent = loggingEvent;
     }
 
-    public LoggingEventWrapper(LoggingEventWrapper loggingEventWrapper) {
-        this.loggingEvent = loggingEventWrapper.getLoggingEvent();
-        this.id = loggingEventWrapper.id;
-        this.syncWrapper = loggingEventWrapper;
-        loggingEventWrapper.syncWrapper = this;
-    }
-
     public ChainsawLoggingEvent getLoggingEvent() {
-        return loggingEvent;
+        ChainsawLoggingEvent event = loggingEvent;
+        return event != null ? event : readOverflowEvent();
     }
 
-    public void setProperty(String propName, String propValue) {
-        loggingEvent.setProperty(propName, propValue);
+    public synchronized void setProperty(String propName, String propValue) {
+        if (loggingEvent != null) {
+            loggingEvent.setProperty(propName, propValue);
+        } else {
+            changeOverflowProperty(propName, propValue);
+        }
         if (id == 0 && propName.equals(Constants.LOG4J_ID_KEY)) {
             id = Integer.parseInt(propValue);
         }
-        if (syncWrapper != null && !propName.equals(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE)) {
-            syncWrapper.getLoggingEvent().setProperty(propName, propValue);
+    }
+
+    public synchronized Object removeProperty(String propName) {
+        if (loggingEvent != null) {
+            return loggingEvent.removeProperty(propName);
+        }
+        Object previous = getLoggingEvent().getProperty(propName);
+        changeOverflowProperty(propName, null);
+        return previous;
+    }
+
+    /**
+     * Sets the log4jid of an event which has none.
+     */
+    public synchronized void setLog4jId(int log4jId) {
+        if (loggingEvent != null) {
+            loggingEvent.setLog4jId(log4jId);
+        } else {
+            changeOverflowProperty(Constants.LOG4J_ID_KEY, String.valueOf(log4jId));
+        }
+        if (id == 0) {
+            id = log4jId;
+        }
+    }
+
+    /**
+     * Sets the millis elapsed since the event received before this one.
+     */
+    public synchronized void setMillisDelta(long millisDelta) {
+        if (loggingEvent != null) {
+            loggingEvent.setMillisDelta(millisDelta);
+        } else {
+            changeOverflowProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE, String.valueOf(millisDelta));
+        }
+    }
+
+    public Set<String> getPropertyKeySet() {
+        return getLoggingEvent().getPropertyKeySet();
+    }
+
+    /**
+     * Writes the event to the overflow store and releases it.
+     *
+     * @return false if the overflow store has no room
+     */
+    synchronized boolean moveToOverflow(EventOverflowStore store) {
+        if (loggingEvent == null) {
+            return true;
+        }
+        long handle = store.write(loggingEvent);
+        if (handle < 0) {
+            return false;
         }
+        overflowStore = store;
+        overflowHandle = handle;
+        loggingEvent = null;
+        return true;
     }
 
-    public Object removeProperty(String propName) {
-        Object result = loggingEvent.removeProperty(propName);
-        if (syncWrapper != null && !propName.equals(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE)) {
-            syncWrapper.getLoggingEvent().removeProperty(propName);
+    /**
+     * Holds the event on the heap again.
+     */
+    synchronized void restoreFromOverflow() {
+        if (loggingEvent == null) {
+            loggingEvent = readOverflowEvent();
+            overflowStore = null;
+            overflowHandle = -1;
+            overflowPropertyChanges = null;
         }
-        return result;
     }
 
-    public Set getPropertyKeySet() {
-        return loggingEvent.getPropertyKeySet();
+    boolean isInOverflow() {
+        return loggingEvent == null;
+    }
+
+    /**
+     * @return the overflow store handle, or -1 if the event is on the heap
+     */
+    synchronized long getOverflowHandle() {
+        return overflowHandle;
+    }
+
+    private synchronized ChainsawLoggingEvent readOverflowEvent() {
+        if (loggingEvent != null) {
+            return loggingEvent;
+        }
+        ChainsawLoggingEvent event = overflowStore.read(overflowHandle);
+        if (event == null) {
+            // the segment was deleted after the event was evicted, but a view still has the row
+            return UNAVAILABLE_EVENT;
+        }
+        if (overflowPropertyChanges != null) {
+            for (Map.Entry<String, String> change : overflowPropertyChanges.entrySet()) {
+                if (change.getValue() == null) {
+                    event.removeProperty(change.getKey());
+                } else {
+                    event.setProperty(change.getKey(), change.getValue());
+                }
+            }
+        }
+        return event;
+    }
+
+    private void changeOverflowProperty(String propName, String propValue) {
+        if (overflowPropertyChanges == null) {
+            overflowPropertyChanges = new HashMap<>(4);
+        }
+        overflowPropertyChanges.put(propName, propValue);
+        // the cached copy may be returned again
+        ChainsawLoggingEvent event = overflowStore.read(overflowHandle);
+        if (event != null) {
+            if (propValue == null) {
+                event.removeProperty(propName);
+            } else {
+                event.setProperty(propName, propValue);
+            }
+        }
     }
 
     public void updateColorRuleColors(Color backgroundColor, Color foregroundColor) {
         if (backgroundColor != null && foregroundColor != null) {
             this.colorRuleBackground = backgroundColor;
             this.colorRuleForeground = foregroundColor;
-            if (syncWrapper != null) {
-                syncWrapper.colorRuleBackground = this.colorRuleBackground;
-                syncWrapper.colorRuleForeground = this.colorRuleForeground;
-            }
         } else {
             this.colorRuleBackground = ChainsawConstants.COLOR_DEFAULT_BACKGROUND;
             this.colorRuleForeground = ChainsawConstants.COLOR_DEFAULT_FOREGROUND;
-            if (syncWrapper != null) {
-                syncWrapper.colorRuleBackground = this.colorRuleBackground;
-                syncWrapper.colorRuleForeground = this.colorRuleForeground;
-            }
         }
     }
 
     public void evaluateSearchRule(Rule searchRule) {
-        eventMatches.clear();
-        searchMatch = searchRule != null && searchRule.evaluate(loggingEvent, eventMatches);
+        Map<String, Set<String>> matches = new HashMap<>();
+        searchMatch = searchRule != null && searchRule.evaluate(getLoggingEvent(), matches);
+        // most events have no matches, don't hold on to an empty map for each of them
+        eventMatches = matches.isEmpty() ? Collections.emptyMap() : matches;
     }
 
-    public Map getSearchMatches() {
+    public Map<String, Set<String>> getSearchMatches() {
         return eventMatches;
     }
 
@@ -134,35 +246,12 @@ public class LoggingEventWrapper {
         return searchMatch;
     }
 
-    public void setMarkerHeight(int markerHeight) {
-        this.markerHeight = markerHeight;
-    }
-
-    public int getMarkerHeight() {
-        return markerHeight;
-    }
-
-    public void setMsgHeight(int msgHeight) {
-        this.msgHeight = msgHeight;
-    }
-
-    public int getMsgHeight() {
-        return msgHeight;
-    }
-
-    public void setDisplayed(boolean b) {
-        markerHeight = DEFAULT_HEIGHT;
-        msgHeight = DEFAULT_HEIGHT;
-        displayed = b;
-    }
-
-    public void setPreviousDisplayedEventTimestamp(Instant previousDisplayedEventTimeStamp) {
-        long diffMs = ChronoUnit.MILLIS.between(previousDisplayedEventTimeStamp, loggingEvent.m_timestamp);
-        setProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE, String.valueOf(diffMs));
+    long getSequence() {
+        return sequence;
     }
 
-    public boolean isDisplayed() {
-        return displayed;
+    void setSequence(long sequence) {
+        this.sequence = sequence;
     }
 
     public boolean equals(Object o) {
@@ -184,6 +273,6 @@ public class LoggingEventWrapper {
 
     public String toString() {
         return "LoggingEventWrapper - id: " + id + " background: " + getBackground() + ", foreground: "
-                + getForeground() + ", msg: " + loggingEvent.m_message;
+                + getForeground() + ", msg: " + getLoggingEvent().m_message;
     }
 }
@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A List backed by a circular array.
+ * <p>
+ * Appending, removing the first element and indexed access are constant time.
+ * When the buffer holds <code>maxSize</code> elements, appending evicts the oldest
+ * element and passes it to the eviction listener; with no maximum the buffer grows
+ * like an ArrayList.  The backing array is grown on demand, so an empty buffer
+ * with a large maximum size is cheap.
+ * <p>
+ * Every position ever occupied has a sequence number: the element at index
+ * <code>i</code> has sequence <code>getFirstSequence() + i</code>.  Removing the
+ * first element advances the first sequence, so the sequence of an element is
+ * stable while elements are only appended and evicted.  Callers remembering an
+ * element's sequence can find its index in constant time with
+ * {@link #indexOfSequence(long)}; sorting or removing from the middle moves
+ * elements to other sequences.
+ * <p>
+ * Not thread safe.
+ *
+ * @param <E> element type
+ */
+public class RingBuffer<E> extends AbstractList<E> implements RandomAccess {
+    /**
+     * Notified of elements discarded to make room for new ones.
+     */
+    public interface EvictionListener<E> {
+        void evicted(E element);
+    }
+
+    private static final int UNBOUNDED = Integer.MAX_VALUE - 8;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxSize;
+    private Object[] elements;
+    private int head;
+    private int size;
+    private long firstSequence;
+    private EvictionListener<? super E> evictionListener;
+
+    /**
+     * Creates a buffer which never evicts elements.
+     */
+    public RingBuffer() {
+        this(UNBOUNDED);
+    }
+
+    /**
+     * Creates a buffer holding at most <code>maxSize</code> elements.
+     *
+     * @param maxSize The maximum number of elements in the buffer.
+     */
+    public RingBuffer(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maxSize argument (" + maxSize + ") is not a positive integer.");
+        }
+        this.maxSize = maxSize;
+        elements = new Object[Math.min(maxSize, INITIAL_CAPACITY)];
+    }
+
+    public void setEvictionListener(EvictionListener<? super E> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public boolean isBounded() {
+        return maxSize != UNBOUNDED;
+    }
+
+    public boolean isFull() {
+        return size == maxSize;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the sequence number of the element at index 0
+     */
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * @return the index of the element at the sequence, or -1 if the sequence was
+     * evicted or has not been reached yet
+     */
+    public int indexOfSequence(long sequence) {
+        long index = sequence - firstSequence;
+        return index < 0 || index >= size ? -1 : (int) index;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index);
+        return (E) elements[physicalIndex(index)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        checkIndex(index);
+        int physical = physicalIndex(index);
+        E previous = (E) elements[physical];
+        elements[physical] = element;
+        return previous;
+    }
+
+    /**
+     * Appends the element, evicting the oldest element first if the buffer is full.
+     */
+    @Override
+    public boolean add(E element) {
+        if (size == maxSize) {
+            evictFirst();
+        } else if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[physicalIndex(size)] = element;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Appends all the elements, copying them into the backing array in at most
+     * two blocks.  If there are more elements than fit, the oldest are evicted
+     * (including any of the new elements which would be evicted straight away).
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean addAll(Collection<? extends E> collection) {
+        Object[] added = collection.toArray();
+        int count = added.length;
+        if (count == 0) {
+            return false;
+        }
+        int start = 0;
+        if (count > maxSize) {
+            // only the newest maxSize elements survive
+            while (size > 0) {
+                evictFirst();
+            }
+            for (; start < count - maxSize; start++) {
+                firstSequence++;
+                if (evictionListener != null) {
+                    evictionListener.evicted((E) added[start]);
+                }
+            }
+            count = maxSize;
+        }
+        while (size + count > maxSize) {
+            evictFirst();
+        }
+        if (size + count > elements.length) {
+            grow(size + count);
+        }
+        int tail = physicalIndex(size);
+        int firstBlock = Math.min(count, elements.length - tail);
+        System.arraycopy(added, start, elements, tail, firstBlock);
+        System.arraycopy(added, start + firstBlock, elements, 0, count - firstBlock);
+        size += count;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest element, or returns null if the buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E pollFirst() {
+        if (size == 0) {
+            return null;
+        }
+        E element = (E) elements[head];
+        elements[head] = null;
+        head = head + 1 == elements.length ? 0 : head + 1;
+        size--;
+        firstSequence++;
+        modCount++;
+        return element;
+    }
+
+    /**
+     * Removes the element at the index, moving the elements on whichever side of
+     * it is shorter.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        checkIndex(index);
+        if (index == 0) {
+            return pollFirst();
+        }
+        E element = (E) elements[physicalIndex(index)];
+        if (index < size / 2) {
+            for (int i = index; i > 0; i--) {
+                elements[physicalIndex(i)] = elements[physicalIndex(i - 1)];
+            }
+            elements[head] = null;
+            head = head + 1 == elements.length ? 0 : head + 1;
+        } else {
+            for (int i = index; i < size - 1; i++) {
+                elements[physicalIndex(i)] = elements[physicalIndex(i + 1)];
+            }
+            elements[physicalIndex(size - 1)] = null;
+        }
+        size--;
+        modCount++;
+        return element;
+    }
+
+    /**
+     * Inserts elements into a buffer which is already sorted by the comparator, keeping
+     * it sorted.  Insertion points are found by binary search and each element already
+     * in the buffer moves at most once, so inserting <code>k</code> elements takes
+     * <code>O(k log n)</code> comparisons.  Inserted elements go after any equal
+     * elements already in the buffer.  Elements from the first insertion point onwards
+     * move to later sequences.
+     *
+     * @param sorted     the elements to insert, sorted by the comparator
+     * @param comparator the order of the buffer
+     * @return the index of each inserted element once inserted, ascending
+     * @throws IllegalStateException if the buffer has no room for the elements
+     */
+    public int[] insertSorted(List<? extends E> sorted, Comparator<? super E> comparator) {
+        int count = sorted.size();
+        if (size + count > maxSize) {
+            throw new IllegalStateException("No room for " + count + " elements, " + size + " of " + maxSize + " used");
+        }
+        // insertion points in the current elements
+        int[] positions = new int[count];
+        int low = 0;
+        for (int j = 0; j < count; j++) {
+            low = upperBound(sorted.get(j), low, comparator);
+            positions[j] = low;
+        }
+        if (size + count > elements.length) {
+            grow(size + count);
+        }
+        // fill from the back, moving each run of existing elements past the new ones before it
+        int end = size;
+        for (int j = count - 1; j >= 0; j--) {
+            int position = positions[j];
+            for (int i = end - 1; i >= position; i--) {
+                elements[physicalIndex(i + j + 1)] = elements[physicalIndex(i)];
+            }
+            elements[physicalIndex(position + j)] = sorted.get(j);
+            positions[j] = position + j;
+            end = position;
+        }
+        size += count;
+        modCount++;
+        return positions;
+    }
+
+    /**
+     * @return the first index from <code>from</code> whose element sorts after the element
+     */
+    @SuppressWarnings("unchecked")
+    private int upperBound(E element, int from, Comparator<? super E> comparator) {
+        int low = from;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(element, (E) elements[physicalIndex(middle)]) < 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorts the elements in place.  Elements keep their index range, so the first
+     * sequence is unchanged.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> comparator) {
+        Object[] sorted = toArray();
+        Arrays.sort(sorted, (Comparator<Object>) comparator);
+        elements = sorted.length == elements.length ? sorted : Arrays.copyOf(sorted, elements.length);
+        head = 0;
+        modCount++;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] copy = new Object[size];
+        copyTo(copy);
+        return copy;
+    }
+
+    /**
+     * Removes all the elements, without notifying the eviction listener, and
+     * restarts the sequence numbers from zero.
+     */
+    @Override
+    public void clear() {
+        elements = new Object[Math.min(maxSize, INITIAL_CAPACITY)];
+        head = 0;
+        size = 0;
+        firstSequence = 0;
+        modCount++;
+    }
+
+    private void evictFirst() {
+        E evicted = pollFirst();
+        if (evictionListener != null) {
+            evictionListener.evicted(evicted);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = (int) Math.min(maxSize, Math.max(minCapacity, elements.length * 2L));
+        Object[] grown = new Object[newCapacity];
+        copyTo(grown);
+        elements = grown;
+        head = 0;
+    }
+
+    private void copyTo(Object[] target) {
+        int firstBlock = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, target, 0, firstBlock);
+        System.arraycopy(elements, 0, target, firstBlock, size - firstBlock);
+    }
+
+    private int physicalIndex(int index) {
+        int physical = head + index;
+        return physical >= elements.length ? physical - elements.length : physical;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
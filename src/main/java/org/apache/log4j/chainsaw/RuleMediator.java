@@ -21,6 +21,7 @@ import java.beans.PropertyChangeListener;
 import java.util.Map;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.rule.AbstractRule;
+import org.apache.log4j.rule.CacheableRule;
 import org.apache.log4j.rule.Rule;
 
 /**
@@ -33,12 +34,15 @@ import org.apache.log4j.rule.Rule;
  * @author Paul Smith &lt;psmith@apache.org&gt;
  * @author Scott Deboy &lt;sdeboy@apache.org&gt;
  */
-public class RuleMediator extends AbstractRule {
-    private Rule loggerRule;
-    private Rule filterRule;
-    private Rule findRule;
+public class RuleMediator extends AbstractRule implements CacheableRule {
+    // set on the EDT, read by the threads evaluating the mediator
+    private volatile Rule loggerRule;
+    private volatile Rule filterRule;
+    private volatile Rule findRule;
     private final PropertyChangeListener ruleChangerNotifier = new RuleChangerNotifier();
     private boolean findRuleRequired;
+    // the last fingerprint built, with the fingerprints of the rules it was built from
+    private volatile Fingerprint fingerprint;
 
     public RuleMediator(boolean findRuleRequired) {
         this.findRuleRequired = findRuleRequired;
@@ -48,17 +52,60 @@ public class RuleMediator extends AbstractRule {
      * @see org.apache.log4j.chainsaw.rule.Rule#evaluate(org.apache.log4j.spi.LoggingEvent)
      */
     public boolean evaluate(ChainsawLoggingEvent e, Map matches) {
+        // each rule is read once, it may be replaced while the event is evaluated
         if (findRuleRequired) {
-            if (findRule == null) {
+            Rule currentFindRule = findRule;
+            if (currentFindRule == null) {
                 return false;
             }
-            if (!findRule.evaluate(e, null)) {
+            if (!currentFindRule.evaluate(e, null)) {
                 return false;
             }
         }
 
-        return (loggerRule == null || loggerRule.evaluate(e, null))
-                && (filterRule == null || filterRule.evaluate(e, null));
+        Rule currentLoggerRule = loggerRule;
+        Rule currentFilterRule = filterRule;
+        return (currentLoggerRule == null || currentLoggerRule.evaluate(e, null))
+                && (currentFilterRule == null || currentFilterRule.evaluate(e, null));
+    }
+
+    /**
+     * @return a fingerprint combining those of the rules, or null if one of them isn't cacheable
+     */
+    @Override
+    public String getFingerprint() {
+        String findFingerprint = findRuleRequired ? fingerprint(findRule) : "";
+        String loggerFingerprint = fingerprint(loggerRule);
+        String filterFingerprint = fingerprint(filterRule);
+        if (findFingerprint == null || loggerFingerprint == null || filterFingerprint == null) {
+            return null;
+        }
+        // the rules keep their fingerprints, usually the same instances, so this is
+        // checked for every event without building strings
+        Fingerprint last = fingerprint;
+        if (last != null
+                && last.find.equals(findFingerprint)
+                && last.logger.equals(loggerFingerprint)
+                && last.filter.equals(filterFingerprint)) {
+            return last.value;
+        }
+        last = new Fingerprint(findFingerprint, loggerFingerprint, filterFingerprint);
+        fingerprint = last;
+        return last.value;
+    }
+
+    private static String fingerprint(Rule rule) {
+        if (rule == null) {
+            return "none";
+        }
+        return rule instanceof CacheableRule ? ((CacheableRule) rule).getFingerprint() : null;
+    }
+
+    /**
+     * @return the rules an event must match to match the mediator, some of them may be null
+     */
+    Rule[] getRequiredRules() {
+        return new Rule[] {findRuleRequired ? findRule : null, loggerRule, filterRule};
     }
 
     public boolean isFindRuleRequired() {
@@ -87,6 +134,21 @@ public class RuleMediator extends AbstractRule {
         firePropertyChange("loggerRule", oldLoggerRule, this.loggerRule);
     }
 
+    private static final class Fingerprint {
+        private final String find;
+        private final String logger;
+        private final String filter;
+        private final String value;
+
+        Fingerprint(String find, String logger, String filter) {
+            this.find = find;
+            this.logger = logger;
+            this.filter = filter;
+            // length-prefixed, so the combination is unambiguous
+            value = find.length() + ":" + find + logger.length() + ":" + logger + filter.length() + ":" + filter;
+        }
+    }
+
     /**
      * Helper class that propagates internal Rules propertyChange events
      * to external parties, since an internal rule changing really means
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The results of the rules recently applied to the events of an EventStore, so
+ * applying one of them again only evaluates it against the events it hasn't seen.
+ * <p>
+ * Rules are identified by their fingerprint (see CacheableRule), and their results
+ * kept as two bitmaps indexed by store slot: whether the result for the event in the
+ * slot is known, and if so whether the rule matched it.  Only the most recently used
+ * rules are kept.
+ * <p>
+ * Results are recorded and invalidated holding the store lock, so a result is never
+ * recorded for an event which was already evicted; they are read without it.
+ */
+class RuleOutcomeCache {
+    private static final int MAX_RULES = 16;
+
+    private final int capacity;
+    // most recently used last
+    private final LinkedHashMap<String, Outcomes> outcomes = new LinkedHashMap<>(MAX_RULES, 0.75f, true);
+
+    RuleOutcomeCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the results of the rule with the fingerprint, empty if it wasn't applied recently
+     */
+    synchronized Outcomes get(String fingerprint) {
+        Outcomes ruleOutcomes = outcomes.get(fingerprint);
+        if (ruleOutcomes == null) {
+            ruleOutcomes = new Outcomes(capacity);
+            outcomes.put(fingerprint, ruleOutcomes);
+            if (outcomes.size() > MAX_RULES) {
+                Iterator<Outcomes> eldest = outcomes.values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return ruleOutcomes;
+    }
+
+    /**
+     * Forgets the results for the event in the slot.  Must hold the store lock.
+     */
+    synchronized void evicted(int slot) {
+        for (Outcomes ruleOutcomes : outcomes.values()) {
+            ruleOutcomes.forget(slot);
+        }
+    }
+
+    /**
+     * Forgets all results, when the events are removed or renumbered.
+     */
+    synchronized void clear() {
+        outcomes.clear();
+    }
+
+    /**
+     * The results of one rule.
+     */
+    static class Outcomes {
+        private final AtomicLongArray known;
+        private final AtomicLongArray matched;
+
+        Outcomes(int capacity) {
+            known = new AtomicLongArray((capacity + 63) / 64);
+            matched = new AtomicLongArray((capacity + 63) / 64);
+        }
+
+        boolean isKnown(int slot) {
+            return (known.get(slot >> 6) & (1L << slot)) != 0;
+        }
+
+        /**
+         * @return whether the rule matched the event in the slot, if isKnown
+         */
+        boolean isMatched(int slot) {
+            return (matched.get(slot >> 6) & (1L << slot)) != 0;
+        }
+
+        /**
+         * Records the result for the event in the slot.  Must hold the store lock.
+         */
+        void record(int slot, boolean result) {
+            long bit = 1L << slot;
+            // the result before the known flag, as they are read in the opposite order
+            if (result) {
+                matched.getAndAccumulate(slot >> 6, bit, (word, b) -> word | b);
+            } else {
+                matched.getAndAccumulate(slot >> 6, ~bit, (word, mask) -> word & mask);
+            }
+            known.getAndAccumulate(slot >> 6, bit, (word, b) -> word | b);
+        }
+
+        void forget(int slot) {
+            known.getAndAccumulate(slot >> 6, ~(1L << slot), (word, mask) -> word & mask);
+        }
+    }
+}
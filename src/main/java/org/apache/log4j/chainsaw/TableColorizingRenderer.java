@@ -175,7 +175,7 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
                     ((millisBetween) * ChainsawConstants.MILLIS_DELTA_RENDERING_FACTOR)));
         }
 
-        Map matches = loggingEventWrapper.getSearchMatches();
+        Map<String, Set<String>> matches = loggingEventWrapper.getSearchMatches();
 
         JComponent component;
         switch (colIndex) {
@@ -256,7 +256,7 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
             case ChainsawColumns.INDEX_TIMESTAMP_COL_NAME:
                 // timestamp matches contain the millis..not the display text..just highlight if we have a match for the
                 // timestamp field
-                Set timestampMatches = (Set) matches.get(LoggingEventFieldResolver.TIMESTAMP_FIELD);
+                Set<String> timestampMatches = matches.get(LoggingEventFieldResolver.TIMESTAMP_FIELD);
                 if (timestampMatches != null && timestampMatches.size() > 0) {
                     singleLineTextPane.setText(value.toString());
                     boldAll((StyledDocument) singleLineTextPane.getDocument());
@@ -315,8 +315,10 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
                         textPane.setBorder(getMiddleBorder(isSelected, 0));
                     }
                 }
-                int currentMarkerHeight = loggingEventWrapper.getMarkerHeight();
-                int currentMsgHeight = loggingEventWrapper.getMsgHeight();
+                int currentMarkerHeight =
+                        container.getCellHeight(loggingEventWrapper, ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME);
+                int currentMsgHeight =
+                        container.getCellHeight(loggingEventWrapper, ChainsawColumns.INDEX_MESSAGE_COL_NAME);
                 int newRowHeight = ChainsawConstants.DEFAULT_ROW_HEIGHT;
                 boolean setHeight = false;
 
@@ -340,15 +342,16 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
                 }
 
                 if (colIndex == ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME) {
-                    loggingEventWrapper.setMarkerHeight(newRowHeight);
-                    if (newRowHeight != currentMarkerHeight && newRowHeight >= loggingEventWrapper.getMsgHeight()) {
+                    container.setCellHeight(
+                            loggingEventWrapper, ChainsawColumns.INDEX_LOG4J_MARKER_COL_NAME, newRowHeight);
+                    if (newRowHeight != currentMarkerHeight && newRowHeight >= currentMsgHeight) {
                         setHeight = true;
                     }
                 }
 
                 if (colIndex == ChainsawColumns.INDEX_MESSAGE_COL_NAME) {
-                    loggingEventWrapper.setMsgHeight(newRowHeight);
-                    if (newRowHeight != currentMsgHeight && newRowHeight >= loggingEventWrapper.getMarkerHeight()) {
+                    container.setCellHeight(loggingEventWrapper, ChainsawColumns.INDEX_MESSAGE_COL_NAME, newRowHeight);
+                    if (newRowHeight != currentMsgHeight && newRowHeight >= currentMarkerHeight) {
                         setHeight = true;
                     }
                 }
@@ -384,7 +387,7 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
 
                 // remaining entries are properties
             default:
-                Set propertySet = loggingEventWrapper.getPropertyKeySet();
+                Set<String> propertySet = loggingEventWrapper.getPropertyKeySet();
                 String headerName = tableColumn.getHeaderValue().toString().toLowerCase();
                 String thisProp = null;
                 // find the property in the property set...case-sensitive
@@ -397,7 +400,7 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
                 }
                 if (thisProp != null) {
                     String propKey = LoggingEventFieldResolver.PROP_FIELD + thisProp.toUpperCase();
-                    Set propKeyMatches = (Set) matches.get(propKey);
+                    Set<String> propKeyMatches = matches.get(propKey);
                     singleLineTextPane.setText(
                             loggingEventWrapper.getLoggingEvent().getProperty(thisProp));
                     setHighlightAttributesInternal(propKeyMatches, (StyledDocument) singleLineTextPane.getDocument());
@@ -586,7 +589,7 @@ public class TableColorizingRenderer extends DefaultTableCellRenderer {
             return "" + ChronoUnit.MILLIS.between(dt, relativeTimestampBase);
         }
         if (useRelativeTimesToPrevious) {
-            return loggingEventWrapper.getLoggingEvent().getProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE);
+            return String.valueOf(eventContainer.getMillisDelta(loggingEventWrapper));
         }
 
         return dateFormatInUse.format(Date.from((Instant) field));
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Publishes pending table model changes at a fixed frame rate.
+ * <p>
+ * Models record what changed and ask to be scheduled; however many batches
+ * arrive between two frames, each model publishes a single set of
+ * notifications on the next frame.  One scheduler is shared by every tab, and
+ * each frame stops publishing once its time budget is used up, leaving the
+ * remaining models for the following frame.
+ */
+public final class TableRefreshScheduler {
+    /**
+     * Implemented by anything with pending changes to publish on the EDT.
+     */
+    public interface Refreshable {
+        /**
+         * Called on the EDT to fire the notifications accumulated since the last call.
+         */
+        void publishPendingChanges();
+    }
+
+    public static final int DEFAULT_FRAMES_PER_SECOND = 30;
+    private static final Logger logger = LogManager.getLogger();
+    private static final TableRefreshScheduler instance = new TableRefreshScheduler();
+
+    // models waiting for the next frame, in the order they asked
+    private final Set<Refreshable> scheduled = ConcurrentHashMap.newKeySet();
+    private final Deque<Refreshable> pending = new ArrayDeque<>();
+    private final Timer timer;
+    private volatile long frameBudgetNanos;
+
+    private TableRefreshScheduler() {
+        timer = new Timer(1000 / DEFAULT_FRAMES_PER_SECOND, e -> publishFrame());
+        timer.setCoalesce(true);
+        setFramesPerSecond(DEFAULT_FRAMES_PER_SECOND);
+    }
+
+    public static TableRefreshScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Maps the application 'responsiveness' preference (1 = fastest, 4 = slowest)
+     * to a frame rate.
+     */
+    public static int framesPerSecondForResponsiveness(int responsiveness) {
+        if (responsiveness >= 1000) {
+            // older versions stored the refresh delay in millis
+            responsiveness = (responsiveness - 750) / 1000;
+        }
+        switch (responsiveness) {
+            case 1:
+                return 60;
+            case 2:
+                return 40;
+            case 3:
+                return 30;
+            default:
+                return 20;
+        }
+    }
+
+    /**
+     * Sets how many times a second pending changes are published.  Half of
+     * each frame may be spent publishing, the rest is left for painting and
+     * user input.
+     *
+     * @param framesPerSecond frames per second, limited to 1-120
+     */
+    public void setFramesPerSecond(int framesPerSecond) {
+        int fps = Math.max(1, Math.min(120, framesPerSecond));
+        int delay = Math.max(1, 1000 / fps);
+        frameBudgetNanos = delay * 1_000_000L / 2;
+        timer.setDelay(delay);
+        timer.setInitialDelay(delay);
+        logger.debug("Publishing table changes at {} frames per second", fps);
+    }
+
+    public int getFramesPerSecond() {
+        return 1000 / timer.getDelay();
+    }
+
+    /**
+     * Requests that the refreshable's pending changes are published on the
+     * next frame.  Safe to call from any thread, as often as needed.
+     */
+    public void schedule(Refreshable refreshable) {
+        if (!scheduled.add(refreshable)) {
+            return;
+        }
+        synchronized (pending) {
+            pending.addLast(refreshable);
+            if (!timer.isRunning()) {
+                timer.start();
+            }
+        }
+    }
+
+    private void publishFrame() {
+        long start = System.nanoTime();
+        long budget = frameBudgetNanos;
+        while (true) {
+            Refreshable next;
+            synchronized (pending) {
+                next = pending.pollFirst();
+                if (next == null) {
+                    // nothing left - stop ticking until something is scheduled again
+                    timer.stop();
+                    return;
+                }
+            }
+            // clear the flag first so changes made while publishing schedule another frame
+            scheduled.remove(next);
+            try {
+                next.publishPendingChanges();
+            } catch (RuntimeException e) {
+                logger.error("Failed to publish table changes", e);
+            }
+            if (System.nanoTime() - start > budget) {
+                // out of time, the rest of the queue waits for the next frame
+                return;
+            }
+        }
+    }
+}
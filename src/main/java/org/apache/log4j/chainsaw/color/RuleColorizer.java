@@ -22,10 +22,12 @@ import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.log4j.chainsaw.ChainsawConstants;
+import org.apache.log4j.chainsaw.LoggingEventWrapper;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.rule.ColorRule;
 import org.apache.log4j.rule.ExpressionRule;
 import org.apache.log4j.rule.Rule;
+import org.apache.log4j.rule.RuleOptimizer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -40,6 +42,8 @@ public class RuleColorizer implements Colorizer {
     public static final String PROPERTY_CHANGED_COLORRULE = "colorrule";
 
     private final List<ColorRule> rules;
+    // the rules compiled for evaluation, replaced whenever they change
+    private volatile ColorTable colorTable;
     private final PropertyChangeSupport colorChangeSupport = new PropertyChangeSupport(this);
 
     private Rule findRule;
@@ -71,6 +75,7 @@ public class RuleColorizer implements Colorizer {
 
     public RuleColorizer() {
         this.rules = defaultRules();
+        this.colorTable = new ColorTable(rules);
     }
 
     public void setLoggerRule(Rule loggerRule) {
@@ -92,8 +97,11 @@ public class RuleColorizer implements Colorizer {
     }
 
     public void setRules(List<ColorRule> rules) {
+        // copied first, the new rules may be this colorizer's own list
+        List<ColorRule> newRules = new ArrayList<>(rules);
         this.rules.clear();
-        this.rules.addAll(rules);
+        this.rules.addAll(newRules);
+        colorTable = new ColorTable(this.rules);
         colorChangeSupport.firePropertyChange(PROPERTY_CHANGED_COLORRULE, false, true);
     }
 
@@ -103,6 +111,7 @@ public class RuleColorizer implements Colorizer {
 
     public void addRule(ColorRule rule) {
         rules.add(rule);
+        colorTable = new ColorTable(rules);
 
         colorChangeSupport.firePropertyChange(PROPERTY_CHANGED_COLORRULE, false, true);
     }
@@ -112,14 +121,7 @@ public class RuleColorizer implements Colorizer {
      */
     @Override
     public Color getBackgroundColor(ChainsawLoggingEvent event) {
-        for (ColorRule rule : rules) {
-
-            if ((rule.getBackgroundColor() != null) && (rule.evaluate(event, null))) {
-                return rule.getBackgroundColor();
-            }
-        }
-
-        return null;
+        return colorTable.getColor(event, true);
     }
 
     /**
@@ -127,14 +129,14 @@ public class RuleColorizer implements Colorizer {
      */
     @Override
     public Color getForegroundColor(ChainsawLoggingEvent event) {
-        for (ColorRule rule : rules) {
-
-            if ((rule.getForegroundColor() != null) && (rule.evaluate(event, null))) {
-                return rule.getForegroundColor();
-            }
-        }
+        return colorTable.getColor(event, false);
+    }
 
-        return null;
+    /**
+     * Sets the background and foreground colors of the event, evaluating the rules once for both.
+     */
+    public void updateColors(LoggingEventWrapper loggingEventWrapper) {
+        colorTable.updateColors(loggingEventWrapper);
     }
 
     public void addPropertyChangeListener(PropertyChangeListener listener) {
@@ -199,4 +201,62 @@ public class RuleColorizer implements Colorizer {
 
         return sb.toString();
     }
+
+    /**
+     * The color rules compiled into a single pass: each rule is evaluated at most once
+     * per event, and only while it can still provide a color, and subexpressions shared
+     * by several rules are evaluated once.  The result is that of evaluating the rules
+     * in order for each color, the first rule with that color and matching the event
+     * providing it.
+     */
+    private static final class ColorTable {
+        private final RuleOptimizer.SharedRules rules;
+        private final Color[] backgrounds;
+        private final Color[] foregrounds;
+
+        ColorTable(List<ColorRule> colorRules) {
+            List<Rule> ruleList = new ArrayList<>();
+            backgrounds = new Color[colorRules.size()];
+            foregrounds = new Color[colorRules.size()];
+            for (int i = 0; i < colorRules.size(); i++) {
+                ColorRule colorRule = colorRules.get(i);
+                // a color rule without a rule never matches
+                ruleList.add(colorRule.getRule() == null ? colorRule : colorRule.getRule());
+                backgrounds[i] = colorRule.getBackgroundColor();
+                foregrounds[i] = colorRule.getForegroundColor();
+            }
+            rules = RuleOptimizer.optimizeShared(ruleList);
+        }
+
+        Color getColor(ChainsawLoggingEvent event, boolean background) {
+            Color[] colors = background ? backgrounds : foregrounds;
+            rules.reset();
+            for (int i = 0; i < colors.length; i++) {
+                if (colors[i] != null && rules.evaluate(i, event)) {
+                    return colors[i];
+                }
+            }
+            return null;
+        }
+
+        void updateColors(LoggingEventWrapper loggingEventWrapper) {
+            ChainsawLoggingEvent event = loggingEventWrapper.getLoggingEvent();
+            Color background = null;
+            Color foreground = null;
+            rules.reset();
+            for (int i = 0; i < backgrounds.length && (background == null || foreground == null); i++) {
+                boolean wanted = (background == null && backgrounds[i] != null)
+                        || (foreground == null && foregrounds[i] != null);
+                if (wanted && rules.evaluate(i, event)) {
+                    if (background == null) {
+                        background = backgrounds[i];
+                    }
+                    if (foreground == null) {
+                        foreground = foregrounds[i];
+                    }
+                }
+            }
+            loggingEventWrapper.updateColorRuleColors(background, foreground);
+        }
+    }
 }
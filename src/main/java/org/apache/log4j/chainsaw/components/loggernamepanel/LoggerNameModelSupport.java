@@ -18,9 +18,10 @@ package org.apache.log4j.chainsaw.components.loggernamepanel;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.event.EventListenerList;
+import org.apache.log4j.chainsaw.helper.SwingHelper;
 
 /**
  * An implementation of LoggerNameModel which can be used as a delegate
@@ -28,7 +29,8 @@ import javax.swing.event.EventListenerList;
  * @author Paul Smith &lt;psmith@apache.org&gt;
  */
 public class LoggerNameModelSupport implements LoggerNameModel {
-    private final Set<String> loggerNameSet = new HashSet<>();
+    // logger names are added from the panel's ingestion thread
+    private final Set<String> loggerNameSet = ConcurrentHashMap.newKeySet();
     private final EventListenerList listenerList = new EventListenerList();
 
     /* (non-Javadoc)
@@ -55,9 +57,11 @@ public class LoggerNameModelSupport implements LoggerNameModel {
         loggerNameSet.clear();
         LoggerNameListener[] eventListeners = listenerList.getListeners(LoggerNameListener.class);
 
-        for (LoggerNameListener listener : eventListeners) {
-            listener.reset();
-        }
+        SwingHelper.invokeOnEDT(() -> {
+            for (LoggerNameListener listener : eventListeners) {
+                listener.reset();
+            }
+        });
     }
 
     /**
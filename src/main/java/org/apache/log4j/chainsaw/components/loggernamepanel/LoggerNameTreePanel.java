@@ -20,6 +20,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.*;
 import javax.swing.event.*;
 import javax.swing.tree.*;
@@ -38,6 +39,7 @@ import org.apache.log4j.chainsaw.icons.ChainsawIcons;
 import org.apache.log4j.chainsaw.icons.LineIconFactory;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.rule.AbstractRule;
+import org.apache.log4j.rule.CacheableRule;
 import org.apache.log4j.rule.ColorRule;
 import org.apache.log4j.rule.ExpressionRule;
 import org.apache.log4j.rule.Rule;
@@ -81,7 +83,8 @@ public final class LoggerNameTreePanel extends JPanel implements LoggerNameListe
     private final Action focusOnAction;
     private final Action clearRefineFocusAction;
     private final SmallToggleButton focusOnLoggerButton = new SmallToggleButton();
-    private final Set<String> hiddenSet = new HashSet<>();
+    // changed on the EDT, read by the color rule on the ingest thread
+    private final Set<String> hiddenSet = ConcurrentHashMap.newKeySet();
     private final Action hideAction;
     private final Action hideSubLoggersAction;
     private final JList ignoreList = new JList();
@@ -1483,15 +1486,20 @@ public final class LoggerNameTreePanel extends JPanel implements LoggerNameListe
         }
     }
 
-    class VisibilityRuleDelegate extends AbstractRule {
+    class VisibilityRuleDelegate extends AbstractRule implements CacheableRule {
+        // what the rule applies, replaced whenever it changes and read once per evaluation
+        private volatile VisibilityState state = new VisibilityState(Collections.emptyList(), null, false, null, null);
+
         @Override
         public boolean evaluate(ChainsawLoggingEvent event, Map matches) {
-            String selectedLoggerName = getCurrentlySelectedLoggerName();
-            boolean hiddenLogger = event.m_logger != null && isHiddenLogger(event.m_logger);
-            boolean hiddenExpression = (ignoreExpressionRule != null && ignoreExpressionRule.evaluate(event, null));
-            boolean alwaysDisplayExpression =
-                    (alwaysDisplayExpressionRule != null && alwaysDisplayExpressionRule.evaluate(event, null));
+            VisibilityState current = state;
+            boolean hiddenLogger = event.m_logger != null && current.isHiddenLogger(event.m_logger);
+            boolean hiddenExpression =
+                    (current.ignoreExpressionRule != null && current.ignoreExpressionRule.evaluate(event, null));
+            boolean alwaysDisplayExpression = (current.alwaysDisplayExpressionRule != null
+                    && current.alwaysDisplayExpressionRule.evaluate(event, null));
             boolean hidden = (!alwaysDisplayExpression) && (hiddenLogger || hiddenExpression);
+            String selectedLoggerName = current.selectedLoggerName;
             if (selectedLoggerName == null) {
                 // if there is no selected logger, pass if not hidden
                 return !hidden;
@@ -1499,7 +1507,7 @@ public final class LoggerNameTreePanel extends JPanel implements LoggerNameListe
 
             boolean result = (event.m_logger != null) && !hidden;
 
-            if (result && isFocusOnSelected()) {
+            if (result && current.focusOnSelected) {
                 result = (event.m_logger != null
                         && (event.m_logger.startsWith(selectedLoggerName + ".")
                                 || event.m_logger.endsWith(selectedLoggerName)));
@@ -1508,9 +1516,91 @@ public final class LoggerNameTreePanel extends JPanel implements LoggerNameListe
             return result;
         }
 
+        /**
+         * Takes a snapshot of the panel's state before telling the listeners, so the
+         * rule and its fingerprint change together and events are never evaluated
+         * against the hidden set while the EDT changes it.
+         */
         @Override
         public void firePropertyChange(String propertyName, Object oldVal, Object newVal) {
+            state = new VisibilityState(
+                    new ArrayList<>(new TreeSet<>(hiddenSet)),
+                    getCurrentlySelectedLoggerName(),
+                    focusOnAction != null && isFocusOnSelected(),
+                    ignoreExpressionRule,
+                    alwaysDisplayExpressionRule);
             super.firePropertyChange(propertyName, oldVal, newVal);
         }
+
+        /**
+         * @return the selected logger, focus, hidden loggers and expressions the rule currently applies
+         */
+        @Override
+        public String getFingerprint() {
+            return state.fingerprint;
+        }
+    }
+
+    /**
+     * The state of the panel the visibility rule applies.
+     */
+    private static final class VisibilityState {
+        private final List<String> hiddenLoggers;
+        private final String selectedLoggerName;
+        private final boolean focusOnSelected;
+        private final Rule ignoreExpressionRule;
+        private final Rule alwaysDisplayExpressionRule;
+        private final String fingerprint;
+
+        VisibilityState(
+                List<String> hiddenLoggers,
+                String selectedLoggerName,
+                boolean focusOnSelected,
+                Rule ignoreExpressionRule,
+                Rule alwaysDisplayExpressionRule) {
+            this.hiddenLoggers = hiddenLoggers;
+            this.selectedLoggerName = selectedLoggerName;
+            this.focusOnSelected = focusOnSelected;
+            this.ignoreExpressionRule = ignoreExpressionRule;
+            this.alwaysDisplayExpressionRule = alwaysDisplayExpressionRule;
+            this.fingerprint = createFingerprint();
+        }
+
+        boolean isHiddenLogger(String loggerName) {
+            for (String hiddenLoggerEntry : hiddenLoggers) {
+                if (loggerName.startsWith(hiddenLoggerEntry + ".") || loggerName.endsWith(hiddenLoggerEntry)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String createFingerprint() {
+            String ignoreFingerprint = fingerprint(ignoreExpressionRule);
+            String alwaysDisplayFingerprint = fingerprint(alwaysDisplayExpressionRule);
+            if (ignoreFingerprint == null || alwaysDisplayFingerprint == null) {
+                return null;
+            }
+            List<String> list = new ArrayList<>();
+            list.add(selectedLoggerName == null ? "-" : "+" + selectedLoggerName);
+            list.add(String.valueOf(focusOnSelected));
+            list.add(ignoreFingerprint);
+            list.add(alwaysDisplayFingerprint);
+            // sorted when the snapshot was taken
+            list.addAll(hiddenLoggers);
+            // length-prefixed, so the combination is unambiguous
+            StringBuilder fingerprint = new StringBuilder();
+            for (String part : list) {
+                fingerprint.append(part.length()).append(':').append(part);
+            }
+            return fingerprint.toString();
+        }
+
+        private static String fingerprint(Rule rule) {
+            if (rule == null) {
+                return "none";
+            }
+            return rule instanceof CacheableRule ? ((CacheableRule) rule).getFingerprint() : null;
+        }
     }
 }
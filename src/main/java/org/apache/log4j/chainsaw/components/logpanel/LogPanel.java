@@ -30,6 +30,10 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.*;
 import javax.swing.event.*;
 import javax.swing.table.TableCellEditor;
@@ -125,6 +129,7 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
     private JSortTable table = null;
     private TableColorizingRenderer renderer = null;
     private EventContainer tableModel = null;
+    private EventStore eventStore;
     private final JEditorPane detail;
     private final JSplitPane lowerPanel;
     private final DetailPaneUpdater detailPaneUpdater;
@@ -168,6 +173,14 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
     private EventTimeDeltaMatchThumbnail eventTimeDeltaMatchThumbnail;
     private ChainsawReceiver receiver;
     private Map<String, RuleColorizer> allColorizers;
+    private static final int INGEST_QUEUE_BATCHES = 64;
+    private static final long INGEST_THREAD_KEEP_ALIVE_SECONDS = 30;
+    // single thread which adds received batches to the models, keeping that work off the EDT
+    private final ThreadPoolExecutor ingestExecutor;
+    // event selected in the main table, maintained on the EDT so ingestion can restore the selection
+    private volatile LoggingEventWrapper lastSelectedEvent;
+    // set while an overflow reconfiguration is queued, so changing both settings applies them once
+    private final AtomicBoolean overflowConfigurationQueued = new AtomicBoolean();
 
     /**
      * Creates a new LogPanel object.  If a LogPanel with this identifier has
@@ -186,6 +199,7 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
             RuleColorizer globalRuleColorizer) {
 
         this.identifier = identifier;
+        this.ingestExecutor = createIngestExecutor(identifier);
         this.applicationPreferenceModel = applicationPreferenceModel;
         logPanelPreferenceModel = new LogPanelPreferenceModel(settingsManager.getSettingsForReceiverTab(identifier));
         this.statusBar = statusBar;
@@ -509,7 +523,27 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
          */
 
         int cyclicBufferSize = applicationPreferenceModel.getCyclicBufferSize();
-        tableModel = new ChainsawCyclicBufferTableModel(cyclicBufferSize, currentColorizer, "main");
+        // the events are held once, the main and search tables are views over them
+        eventStore = new EventStore(cyclicBufferSize, currentColorizer);
+        configureOverflow();
+        eventStore.setMessageIndexEnabled(logPanelPreferenceModel.isMessageIndexEnabled());
+        logPanelPreferenceModel.addEventListener(evt -> {
+            if (evt.getPropertyName().equals(LogPanelPreferenceModel.OVERFLOW_HOT_WINDOW_SIZE)
+                    || evt.getPropertyName().equals(LogPanelPreferenceModel.OVERFLOW_DISK_BUDGET_MB)) {
+                // moves events between the heap and disk, keep it off the EDT and in order with the batches
+                if (overflowConfigurationQueued.compareAndSet(false, true)) {
+                    ingestExecutor.execute(() -> {
+                        overflowConfigurationQueued.set(false);
+                        configureOverflow();
+                    });
+                }
+            } else if (evt.getPropertyName().equals(LogPanelPreferenceModel.MESSAGE_INDEX_ENABLED)) {
+                // indexes every event, keep it off the EDT too
+                ingestExecutor.execute(
+                        () -> eventStore.setMessageIndexEnabled(logPanelPreferenceModel.isMessageIndexEnabled()));
+            }
+        });
+        tableModel = new ChainsawCyclicBufferTableModel(eventStore, "main");
         table = new JSortTable(tableModel);
 
         markerCellEditor = new MarkerCellEditor();
@@ -517,7 +551,7 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
         table.setColumnSelectionAllowed(false);
         table.setRowSelectionAllowed(true);
 
-        searchModel = new ChainsawCyclicBufferTableModel(cyclicBufferSize, currentColorizer, "search");
+        searchModel = new ChainsawCyclicBufferTableModel(eventStore, "search");
         searchTable = new JSortTable(searchModel);
 
         searchTable.setName("search");
@@ -664,12 +698,8 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
 
         currentColorizer.addPropertyChangeListener("colorrule", new PropertyChangeListener() {
             public void propertyChange(PropertyChangeEvent evt) {
-                for (Object o : tableModel.getAllEvents()) {
-                    LoggingEventWrapper loggingEventWrapper = (LoggingEventWrapper) o;
-                    loggingEventWrapper.updateColorRuleColors(
-                            currentColorizer.getBackgroundColor(loggingEventWrapper.getLoggingEvent()),
-                            currentColorizer.getForegroundColor(loggingEventWrapper.getLoggingEvent()));
-                }
+                // recolored off the EDT, then repainted
+                eventStore.updateColors().thenRun(() -> SwingUtilities.invokeLater(this::colorsUpdated));
                 //          no need to update searchmodel events since tablemodel and searchmodel share all events, and
                 // color rules aren't different between the two
                 //          if that changes, un-do the color syncing in loggingeventwrapper & re-enable this code
@@ -679,10 +709,14 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
                 //
                 // loggingEventWrapper.updateColorRuleColors(colorizer.getBackgroundColor(loggingEventWrapper.getLoggingEvent()), colorizer.getForegroundColor(loggingEventWrapper.getLoggingEvent()));
                 //           }
+            }
+
+            private void colorsUpdated() {
                 colorizedEventAndSearchMatchThumbnail.configureColors();
                 lowerPanel.revalidate();
                 lowerPanel.repaint();
 
+                table.repaint();
                 searchTable.revalidate();
                 searchTable.repaint();
             }
@@ -733,6 +767,13 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
         table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         searchTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
+        table.getSelectionModel().addListSelectionListener(evt -> {
+            if (!evt.getValueIsAdjusting()) {
+                int selectedRow = table.getSelectedRow();
+                lastSelectedEvent = selectedRow < 0 ? null : tableModel.getRow(selectedRow);
+            }
+        });
+
         table.getSelectionModel().addListSelectionListener(evt -> {
             if (((evt.getFirstIndex() == evt.getLastIndex()) && (evt.getFirstIndex() > 0) && previousLastIndex != -1)
                     || (evt.getValueIsAdjusting())) {
@@ -954,6 +995,19 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
                 detailPaneUpdater.setAndUpdateSelectedRow(table.getSelectedRow());
             }
         });
+        // rows are published in frames, so keep the selection on the same event as rows arrive
+        tableModel.addTableModelListener(e -> {
+            final LoggingEventWrapper selectedEvent = lastSelectedEvent;
+            if (!isScrollToBottom() && selectedEvent != null) {
+                int newIndex = tableModel.getRowIndex(selectedEvent);
+                if (newIndex >= 0 && newIndex < table.getRowCount() && newIndex != table.getSelectedRow()) {
+                    // Don't scroll, just maintain selection...
+                    table.setRowSelectionInterval(newIndex, newIndex);
+                }
+            }
+            // always update detail pane (since we may be using a cyclic buffer which is full)
+            detailPaneUpdater.setSelectedRow(table.getSelectedRow());
+        });
         addPropertyChangeListener("detailPaneConversionPattern", detailPaneUpdater);
         addPropertyChangeListener("detailPaneDatetimeFormat", detailPaneUpdater);
 
@@ -1584,6 +1638,17 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
         logPanelPreferenceModel.setLogTreePanelVisible(isLogTreeVisible());
     }
 
+    /**
+     * Stops receiving batches and shuts down this panel's ingestion thread.
+     * Batches already queued are still added to the models.
+     */
+    public void dispose() {
+        if (receiver != null) {
+            receiver.removeEventBatchListener(this);
+        }
+        ingestExecutor.shutdown();
+    }
+
     private LoggerNameTreePanel createLoggerNameTreePanel() {
         final LoggerNameTreePanel logTreePanel;
         LogPanelLoggerTreeModel logTreeModel = new LogPanelLoggerTreeModel();
@@ -2031,6 +2096,7 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
         }
 
         currentColorizer = newRuleColorizer;
+        eventStore.setRuleColorizer(currentColorizer);
         allColorizers.put(identifier, currentColorizer);
     }
 
@@ -2204,6 +2270,12 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
         return row;
     }
 
+    private void configureOverflow() {
+        eventStore.setOverflow(
+                logPanelPreferenceModel.getOverflowHotWindowSize(),
+                logPanelPreferenceModel.getOverflowDiskBudgetMb() * 1024L * 1024L);
+    }
+
     /**
      * Toggle the LoggingEvent container from either managing a cyclic buffer of
      * events or an ArrayList of events
@@ -2256,8 +2328,8 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
                 findText.setToolTipText(
                         "Enter an expression - right click or ctrl-space for menu - press enter to add to list");
                 findRule = ExpressionRule.getRule(ruleText);
+                // the models share their events, so this updates the search table's events too
                 currentSearchMatchCount = tableModel.updateEventsWithFindRule(findRule);
-                searchModel.updateEventsWithFindRule(findRule);
                 currentColorizer.setFindRule(findRule);
                 tableRuleMediator.setFindRule(findRule);
                 searchRuleMediator.setFindRule(findRule);
@@ -2276,7 +2348,6 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
                 tableRuleMediator.setFindRule(null);
                 searchRuleMediator.setFindRule(null);
                 tableModel.updateEventsWithFindRule(null);
-                searchModel.updateEventsWithFindRule(null);
                 currentSearchMatchCount = 0;
                 statusBar.setSearchMatchCount(currentSearchMatchCount, getIdentifier());
                 // if the preference to show search results is enabled, the find rule is now null - hide search results
@@ -2571,16 +2642,19 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
      * Reset the LoggingEvent container, detail panel and status bar
      */
     private void clearModel() {
-        previousLastIndex = -1;
         tableModel.clearModel();
         searchModel.clearModel();
 
-        synchronized (detail) {
-            detailPaneUpdater.setSelectedRow(-1);
-            detail.notify();
-        }
+        // may be called from the ingestion thread when the clear table expression matches
+        SwingHelper.invokeOnEDT(() -> {
+            previousLastIndex = -1;
+            synchronized (detail) {
+                detailPaneUpdater.setSelectedRow(-1);
+                detail.notify();
+            }
 
-        statusBar.setNothingSelected();
+            statusBar.setNothingSelected();
+        });
     }
 
     public void findNextColorizedEvent() {
@@ -2863,92 +2937,114 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
         receiver.addChainsawEventBatchListener(this);
     }
 
+    /**
+     * Hands the batch to this panel's ingestion thread, so wrapping, rule
+     * evaluation, colorizing and buffer insertion happen off the EDT.
+     */
     public void receiveChainsawEventBatch(List<ChainsawLoggingEvent> events) {
-        SwingHelper.invokeOnEDT(() -> {
-            /*
-             * if this panel is paused, we totally ignore events
-             */
-            if (isPaused()) {
-                return;
-            }
-            final int selectedRow = table.getSelectedRow();
-            final int startingRow = table.getRowCount();
-            final LoggingEventWrapper selectedEvent;
-            if (selectedRow >= 0) {
-                selectedEvent = tableModel.getRow(selectedRow);
-            } else {
-                selectedEvent = null;
-            }
+        ingestExecutor.execute(() -> ingestEvents(events));
+    }
 
-            final int startingSearchRow = searchTable.getRowCount();
+    /**
+     * Adds a batch of events to the models.  Runs on the ingestion thread; the
+     * models publish their table notifications on the EDT at the next frame of
+     * the TableRefreshScheduler.
+     *
+     * @param events
+     */
+    private void ingestEvents(List<ChainsawLoggingEvent> events) {
+        /*
+         * if this panel is paused, we totally ignore events
+         */
+        if (isPaused()) {
+            return;
+        }
+        final int startingRow = tableModel.getRowCount();
+        final int startingSearchRow = searchModel.getRowCount();
 
-            boolean rowAdded = false;
-            boolean searchRowAdded = false;
+        boolean rowAdded = false;
+        boolean searchRowAdded = false;
 
-            int addedRowCount = 0;
-            int searchAddedRowCount = 0;
+        int addedRowCount = 0;
+        int searchAddedRowCount = 0;
 
-            for (ChainsawLoggingEvent event1 : events) {
-                // create two separate loggingEventWrappers (main table and search table), as they have different info
-                // on display state
-                LoggingEventWrapper loggingEventWrapper1 = new LoggingEventWrapper(event1);
-                // if the clearTableExpressionRule is not null, evaluate & clear the table if it matches
-                if (clearTableExpressionRule != null && clearTableExpressionRule.evaluate(event1, null)) {
-                    logger.info("clear table expression matched - clearing table - matching event msg - "
-                            + event1.m_message);
-                    clearEvents();
-                }
+        List<LoggingEventWrapper> wrappers = new ArrayList<>(events.size());
+        for (ChainsawLoggingEvent event1 : events) {
+            // if the clearTableExpressionRule is not null, evaluate & clear the table if it matches
+            if (clearTableExpressionRule != null && clearTableExpressionRule.evaluate(event1, null)) {
+                logger.info(
+                        "clear table expression matched - clearing table - matching event msg - " + event1.m_message);
+                clearEvents();
+                // the events before this one in the batch would have been cleared too
+                wrappers.clear();
+            }
 
-                updateOtherModels(event1);
-                boolean isCurrentRowAdded = tableModel.isAddRow(loggingEventWrapper1);
-                if (isCurrentRowAdded) {
-                    addedRowCount++;
-                }
-                rowAdded = rowAdded || isCurrentRowAdded;
+            updateOtherModels(event1);
+            // a single wrapper is shared by the main and search tables, which keep their display state themselves
+            wrappers.add(new LoggingEventWrapper(event1));
+        }
+        eventStore.addAll(wrappers);
 
-                // create a new loggingEventWrapper via copy constructor to ensure same IDs
-                LoggingEventWrapper loggingEventWrapper2 = new LoggingEventWrapper(loggingEventWrapper1);
-                boolean isSearchCurrentRowAdded = searchModel.isAddRow(loggingEventWrapper2);
-                if (isSearchCurrentRowAdded) {
-                    searchAddedRowCount++;
-                }
-                searchRowAdded = searchRowAdded || isSearchCurrentRowAdded;
-            }
-            // fire after adding all events
-            if (rowAdded) {
-                tableModel.fireTableEvent(startingRow, startingRow + addedRowCount, addedRowCount);
-            }
-            if (searchRowAdded) {
-                searchModel.fireTableEvent(
-                        startingSearchRow, startingSearchRow + searchAddedRowCount, searchAddedRowCount);
+        for (LoggingEventWrapper loggingEventWrapper : wrappers) {
+            boolean isCurrentRowAdded = tableModel.isAddRow(loggingEventWrapper);
+            if (isCurrentRowAdded) {
+                addedRowCount++;
             }
+            rowAdded = rowAdded || isCurrentRowAdded;
 
-            // tell the model to notify the count listeners
-            tableModel.notifyCountListeners();
+            boolean isSearchCurrentRowAdded = searchModel.isAddRow(loggingEventWrapper);
+            if (isSearchCurrentRowAdded) {
+                searchAddedRowCount++;
+            }
+            searchRowAdded = searchRowAdded || isSearchCurrentRowAdded;
+        }
+        // fire after adding all events
+        if (rowAdded) {
+            tableModel.fireTableEvent(startingRow, startingRow + addedRowCount, addedRowCount);
+        }
+        if (searchRowAdded) {
+            searchModel.fireTableEvent(startingSearchRow, startingSearchRow + searchAddedRowCount, searchAddedRowCount);
+        }
 
-            if (rowAdded) {
-                if (tableModel.isSortEnabled()) {
-                    tableModel.sort();
-                }
+        // tell the model to notify the count listeners
+        tableModel.notifyCountListeners();
 
-                // always update detail pane (since we may be using a cyclic buffer which is full)
-                detailPaneUpdater.setSelectedRow(table.getSelectedRow());
-            }
+        if (rowAdded && tableModel.isSortEnabled()) {
+            tableModel.sort();
+        }
 
-            if (searchRowAdded) {
-                if (searchModel.isSortEnabled()) {
-                    searchModel.sort();
-                }
-            }
+        if (searchRowAdded && searchModel.isSortEnabled()) {
+            searchModel.sort();
+        }
+    }
 
-            if (!isScrollToBottom() && selectedEvent != null) {
-                final int newIndex = tableModel.getRowIndex(selectedEvent);
-                if (newIndex >= 0) {
-                    // Don't scroll, just maintain selection...
-                    table.setRowSelectionInterval(newIndex, newIndex);
-                }
-            }
-        });
+    private static ThreadPoolExecutor createIngestExecutor(final String identifier) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1,
+                1,
+                INGEST_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(INGEST_QUEUE_BATCHES),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Chainsaw-Ingest-" + identifier);
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        // the panel has been disposed, nothing will take the batch
+                        return;
+                    }
+                    // the panel is falling behind - make the receiver wait rather than queue without bound
+                    try {
+                        pool.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -3444,15 +3540,8 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
         }
 
         boolean primaryMatches(ThumbnailLoggingEventWrapper wrapper) {
-            String millisDelta = wrapper.loggingEventWrapper
-                    .getLoggingEvent()
-                    .getProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE);
-            if (millisDelta != null && !millisDelta.trim().isEmpty()) {
-                long millisDeltaLong = Long.parseLong(millisDelta);
-                // arbitrary
-                return millisDeltaLong >= 1000;
-            }
-            return false;
+            // arbitrary
+            return tableModel.getMillisDelta(wrapper.loggingEventWrapper) >= 1000;
         }
 
         boolean secondaryMatches(ThumbnailLoggingEventWrapper wrapper) {
@@ -3505,10 +3594,7 @@ public class LogPanel extends DockablePanel implements ChainsawEventBatchListene
                     int startX = 1;
                     int width = getWidth() - (startX * 2);
                     // max out at 50, min 2...
-                    String millisDelta = wrapper.loggingEventWrapper
-                            .getLoggingEvent()
-                            .getProperty(ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE);
-                    long millisDeltaLong = Long.parseLong(millisDelta);
+                    long millisDeltaLong = tableModel.getMillisDelta(wrapper.loggingEventWrapper);
                     long delta = Math.min(ChainsawConstants.MILLIS_DELTA_RENDERING_HEIGHT_MAX, Math.max(0, (long)
                             (millisDeltaLong * ChainsawConstants.MILLIS_DELTA_RENDERING_FACTOR)));
                     float widthMaxMillisDeltaRenderRatio =
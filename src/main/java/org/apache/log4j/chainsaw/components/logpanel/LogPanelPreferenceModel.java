@@ -51,6 +51,9 @@ public class LogPanelPreferenceModel {
     public static final String VISIBLE_ORDERED_COLUMN_NAMES = "logpanel.visibleOrderedColumnNames";
     public static final String LEVEL_ICONS_DISPLAYED = "logpanel.levelIconsDisplayed";
     public static final String HIGHLIGHT_SEARCH_MATCH_TEXT = "logpanel.highlightSearchMatchText";
+    public static final String OVERFLOW_HOT_WINDOW_SIZE = "logpanel.overflowHotWindowSize";
+    public static final String OVERFLOW_DISK_BUDGET_MB = "logpanel.overflowDiskBudgetMb";
+    public static final String MESSAGE_INDEX_ENABLED = "logpanel.messageIndexEnabled";
     private static final String LOWER_PANEL_DIVIDER_LOCATION = "logpanel.lowerPanelDividerLocation";
     private static final String LOG_TREE_DIVIDER_LOCATION = "logpanel.logTreeDividerLocation";
     private static final String CONVERSION_PATTERN = "logpanel.conversionPattern";
@@ -71,6 +74,9 @@ public class LogPanelPreferenceModel {
     private final boolean highlightSearchMatchTextDefault = true;
     private final boolean wrapMsgDefault = true;
     private final boolean levelIconsDisplayedDefault = false;
+    private final int overflowHotWindowSizeDefault = 0;
+    private final int overflowDiskBudgetMbDefault = 4096;
+    private final boolean messageIndexEnabledDefault = false;
 
     private static final int lowerPanelDividerLocationDefault = 700;
     private static final int logTreeDividerLocationDefault = 230;
@@ -115,6 +121,43 @@ public class LogPanelPreferenceModel {
         return tabConfig.getBoolean("cyclic", false);
     }
 
+    /**
+     * Returns how many of the newest events of a cyclic buffer are kept on the heap; older
+     * events are moved to disk.
+     *
+     * @return hot window size, or zero to keep every event on the heap
+     */
+    public int getOverflowHotWindowSize() {
+        return tabConfig.getInt(OVERFLOW_HOT_WINDOW_SIZE, overflowHotWindowSizeDefault);
+    }
+
+    public void setOverflowHotWindowSize(int overflowHotWindowSize) {
+        tabConfig.setProperty(OVERFLOW_HOT_WINDOW_SIZE, overflowHotWindowSize);
+    }
+
+    /**
+     * @return the most disk space, in megabytes, the events moved off the heap may use
+     */
+    public int getOverflowDiskBudgetMb() {
+        return tabConfig.getInt(OVERFLOW_DISK_BUDGET_MB, overflowDiskBudgetMbDefault);
+    }
+
+    public void setOverflowDiskBudgetMb(int overflowDiskBudgetMb) {
+        tabConfig.setProperty(OVERFLOW_DISK_BUDGET_MB, overflowDiskBudgetMb);
+    }
+
+    /**
+     * @return whether the words of the event messages are indexed, to speed up finding
+     * and filtering on the message at the cost of memory
+     */
+    public boolean isMessageIndexEnabled() {
+        return tabConfig.getBoolean(MESSAGE_INDEX_ENABLED, messageIndexEnabledDefault);
+    }
+
+    public void setMessageIndexEnabled(boolean messageIndexEnabled) {
+        tabConfig.setProperty(MESSAGE_INDEX_ENABLED, messageIndexEnabled);
+    }
+
     /**
      * Returns an <b>unmodifiable</b> list of the visible columns.
      * <p>
@@ -165,6 +208,9 @@ public class LogPanelPreferenceModel {
      */
     public void apply(LogPanelPreferenceModel model) {
         setCyclic(model.isCyclic());
+        setOverflowHotWindowSize(model.getOverflowHotWindowSize());
+        setOverflowDiskBudgetMb(model.getOverflowDiskBudgetMb());
+        setMessageIndexEnabled(model.isMessageIndexEnabled());
         setLoggerPrecision(model.getLoggerPrecision());
         setDateFormatPattern(model.getDateFormatPattern());
         setLevelIconsDisplayed(model.isLevelIconsDisplayed());
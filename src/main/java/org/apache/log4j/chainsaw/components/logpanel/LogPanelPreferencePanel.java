@@ -70,10 +70,12 @@ public class LogPanelPreferencePanel extends AbstractPreferencePanel {
         DefaultMutableTreeNode visuals = new DefaultMutableTreeNode(new VisualsPrefPanel());
         DefaultMutableTreeNode formatting = new DefaultMutableTreeNode(new FormattingPanel());
         DefaultMutableTreeNode columns = new DefaultMutableTreeNode(new ColumnSelectorPanel());
+        DefaultMutableTreeNode storage = new DefaultMutableTreeNode(new StoragePrefPanel());
 
         rootNode.add(visuals);
         rootNode.add(formatting);
         rootNode.add(columns);
+        rootNode.add(storage);
 
         return model;
     }
@@ -583,4 +585,87 @@ public class LogPanelPreferencePanel extends AbstractPreferencePanel {
             });
         }
     }
+
+    /**
+     * Configures how many events are kept on the heap and how much disk space
+     * the older events of a cyclic buffer may use.
+     */
+    private class StoragePrefPanel extends BasicPrefPanel {
+        private static final long serialVersionUID = 1L;
+
+        private final JTextField hotWindowSize = new JTextField(10);
+        private final JTextField diskBudget = new JTextField(10);
+        private final JCheckBox messageIndex = new JCheckBox("Index the words of the messages");
+
+        private StoragePrefPanel() {
+            super("Storage");
+            initPanelComponents();
+            setupListeners();
+        }
+
+        private void initPanelComponents() {
+            setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+
+            JPanel overflowPanel = new JPanel();
+            overflowPanel.setLayout(new BoxLayout(overflowPanel, BoxLayout.Y_AXIS));
+            overflowPanel.setBorder(
+                    BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Cyclic buffer overflow"));
+            overflowPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            overflowPanel.add(new JLabel("Number of newest events kept in memory (or 0 to keep every event)"));
+            overflowPanel.add(Box.createVerticalStrut(5));
+            hotWindowSize.setMaximumSize(hotWindowSize.getPreferredSize());
+            hotWindowSize.setAlignmentX(Component.LEFT_ALIGNMENT);
+            overflowPanel.add(hotWindowSize);
+            overflowPanel.add(Box.createVerticalStrut(5));
+
+            overflowPanel.add(new JLabel("Disk space for older events, in megabytes"));
+            overflowPanel.add(Box.createVerticalStrut(5));
+            diskBudget.setMaximumSize(diskBudget.getPreferredSize());
+            diskBudget.setAlignmentX(Component.LEFT_ALIGNMENT);
+            overflowPanel.add(diskBudget);
+
+            add(overflowPanel);
+
+            JPanel indexPanel = new JPanel();
+            indexPanel.setLayout(new BoxLayout(indexPanel, BoxLayout.Y_AXIS));
+            indexPanel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), "Message index"));
+            indexPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+            indexPanel.add(new JLabel("Speeds up finding and filtering on the message, using more memory"));
+            indexPanel.add(Box.createVerticalStrut(5));
+            indexPanel.add(messageIndex);
+
+            add(indexPanel);
+            reset();
+        }
+
+        /*
+         * Restore text fields to current model values
+         */
+        private void reset() {
+            hotWindowSize.setText(String.valueOf(logPanelPreferenceModel.getOverflowHotWindowSize()));
+            diskBudget.setText(String.valueOf(logPanelPreferenceModel.getOverflowDiskBudgetMb()));
+            messageIndex.setSelected(logPanelPreferenceModel.isMessageIndexEnabled());
+        }
+
+        /*
+         * Commit text fields to model
+         */
+        private void commit() {
+            logPanelPreferenceModel.setMessageIndexEnabled(messageIndex.isSelected());
+            try {
+                logPanelPreferenceModel.setOverflowHotWindowSize(
+                        Math.max(0, Integer.parseInt(hotWindowSize.getText().trim())));
+                logPanelPreferenceModel.setOverflowDiskBudgetMb(
+                        Math.max(1, Integer.parseInt(diskBudget.getText().trim())));
+            } catch (NumberFormatException e) {
+                reset();
+            }
+        }
+
+        private void setupListeners() {
+            getOkButton().addActionListener(e -> commit());
+            getCancelButton().addActionListener(e -> reset());
+        }
+    }
 }
@@ -21,6 +21,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import javax.swing.*;
+import org.apache.log4j.chainsaw.helper.SwingHelper;
+import org.apache.log4j.chainsaw.logevents.Level;
 
 /**
  * A Container class used to hold unique LoggingEvent values
@@ -33,20 +35,21 @@ public class EventTypeEntryContainer {
     private final Set<String> methods = new HashSet<>();
     private final Set<String> classes = new HashSet<>();
     private final Set<String> ndcs = new HashSet<>();
-    private final Set Levels = new HashSet();
+    private final Set<Level> levels = new HashSet<>();
     private final Set<String> loggers = new HashSet<>();
     private final Set<String> threads = new HashSet<>();
     private final Set<String> fileNames = new HashSet<>();
+    private final Set<String> propertyKeys = new HashSet<>();
     private final DefaultListModel<String> columnNameListModel = new DefaultListModel<>();
-    private final DefaultListModel methodListModel = new DefaultListModel();
-    private final DefaultListModel classesListModel = new DefaultListModel();
-    private final DefaultListModel propListModel = new DefaultListModel();
-    private final DefaultListModel ndcListModel = new DefaultListModel();
-    private final DefaultListModel levelListModel = new DefaultListModel();
-    private final DefaultListModel loggerListModel = new DefaultListModel();
-    private final DefaultListModel threadListModel = new DefaultListModel();
-    private final DefaultListModel fileNameListModel = new DefaultListModel();
-    private final Map<String, DefaultListModel> modelMap = new HashMap<>();
+    private final DefaultListModel<String> methodListModel = new DefaultListModel<>();
+    private final DefaultListModel<String> classesListModel = new DefaultListModel<>();
+    private final DefaultListModel<String> propListModel = new DefaultListModel<>();
+    private final DefaultListModel<String> ndcListModel = new DefaultListModel<>();
+    private final DefaultListModel<Level> levelListModel = new DefaultListModel<>();
+    private final DefaultListModel<String> loggerListModel = new DefaultListModel<>();
+    private final DefaultListModel<String> threadListModel = new DefaultListModel<>();
+    private final DefaultListModel<String> fileNameListModel = new DefaultListModel<>();
+    private final Map<String, DefaultListModel<?>> modelMap = new HashMap<>();
     private static final String LOGGER_FIELD = "LOGGER";
     private static final String LEVEL_FIELD = "LEVEL";
     private static final String CLASS_FIELD = "CLASS";
@@ -71,9 +74,9 @@ public class EventTypeEntryContainer {
         return fieldName != null && modelMap.keySet().contains(fieldName.toUpperCase());
     }
 
-    public ListModel getModel(String fieldName) {
+    public ListModel<?> getModel(String fieldName) {
         if (fieldName != null) {
-            DefaultListModel model = modelMap.get(fieldName.toUpperCase());
+            DefaultListModel<?> model = modelMap.get(fieldName.toUpperCase());
 
             if (model != null) {
                 return model;
@@ -82,63 +85,71 @@ public class EventTypeEntryContainer {
         return null;
     }
 
-    void addLevel(Object level) {
-        if (Levels.add(level)) {
-            levelListModel.addElement(level);
+    void addLevel(Level level) {
+        if (levels.add(level)) {
+            addElement(levelListModel, level);
         }
     }
 
     void addLogger(String logger) {
         if (loggers.add(logger)) {
-            loggerListModel.addElement(logger);
+            addElement(loggerListModel, logger);
         }
     }
 
     void addFileName(String filename) {
         if (fileNames.add(filename)) {
-            fileNameListModel.addElement(filename);
+            addElement(fileNameListModel, filename);
         }
     }
 
     void addThread(String thread) {
         if (threads.add(thread)) {
-            threadListModel.addElement(thread);
+            addElement(threadListModel, thread);
         }
     }
 
     void addNDC(String ndc) {
         if (ndcs.add(ndc)) {
-            ndcListModel.addElement(ndc);
+            addElement(ndcListModel, ndc);
         }
     }
 
     void addColumnName(String name) {
         if (columnNames.add(name)) {
-            columnNameListModel.addElement(name);
+            addElement(columnNameListModel, name);
         }
     }
 
     void addMethod(String method) {
         if (methods.add(method)) {
-            methodListModel.addElement(method);
+            addElement(methodListModel, method);
         }
     }
 
     void addClass(String className) {
         if (classes.add(className)) {
-            classesListModel.addElement(className);
+            addElement(classesListModel, className);
         }
     }
 
-    void addProperties(Map properties) {
+    void addProperties(Map<String, String> properties) {
         if (properties == null) {
             return;
         }
-        for (Object o : properties.entrySet()) {
-            Map.Entry entry = (Map.Entry) o;
-            if (!(propListModel.contains(entry.getKey()))) {
-                propListModel.addElement(entry.getKey());
+        for (String key : properties.keySet()) {
+            if (propertyKeys.add(key)) {
+                addElement(propListModel, key);
             }
         }
     }
+
+    /**
+     * Events are processed on the owning panel's ingestion thread, so the
+     * unique value sets are checked there and only the list model update is
+     * handed to the EDT.
+     */
+    private static <E> void addElement(DefaultListModel<E> model, E element) {
+        SwingHelper.invokeOnEDT(() -> model.addElement(element));
+    }
 }
@@ -17,9 +17,14 @@
 package org.apache.log4j.chainsaw.logevents;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import org.apache.log4j.chainsaw.ChainsawConstants;
+import org.apache.log4j.helpers.Constants;
 
 /**
  * The ChainsawLoggingEvent is a Chainsaw-specific type of logging event.  This
@@ -28,18 +33,42 @@ import java.util.Set;
  *
  * ChainsawLoggingEvents are immutable, so use the ChainsawLoggingEventBuilder
  * class to construct one.
+ *
+ * The logger name and property keys are interned in the shared StringDictionary
+ * instances; m_loggerId is the logger name's dictionary id.  Properties are held
+ * in a flat array rather than a map, and the numeric log4jid and millisdelta
+ * properties in primitive fields, although they are still read and written
+ * through the property accessors.  The numeric value of every other property is
+ * parsed once, when it is set, for the rules comparing numbers.
+ *
+ * Properties, such as markers, may be set on one thread while rules are evaluated
+ * against the event on others.  Setting or removing one replaces the arrays as a
+ * whole, so readers see either the old or the new properties.
  */
 public class ChainsawLoggingEvent {
+    /**
+     * The value of getLog4jId() and getMillisDelta() when the event has none.
+     */
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final String LOG4J_ID_KEY = Constants.LOG4J_ID_KEY;
+    private static final String MILLIS_DELTA_KEY = ChainsawConstants.MILLIS_DELTA_COL_NAME_LOWERCASE;
 
     public final Instant m_timestamp;
     public final Level m_level;
     public final String m_message;
     public final String m_threadName;
     public final String m_logger;
+    public final int m_loggerId;
     public final LocationInfo m_locationInfo;
     public final String m_ndc;
     public final Map<String, String> m_mdc;
-    private Map<String, String> m_properties;
+    // the properties, replaced rather than changed so the threads evaluating rules against
+    // the event always see a complete set; replaced while holding the event's lock
+    private volatile PropertyArrays m_properties = PropertyArrays.EMPTY;
+    // the numeric log4jid and millisdelta properties, NO_VALUE if not set
+    private volatile long m_log4jId = NO_VALUE;
+    private volatile long m_millisDelta = NO_VALUE;
 
     ChainsawLoggingEvent(ChainsawLoggingEventBuilder b) {
         m_timestamp = b.m_timestamp;
@@ -47,29 +76,269 @@ public class ChainsawLoggingEvent {
         m_message = b.m_message;
         m_threadName = b.m_threadName;
         m_logger = b.m_logger;
+        m_loggerId = StringDictionary.LOGGERS.idOf(b.m_logger);
         m_locationInfo = b.m_locationInfo;
         m_ndc = b.m_ndc;
         m_mdc = b.m_mdc;
-        m_properties = new HashMap<>();
     }
 
-    public void setProperty(String name, String value) {
-        m_properties.put(name, value);
+    public synchronized void setProperty(String name, String value) {
+        if (value != null) {
+            if (LOG4J_ID_KEY.equals(name) && isLong(value)) {
+                removeFromArray(name);
+                m_log4jId = Long.parseLong(value);
+                return;
+            }
+            if (MILLIS_DELTA_KEY.equals(name) && isLong(value)) {
+                removeFromArray(name);
+                m_millisDelta = Long.parseLong(value);
+                return;
+            }
+        }
+        if (LOG4J_ID_KEY.equals(name)) {
+            m_log4jId = NO_VALUE;
+        } else if (MILLIS_DELTA_KEY.equals(name)) {
+            m_millisDelta = NO_VALUE;
+        }
+        PropertyArrays current = m_properties;
+        int index = current.indexOf(name);
+        String[] keysAndValues;
+        long[] numbers;
+        if (index >= 0) {
+            keysAndValues = current.keysAndValues.clone();
+            numbers = current.numbers.clone();
+        } else {
+            index = current.keysAndValues.length;
+            keysAndValues = Arrays.copyOf(current.keysAndValues, index + 2);
+            numbers = Arrays.copyOf(current.numbers, current.numbers.length + 1);
+            keysAndValues[index] = StringDictionary.KEYS.intern(name);
+        }
+        keysAndValues[index + 1] = value;
+        numbers[index / 2] = parseLong(value);
+        m_properties = new PropertyArrays(keysAndValues, numbers);
     }
 
-    public String removeProperty(String name) {
-        return m_properties.remove(name);
+    public synchronized String removeProperty(String name) {
+        if (LOG4J_ID_KEY.equals(name) && m_log4jId != NO_VALUE) {
+            String previous = Long.toString(m_log4jId);
+            m_log4jId = NO_VALUE;
+            return previous;
+        }
+        if (MILLIS_DELTA_KEY.equals(name) && m_millisDelta != NO_VALUE) {
+            String previous = Long.toString(m_millisDelta);
+            m_millisDelta = NO_VALUE;
+            return previous;
+        }
+        return removeFromArray(name);
     }
 
     public String getProperty(String name) {
-        return m_properties.get(name);
+        if (LOG4J_ID_KEY.equals(name) && m_log4jId != NO_VALUE) {
+            return Long.toString(m_log4jId);
+        }
+        if (MILLIS_DELTA_KEY.equals(name) && m_millisDelta != NO_VALUE) {
+            return Long.toString(m_millisDelta);
+        }
+        PropertyArrays current = m_properties;
+        int index = current.indexOf(name);
+        return index < 0 ? null : current.keysAndValues[index + 1];
+    }
+
+    /**
+     * @return the value of the first property whose key equals the name ignoring case,
+     * or null if there is none
+     */
+    public String getPropertyIgnoreCase(String name) {
+        if (LOG4J_ID_KEY.equalsIgnoreCase(name) && m_log4jId != NO_VALUE) {
+            return Long.toString(m_log4jId);
+        }
+        if (MILLIS_DELTA_KEY.equalsIgnoreCase(name) && m_millisDelta != NO_VALUE) {
+            return Long.toString(m_millisDelta);
+        }
+        PropertyArrays current = m_properties;
+        int index = current.indexOfIgnoreCase(name);
+        return index < 0 ? null : current.keysAndValues[index + 1];
+    }
+
+    /**
+     * The numeric value of a property, found like getProperty does or, if that finds no
+     * value, like getPropertyIgnoreCase does.
+     *
+     * @return the value of the property as a decimal number, or NO_VALUE if the event
+     * has no such property or its value isn't a number
+     */
+    public long getPropertyAsLong(String name) {
+        if (LOG4J_ID_KEY.equalsIgnoreCase(name) && m_log4jId != NO_VALUE) {
+            return m_log4jId;
+        }
+        if (MILLIS_DELTA_KEY.equalsIgnoreCase(name) && m_millisDelta != NO_VALUE) {
+            return m_millisDelta;
+        }
+        PropertyArrays current = m_properties;
+        int index = current.indexOf(name);
+        if (index < 0 || current.keysAndValues[index + 1] == null || current.keysAndValues[index + 1].isEmpty()) {
+            index = current.indexOfIgnoreCase(name);
+        }
+        return index < 0 ? NO_VALUE : current.numbers[index / 2];
+    }
+
+    /**
+     * @return the numeric log4jid property, or NO_VALUE
+     */
+    public long getLog4jId() {
+        return m_log4jId;
+    }
+
+    public synchronized void setLog4jId(long log4jId) {
+        removeFromArray(LOG4J_ID_KEY);
+        m_log4jId = log4jId;
+    }
+
+    /**
+     * @return the millisdelta property, or NO_VALUE
+     */
+    public long getMillisDelta() {
+        return m_millisDelta;
+    }
+
+    public synchronized void setMillisDelta(long millisDelta) {
+        removeFromArray(MILLIS_DELTA_KEY);
+        m_millisDelta = millisDelta;
     }
 
+    /**
+     * Passes every property to the consumer, without copying them.
+     */
+    public void forEachProperty(BiConsumer<String, String> consumer) {
+        if (m_log4jId != NO_VALUE) {
+            consumer.accept(LOG4J_ID_KEY, Long.toString(m_log4jId));
+        }
+        if (m_millisDelta != NO_VALUE) {
+            consumer.accept(MILLIS_DELTA_KEY, Long.toString(m_millisDelta));
+        }
+        String[] keysAndValues = m_properties.keysAndValues;
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            consumer.accept(keysAndValues[i], keysAndValues[i + 1]);
+        }
+    }
+
+    /**
+     * @return a copy of the property keys
+     */
     public Set<String> getPropertyKeySet() {
-        return m_properties.keySet();
+        Set<String> keys = new LinkedHashSet<>();
+        forEachProperty((key, value) -> keys.add(key));
+        return keys;
     }
 
+    /**
+     * @return a copy of the properties
+     */
     public Map<String, String> getProperties() {
-        return new HashMap<>(m_properties);
+        Map<String, String> properties = new HashMap<>();
+        forEachProperty(properties::put);
+        return properties;
+    }
+
+    /**
+     * Must hold the event's lock.
+     */
+    private String removeFromArray(String name) {
+        PropertyArrays current = m_properties;
+        int index = current.indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        String previous = current.keysAndValues[index + 1];
+        String[] keysAndValues = new String[current.keysAndValues.length - 2];
+        long[] numbers = new long[current.numbers.length - 1];
+        System.arraycopy(current.keysAndValues, 0, keysAndValues, 0, index);
+        System.arraycopy(current.keysAndValues, index + 2, keysAndValues, index, keysAndValues.length - index);
+        System.arraycopy(current.numbers, 0, numbers, 0, index / 2);
+        System.arraycopy(current.numbers, index / 2 + 1, numbers, index / 2, numbers.length - index / 2);
+        m_properties = numbers.length == 0 ? PropertyArrays.EMPTY : new PropertyArrays(keysAndValues, numbers);
+        return previous;
+    }
+
+    /**
+     * The properties of an event, never changed once published.
+     */
+    private static final class PropertyArrays {
+        static final PropertyArrays EMPTY = new PropertyArrays(new String[0], new long[0]);
+
+        // interned keys and their values, alternating
+        final String[] keysAndValues;
+        // the numeric value of each property, NO_VALUE if it isn't a number
+        final long[] numbers;
+
+        PropertyArrays(String[] keysAndValues, long[] numbers) {
+            this.keysAndValues = keysAndValues;
+            this.numbers = numbers;
+        }
+
+        int indexOf(String name) {
+            for (int i = 0; i < keysAndValues.length; i += 2) {
+                // keys are interned, so usually the same instance
+                String key = keysAndValues[i];
+                if (key == name || key.equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int indexOfIgnoreCase(String name) {
+            for (int i = 0; i < keysAndValues.length; i += 2) {
+                if (keysAndValues[i].equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a decimal number without throwing for the values which are not one.
+     */
+    private static long parseLong(String value) {
+        if (value == null) {
+            return NO_VALUE;
+        }
+        int length = value.length();
+        int start = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+        if (start == length) {
+            return NO_VALUE;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_VALUE;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // too many digits
+            return NO_VALUE;
+        }
+    }
+
+    private static boolean isLong(String value) {
+        int length = value.length();
+        if (length == 0 || length > 18) {
+            return false;
+        }
+        int start = value.charAt(0) == '-' && length > 1 ? 1 : 0;
+        // only values which print the same again, so "007" stays a string
+        if (value.charAt(start) == '0' && length > 1) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -21,7 +21,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- *
+ * Builds ChainsawLoggingEvents.  Logger names, thread names and MDC keys are
+ * interned in the shared StringDictionary instances as they are set.
  */
 public class ChainsawLoggingEventBuilder {
 
@@ -34,6 +35,8 @@ public class ChainsawLoggingEventBuilder {
     LocationInfo m_locationInfo;
     String m_ndc;
     Map<String, String> m_mdc;
+    // whether m_mdc is the caller's map, which is copied before it is changed
+    private boolean m_mdcAdopted;
 
     public ChainsawLoggingEventBuilder() {}
 
@@ -64,6 +67,7 @@ public class ChainsawLoggingEventBuilder {
         m_locationInfo = null;
         m_ndc = null;
         m_mdc = null;
+        m_mdcAdopted = false;
     }
 
     public ChainsawLoggingEventBuilder setTimestamp(Instant inTimestamp) {
@@ -87,12 +91,12 @@ public class ChainsawLoggingEventBuilder {
     }
 
     public ChainsawLoggingEventBuilder setThreadName(String threadName) {
-        m_threadName = threadName;
+        m_threadName = StringDictionary.THREADS.intern(threadName);
         return this;
     }
 
     public ChainsawLoggingEventBuilder setLogger(String logger) {
-        m_logger = logger;
+        m_logger = StringDictionary.LOGGERS.intern(logger);
         return this;
     }
 
@@ -106,19 +110,50 @@ public class ChainsawLoggingEventBuilder {
         return this;
     }
 
+    /**
+     * Sets the MDC.  When its keys are already interned in StringDictionary.KEYS,
+     * as the decoders do while they parse, the event keeps the map itself, which
+     * must not be changed afterwards.  Otherwise it is copied with interned keys.
+     */
     public ChainsawLoggingEventBuilder setMDC(Map<String, String> mdc) {
-        m_mdc = mdc;
+        if (mdc == null || hasInternedKeys(mdc)) {
+            m_mdc = mdc;
+            m_mdcAdopted = mdc != null;
+            return this;
+        }
+        m_mdc = copyMDC(mdc);
+        m_mdcAdopted = false;
         return this;
     }
 
     public ChainsawLoggingEventBuilder addMDCEntry(String key, String value) {
         if (m_mdc == null) {
             m_mdc = new HashMap<>();
+        } else if (m_mdcAdopted) {
+            m_mdc = copyMDC(m_mdc);
+            m_mdcAdopted = false;
         }
-        m_mdc.put(key, value);
+        m_mdc.put(StringDictionary.KEYS.intern(key), value);
         return this;
     }
 
+    private static boolean hasInternedKeys(Map<String, String> mdc) {
+        for (String key : mdc.keySet()) {
+            if (StringDictionary.KEYS.intern(key) != key) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, String> copyMDC(Map<String, String> mdc) {
+        Map<String, String> copy = new HashMap<>(mdc.size() * 4 / 3 + 1);
+        for (Map.Entry<String, String> entry : mdc.entrySet()) {
+            copy.put(StringDictionary.KEYS.intern(entry.getKey()), entry.getValue());
+        }
+        return copy;
+    }
+
     public ChainsawLoggingEvent create() {
         return new ChainsawLoggingEvent(this);
     }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.logevents;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded, concurrent dictionary of canonical strings.
+ * <p>
+ * Events repeat the same few thousand logger names and few dozen property keys
+ * over and over; interning them when the event is built means every event shares
+ * one instance, and equal strings compare by identity.  Each string also gets a
+ * small int id, for callers which would rather compare or index by int.
+ * <p>
+ * Once the dictionary holds <code>maxSize</code> strings new strings are returned
+ * as they are, so high cardinality values (thread names with counters, say)
+ * can't grow it without bound.
+ */
+public final class StringDictionary {
+    /**
+     * Logger names.
+     */
+    public static final StringDictionary LOGGERS = new StringDictionary(65536);
+    /**
+     * Thread names.
+     */
+    public static final StringDictionary THREADS = new StringDictionary(16384);
+    /**
+     * MDC and property keys.
+     */
+    public static final StringDictionary KEYS = new StringDictionary(4096);
+
+    /**
+     * The id of strings which aren't in the dictionary.
+     */
+    public static final int NO_ID = -1;
+
+    private static final class Entry {
+        private final String value;
+        private final int id;
+
+        private Entry(String value, int id) {
+            this.value = value;
+            this.id = id;
+        }
+    }
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // indexed by id, only grows while holding the lock
+    private volatile String[] values = new String[64];
+    private int size;
+
+    public StringDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the canonical instance of the string, or the string itself if the
+     * dictionary is full (or the string is null)
+     */
+    public String intern(String value) {
+        Entry entry = lookup(value);
+        return entry == null ? value : entry.value;
+    }
+
+    /**
+     * Interns the string if there is room.
+     *
+     * @return the id of the string, or NO_ID if it isn't in the dictionary
+     */
+    public int idOf(String value) {
+        Entry entry = lookup(value);
+        return entry == null ? NO_ID : entry.id;
+    }
+
+    /**
+     * @return the string with the id, or null if there is none
+     */
+    public String valueOf(int id) {
+        String[] current = values;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry lookup(String value) {
+        if (value == null) {
+            return null;
+        }
+        Entry entry = entries.get(value);
+        if (entry != null || entries.size() >= maxSize) {
+            return entry;
+        }
+        synchronized (this) {
+            entry = entries.get(value);
+            if (entry == null && size < maxSize) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size] = value;
+                entry = new Entry(value, size++);
+                entries.put(value, entry);
+            }
+            return entry;
+        }
+    }
+}
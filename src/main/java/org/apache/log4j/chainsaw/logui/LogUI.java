@@ -122,6 +122,14 @@ public class LogUI extends JFrame {
         }
 
         shutdownManager = new ShutdownManager(this, configuration, receivers, shutdownListenerList);
+        // the receivers have stopped by now, so the tabs' ingestion threads can go too
+        addShutdownListener(() -> {
+            for (Component comp : panelMap.values()) {
+                if (comp instanceof LogPanel) {
+                    ((LogPanel) comp).dispose();
+                }
+            }
+        });
     }
 
     /**
@@ -159,6 +167,17 @@ public class LogUI extends JFrame {
                 .put(escape, "ESCAPE");
         preferencesFrame.getRootPane().getActionMap().put("ESCAPE", closeAction);
 
+        TableRefreshScheduler.getInstance()
+                .setFramesPerSecond(TableRefreshScheduler.framesPerSecondForResponsiveness(
+                        applicationPreferenceModel.getResponsiveness()));
+        applicationPreferenceModel.addEventListener(evt -> {
+            if (ApplicationPreferenceModel.RESPONSIVENESS.equals(evt.getPropertyName())) {
+                TableRefreshScheduler.getInstance()
+                        .setFramesPerSecond(TableRefreshScheduler.framesPerSecondForResponsiveness(
+                                (Integer) evt.getPropertyValue()));
+            }
+        });
+
         logUIPanelBuilder = new LogUIPanelBuilder(
                 tabbedPane,
                 identifierPanels,
@@ -20,6 +20,9 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import org.apache.log4j.chainsaw.ChainsawEventBatchListener;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.logevents.Level;
@@ -45,14 +48,22 @@ public abstract class ChainsawReceiverSkeleton implements ChainsawReceiver {
      */
     protected Level thresholdLevel = Level.TRACE;
 
+    /**
+     * Default number of events that may wait on the work queue.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
     private List<ChainsawEventBatchListener> m_eventListeners;
     private WorkQueue m_worker;
-    private final Object mutex = new Object();
     private int m_sleepInterval = 1000;
-    private boolean m_paused = false;
+    private volatile boolean m_paused = false;
+    private volatile OverflowPolicy m_overflowPolicy = OverflowPolicy.BLOCK;
+    private volatile Level m_overflowThreshold = Level.WARN;
+    private final LongAdder m_enqueuedCount = new LongAdder();
+    private final LongAdder m_droppedCount = new LongAdder();
 
     public ChainsawReceiverSkeleton() {
-        m_eventListeners = new ArrayList<>();
+        m_eventListeners = new CopyOnWriteArrayList<>();
         m_worker = new WorkQueue();
     }
 
@@ -141,6 +152,10 @@ public abstract class ChainsawReceiverSkeleton implements ChainsawReceiver {
     /**
      * Whenever a new log event comes in, create a ChainsawLoggingEvent and call
      * this method.  If this receiver is paused, discard the event.
+     * <p>
+     * The event is placed on a bounded queue; if the queue is full, the
+     * configured {@link OverflowPolicy} decides whether the calling thread
+     * waits or an event is dropped.
      *
      * @param event
      */
@@ -149,36 +164,167 @@ public abstract class ChainsawReceiverSkeleton implements ChainsawReceiver {
         m_worker.enqueue(event);
     }
 
+    public int getQueueCapacity() {
+        return m_worker.queue.capacity();
+    }
+
+    /**
+     * Sets the maximum number of events that may be waiting to be handed to
+     * the listeners.  The value is rounded up to a power of two.  This is
+     * normally set once while the receiver is configured, before it is started.
+     * Events waiting when the capacity changes are kept, unless they no longer
+     * fit, in which case the newest are dropped.
+     *
+     * @param capacity
+     */
+    public void setQueueCapacity(int capacity) {
+        m_worker.resize(capacity);
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return m_overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy policy) {
+        m_overflowPolicy = policy == null ? OverflowPolicy.BLOCK : policy;
+    }
+
+    /**
+     * Level below which events are dropped when the overflow policy is
+     * {@link OverflowPolicy#DROP_BELOW_THRESHOLD} and the queue is filling up.
+     */
+    public Level getOverflowThreshold() {
+        return m_overflowThreshold;
+    }
+
+    public void setOverflowThreshold(Level level) {
+        m_overflowThreshold = level == null ? Level.WARN : level;
+    }
+
+    /**
+     * @return number of events accepted onto the work queue since this receiver was created
+     */
+    public long getEnqueuedEventCount() {
+        return m_enqueuedCount.sum();
+    }
+
+    /**
+     * @return number of events discarded by the overflow policy since this receiver was created
+     */
+    public long getDroppedEventCount() {
+        return m_droppedCount.sum();
+    }
+
+    /**
+     * @return number of events currently waiting to be handed to the listeners
+     */
+    public int getQueuedEventCount() {
+        return m_worker.queue.size();
+    }
+
     /**
      * Queue of Events are placed in here, which are picked up by an asychronous
-     * thread. The WorkerThread looks for events once a second and processes all
-     * events accumulated during that time..
+     * thread. The WorkerThread sleeps while the queue is empty and hands all
+     * events accumulated since it last ran to the listeners as one batch.
      */
     class WorkQueue {
-        final ArrayList<ChainsawLoggingEvent> queue = new ArrayList<>();
-        Thread workerThread;
+        private static final long BLOCKED_PRODUCER_PARK_NANOS = 100_000L;
+
+        volatile BoundedRingQueue<ChainsawLoggingEvent> queue;
+        final Thread workerThread;
+        private volatile boolean workerWaiting;
 
         protected WorkQueue() {
+            queue = new BoundedRingQueue<>(DEFAULT_QUEUE_CAPACITY);
             workerThread = new WorkerThread();
             workerThread.start();
         }
 
         public final void enqueue(ChainsawLoggingEvent event) {
-            synchronized (mutex) {
-                queue.add(event);
-                mutex.notify();
+            BoundedRingQueue<ChainsawLoggingEvent> current = queue;
+            switch (m_overflowPolicy) {
+                case DROP_OLDEST:
+                    while (!current.offer(event)) {
+                        if (current.poll() != null) {
+                            m_droppedCount.increment();
+                        }
+                    }
+                    break;
+                case DROP_BELOW_THRESHOLD:
+                    if (event.m_level != null
+                            && event.m_level.ordinal() < m_overflowThreshold.ordinal()
+                            && current.size() >= current.capacity() - (current.capacity() >> 2)) {
+                        m_droppedCount.increment();
+                        return;
+                    }
+                    current = offerBlocking(current, event);
+                    break;
+                case BLOCK:
+                default:
+                    current = offerBlocking(current, event);
+                    break;
+            }
+            m_enqueuedCount.increment();
+            BoundedRingQueue<ChainsawLoggingEvent> replacement;
+            while ((replacement = queue) != current) {
+                // resized meanwhile, the event may have landed after the old queue was emptied - and the
+                // queue it is moved to may itself be replaced before the move completes
+                transfer(current, replacement);
+                current = replacement;
+            }
+            if (workerWaiting) {
+                LockSupport.unpark(workerThread);
             }
         }
 
-        public final void stop() {
-            synchronized (mutex) {
-                workerThread.interrupt();
+        /**
+         * @return the queue the event was added to
+         */
+        private BoundedRingQueue<ChainsawLoggingEvent> offerBlocking(
+                BoundedRingQueue<ChainsawLoggingEvent> current, ChainsawLoggingEvent event) {
+            while (!current.offer(event)) {
+                LockSupport.unpark(workerThread);
+                LockSupport.parkNanos(this, BLOCKED_PRODUCER_PARK_NANOS);
+                // the worker no longer drains a queue which was replaced
+                current = queue;
+            }
+            return current;
+        }
+
+        /**
+         * Replaces the queue.  Producers which still add to the old queue move
+         * their event over themselves, so nothing is left behind in it.
+         */
+        final synchronized void resize(int capacity) {
+            BoundedRingQueue<ChainsawLoggingEvent> old = queue;
+            if (old.capacity() == BoundedRingQueue.capacityFor(capacity)) {
+                return;
             }
+            BoundedRingQueue<ChainsawLoggingEvent> replacement = new BoundedRingQueue<>(capacity);
+            queue = replacement;
+            transfer(old, replacement);
+            LockSupport.unpark(workerThread);
         }
 
         /**
-         * The worker thread converts each queued event to a vector and forwards the
-         * vector on to the UI.
+         * Moves the events of a replaced queue to the current one, oldest first.
+         */
+        private void transfer(BoundedRingQueue<ChainsawLoggingEvent> from, BoundedRingQueue<ChainsawLoggingEvent> to) {
+            ChainsawLoggingEvent event;
+            while ((event = from.poll()) != null) {
+                if (!to.offer(event)) {
+                    m_droppedCount.increment();
+                }
+            }
+        }
+
+        public final void stop() {
+            workerThread.interrupt();
+        }
+
+        /**
+         * The worker thread drains the queue into a list and forwards the
+         * list on to the UI.
          */
         private class WorkerThread extends Thread {
             public WorkerThread() {
@@ -188,22 +334,22 @@ public abstract class ChainsawReceiverSkeleton implements ChainsawReceiver {
             }
 
             public void run() {
-                while (true) {
-                    List<ChainsawLoggingEvent> innerList = new ArrayList<>();
-                    synchronized (mutex) {
-                        try {
-                            while ((queue.size() == 0)) {
-                                //                                setDataRate(0);
-                                mutex.wait();
-                            }
-                            if (queue.size() > 0) {
-                                innerList.addAll(queue);
-                                queue.clear();
-                            }
-                        } catch (InterruptedException ie) {
+                // park returns straight away once interrupted, so stop() must end the loop
+                while (!isInterrupted()) {
+                    BoundedRingQueue<ChainsawLoggingEvent> current = queue;
+                    if (current.isEmpty()) {
+                        workerWaiting = true;
+                        // re-check after publishing the flag so a concurrent enqueue is not missed
+                        if (current.isEmpty() && current == queue) {
+                            LockSupport.park(this);
                         }
+                        workerWaiting = false;
+                        continue;
                     }
 
+                    List<ChainsawLoggingEvent> innerList = new ArrayList<>(current.size());
+                    current.drainTo(innerList, current.capacity());
+
                     for (ChainsawEventBatchListener evtListner : m_eventListeners) {
                         evtListner.receiveChainsawEventBatch(innerList);
                     }
@@ -214,18 +360,11 @@ public abstract class ChainsawReceiverSkeleton implements ChainsawReceiver {
                                 wait(getQueueInterval());
                             }
                         } catch (InterruptedException ie) {
+                            return;
                         }
                     } else {
                         Thread.yield();
                     }
-                    //                    if (size == 0) {
-                    //                        setDataRate(0.0);
-                    //                    } else {
-                    //                        long timeEnd = System.currentTimeMillis();
-                    //                        long diffInSeconds = (timeEnd - timeStart) / 1000;
-                    //                        double rate = (((double) size) / diffInSeconds);
-                    //                        setDataRate(rate);
-                    //                    }
                 }
             }
         }
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.receiver;
+
+/**
+ * What a receiver does with a new event when its work queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * The thread appending the event waits until the worker has made room.
+     * No events are lost, but a slow UI slows the receiver down.
+     */
+    BLOCK,
+    /**
+     * The oldest queued event is discarded to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Once the queue is three quarters full, events below the overflow
+     * threshold level are discarded; events at or above it are queued,
+     * blocking if the queue is completely full.
+     */
+    DROP_BELOW_THRESHOLD
+}
@@ -22,7 +22,12 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.InputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
 import org.apache.log4j.chainsaw.receiver.ChainsawReceiverSkeleton;
 import org.apache.logging.log4j.LogManager;
@@ -31,16 +36,31 @@ import org.apache.logging.log4j.Logger;
 /**
  * The JsonReceiver class receives log events over a TCP socket(as JSON) and
  * turns those into log events.
+ * <p>
+ * Any number of clients, up to maxConnections, may be connected at once; each
+ * connection is read by its own worker thread, and they all share one parser.
+ * The connections currently open, with how much each has sent, are available
+ * from getConnections.
  *
  * @author Robert Middleton
  */
 public class JsonReceiver extends ChainsawReceiverSkeleton implements Runnable, PortBased {
     private static final Logger logger = LogManager.getLogger(JsonReceiver.class);
 
+    /**
+     * Genson instances are thread-safe, and expensive to create.
+     */
+    private static final Genson GENSON =
+            new GensonBuilder().useDateAsTimestamp(true).create();
+
     private ServerSocket serverSocket;
     private Thread rxThread;
+    private ExecutorService connectionWorkers;
+    private final List<ReceiverConnection> connections = new CopyOnWriteArrayList<>();
     public static final int DEFAULT_PORT = 4449;
+    public static final int DEFAULT_MAX_CONNECTIONS = 1024;
     protected int port = DEFAULT_PORT;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
     private boolean active = false;
 
     /**
@@ -71,6 +91,15 @@ public class JsonReceiver extends ChainsawReceiverSkeleton implements Runnable,
 
         // close the server socket
         closeServerSocket();
+
+        // and the connections, which ends their workers
+        for (ReceiverConnection connection : connections) {
+            connection.close();
+        }
+        if (connectionWorkers != null) {
+            connectionWorkers.shutdownNow();
+            connectionWorkers = null;
+        }
     }
 
     /**
@@ -107,13 +136,18 @@ public class JsonReceiver extends ChainsawReceiverSkeleton implements Runnable,
     public void run() {
         logger.debug("performing socket cleanup prior to entering loop for {}", name);
         /* Ensure we start fresh. */
-        closeServerSocket();
+        doShutdown();
         logger.debug("socket cleanup complete for {}", name);
         active = true;
 
         // start the server socket
+        ExecutorService workers;
         try {
-            serverSocket = new ServerSocket(port, 1);
+            synchronized (this) {
+                serverSocket = new ServerSocket(port);
+                workers = ReceiverConnection.newWorkerPool("JsonReceiver");
+                connectionWorkers = workers;
+            }
         } catch (Exception e) {
             logger.error("error starting JsonReceiver ({}), receiver did not start", this.getName());
             logger.error(e, e);
@@ -123,29 +157,34 @@ public class JsonReceiver extends ChainsawReceiverSkeleton implements Runnable,
             return;
         }
 
-        Socket socket = null;
-
         try {
             logger.debug("in run-about to enter while isactiveloop");
 
-            while (!rxThread.isInterrupted()) {
-                // if we have a socket, start watching it
-                if (socket != null) {
-                    logger.debug("socket not null - parsing data");
-                    parseIncomingData(socket);
-                }
-
+            while (!Thread.currentThread().isInterrupted()) {
                 logger.debug("waiting to accept socket");
 
-                // wait for a socket to open, then loop to start it
-                socket = serverSocket.accept();
-                logger.debug("accepted socket");
-            }
-
-            // socket not watched because we a no longer running
-            // so close it now.
-            if (socket != null) {
-                socket.close();
+                // wait for a socket to open, then hand it to a worker
+                Socket socket = serverSocket.accept();
+                if (connections.size() >= maxConnections) {
+                    logger.warn(
+                            "{} already has {} connections, refusing {}",
+                            getName(),
+                            connections.size(),
+                            socket.getRemoteSocketAddress());
+                    socket.close();
+                    continue;
+                }
+                logger.debug("accepted socket {}", socket.getRemoteSocketAddress());
+                ReceiverConnection connection = new ReceiverConnection(socket);
+                connections.add(connection);
+                try {
+                    workers.execute(() -> read(connection));
+                } catch (RejectedExecutionException e) {
+                    // shut down in the meantime
+                    connection.close();
+                    connections.remove(connection);
+                    break;
+                }
             }
         } catch (Exception e) {
             logger.warn("socket server disconnected, stopping");
@@ -161,52 +200,59 @@ public class JsonReceiver extends ChainsawReceiverSkeleton implements Runnable,
         port = portnum;
     }
 
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Set the number of clients which may be connected at once, further ones are
+     * disconnected straight away.
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return the connections currently open
+     */
+    public List<ReceiverConnection> getConnections() {
+        return new ArrayList<>(connections);
+    }
+
     @Override
     public boolean isActive() {
         return active;
     }
 
-    private void parseIncomingData(Socket sock) {
-        InputStream is;
-
-        try {
-            is = sock.getInputStream();
-        } catch (Exception e) {
-            logger.error("Exception opening InputStream to {}", sock);
-            logger.error(e, e);
-            return;
-        }
-
-        if (is != null) {
-            Genson genson = new GensonBuilder().useDateAsTimestamp(true).create();
-
-            try {
-                // read data from the socket.
-                // Once we have a full JSON message, parse it
-                ChainsawLoggingEventBuilder build = new ChainsawLoggingEventBuilder();
-                while (true) {
-                    logger.debug("About to deserialize values");
-                    Iterator<ECSLogEvent> iter = genson.deserializeValues(is, ECSLogEvent.class);
-                    // Because the socket can be closed, if we don't have anything parsed
-                    // assume that the socket is closed.
-                    if (!iter.hasNext()) break;
-
-                    while (iter.hasNext()) {
-                        ECSLogEvent evt = iter.next();
-                        append(evt.toChainsawLoggingEvent(build));
-                    }
+    /**
+     * Reads the events a client sends until it disconnects.
+     */
+    private void read(ReceiverConnection connection) {
+        try (InputStream is = connection.getInputStream()) {
+            // read data from the socket.
+            // Once we have a full JSON message, parse it
+            ChainsawLoggingEventBuilder build = new ChainsawLoggingEventBuilder();
+            while (true) {
+                logger.debug("About to deserialize values");
+                Iterator<ECSLogEvent> iter = GENSON.deserializeValues(is, ECSLogEvent.class);
+                // Because the socket can be closed, if we don't have anything parsed
+                // assume that the socket is closed.
+                if (!iter.hasNext()) break;
+
+                while (iter.hasNext()) {
+                    ECSLogEvent evt = iter.next();
+                    connection.eventReceived();
+                    append(evt.toChainsawLoggingEvent(build));
                 }
-            } catch (Exception e) {
-                logger.error("Unexpected exception. Closing connection.", e);
-            }
-        }
-
-        try {
-            if (is != null) {
-                is.close();
             }
         } catch (Exception e) {
-            logger.error("Could not close connection.", e);
+            if (!connection.isClosed()) {
+                logger.error("Unexpected exception. Closing connection from {}.", connection.getRemoteAddress(), e);
+            }
+        } finally {
+            connection.close();
+            connections.remove(connection);
+            logger.debug("{} closed after {} events", connection.getRemoteAddress(), connection.getEventCount());
         }
     }
 }
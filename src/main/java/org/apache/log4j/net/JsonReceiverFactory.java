@@ -38,6 +38,7 @@ public class JsonReceiverFactory implements ChainsawReceiverFactory {
             new PropertyDescriptor("name", JsonReceiver.class),
             //                new PropertyDescriptor("address", JsonReceiver.class),
             new PropertyDescriptor("port", JsonReceiver.class),
+            new PropertyDescriptor("maxConnections", JsonReceiver.class),
             //                new PropertyDescriptor("threshold", MulticastReceiver.class),
             //                new PropertyDescriptor("decoder", MulticastReceiver.class),
             //                new PropertyDescriptor("advertiseViaMulticastDNS", MulticastReceiver.class),
@@ -52,6 +53,7 @@ public class JsonReceiverFactory implements ChainsawReceiverFactory {
     @Override
     public String getReceiverDocumentation() {
         return "JSON Recevier\n" + "The JSON recevier receives events in an ECS Log Event format.\n"
-                + "This receiver listens on the specified port for incoming data.";
+                + "This receiver listens on the specified port for incoming data,\n"
+                + "from up to maxConnections clients at once.";
     }
 }
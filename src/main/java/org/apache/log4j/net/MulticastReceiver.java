@@ -18,11 +18,13 @@ package org.apache.log4j.net;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
-import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.receiver.ChainsawReceiverSkeleton;
 import org.apache.log4j.spi.Decoder;
+import org.apache.log4j.spi.StreamingDecoder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -42,7 +44,7 @@ public class MulticastReceiver extends ChainsawReceiverSkeleton implements PortB
 
     // default to log4j xml decoder
     private String decoder = "org.apache.log4j.xml.XMLDecoder";
-    private Decoder decoderImpl;
+    private StreamingDecoder decoderImpl;
     private MulticastReceiverThread receiverThread;
     private boolean active = false;
 
@@ -88,6 +90,20 @@ public class MulticastReceiver extends ChainsawReceiverSkeleton implements PortB
         return encoding;
     }
 
+    /**
+     * The charset of the Encoding option, or the system one.
+     */
+    private Charset getCharset() {
+        if (encoding != null) {
+            try {
+                return Charset.forName(encoding);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unsupported encoding {}, using the system encoding", encoding);
+            }
+        }
+        return Charset.defaultCharset();
+    }
+
     public synchronized void shutdown() {
         active = false;
         if (receiverThread != null) {
@@ -111,7 +127,7 @@ public class MulticastReceiver extends ChainsawReceiverSkeleton implements PortB
             Object o = c.newInstance();
 
             if (o instanceof Decoder) {
-                this.decoderImpl = (Decoder) o;
+                this.decoderImpl = StreamingDecoder.of((Decoder) o, getCharset());
             }
         } catch (ClassNotFoundException cnfe) {
             logger.warn("Unable to find decoder", cnfe);
@@ -208,23 +224,7 @@ public class MulticastReceiver extends ChainsawReceiverSkeleton implements PortB
                 try {
                     socket.receive(p);
 
-                    // this string constructor which accepts a charset throws an exception if it is
-                    // null
-                    String data;
-                    if (encoding == null) {
-                        data = new String(p.getData(), 0, p.getLength());
-                    } else {
-                        data = new String(p.getData(), 0, p.getLength(), encoding);
-                    }
-
-                    List<ChainsawLoggingEvent> v = decoderImpl.decodeEvents(data.trim());
-
-                    if (v != null) {
-
-                        for (ChainsawLoggingEvent aV : v) {
-                            append(aV);
-                        }
-                    }
+                    decoderImpl.decode(ByteBuffer.wrap(p.getData(), 0, p.getLength()), MulticastReceiver.this::append);
                 } catch (SocketException se) {
                     // disconnected
                 } catch (IOException ioe) {
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.net;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A client connected to a socket based receiver, with how much it has sent.
+ * Each connection is read by its own worker thread.
+ */
+public final class ReceiverConnection {
+    private static final Logger logger = LogManager.getLogger(ReceiverConnection.class);
+
+    private static final AtomicInteger WORKER_NUMBER = new AtomicInteger();
+
+    private final Socket socket;
+    private final Instant connectedAt = Instant.now();
+    private final LongAdder eventCount = new LongAdder();
+    private final LongAdder byteCount = new LongAdder();
+
+    ReceiverConnection(Socket socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Create the pool of daemon threads the connections of a receiver are read by.
+     *
+     * @param name name of the receiver type, for the thread names
+     */
+    static ExecutorService newWorkerPool(String name) {
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + "-Connection-" + WORKER_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return address and port of the client
+     */
+    public String getRemoteAddress() {
+        return String.valueOf(socket.getRemoteSocketAddress());
+    }
+
+    public Instant getConnectedAt() {
+        return connectedAt;
+    }
+
+    /**
+     * @return number of events received on this connection
+     */
+    public long getEventCount() {
+        return eventCount.sum();
+    }
+
+    /**
+     * @return number of bytes received on this connection
+     */
+    public long getByteCount() {
+        return byteCount.sum();
+    }
+
+    /**
+     * @return the input stream of the socket, counting the bytes read
+     */
+    InputStream getInputStream() throws IOException {
+        return new CountingInputStream(socket.getInputStream(), byteCount);
+    }
+
+    void eventReceived() {
+        eventCount.increment();
+    }
+
+    boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.error("Could not close connection.", e);
+        }
+    }
+
+    /**
+     * Counts the bytes read through it.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final LongAdder count;
+
+        CountingInputStream(InputStream in, LongAdder count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.add(n);
+            }
+            return n;
+        }
+    }
+}
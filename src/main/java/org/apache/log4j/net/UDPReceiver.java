@@ -17,19 +17,43 @@
 package org.apache.log4j.net;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.SocketException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.receiver.ChainsawReceiverSkeleton;
 import org.apache.log4j.spi.Decoder;
+import org.apache.log4j.spi.StreamingDecoder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * Receive LoggingEvents encoded with an XMLLayout, convert the XML data to a
  * LoggingEvent and post the LoggingEvent.
+ * <p>
+ * The receiving thread only drains the packets from the socket, into pooled
+ * direct buffers, and hands them to a few decoding threads.  The packets of a
+ * sender always go to the same decoding thread, which has a decoder of its own,
+ * so they are decoded in order and an event split between packets is still put
+ * together.  When all the buffers are waiting to be decoded, further packets are
+ * drained and dropped, rather than left to overflow the socket's receive buffer.
+ * <p>
+ * The packets received, dropped and not decoded are counted, along with the
+ * packets the system dropped because the receive buffer was full, where the
+ * system reports it.
  *
  * @author Scott Deboy &lt;sdeboy@apache.org&gt;
  */
@@ -37,17 +61,52 @@ public class UDPReceiver extends ChainsawReceiverSkeleton implements PortBased {
     private static final Logger logger = LogManager.getLogger(UDPReceiver.class);
 
     private static final int PACKET_LENGTH = 16384;
-    private UDPReceiverThread receiverThread;
+    /**
+     * Packets which may be waiting to be decoded, each in a buffer of the pool.
+     */
+    private static final int BUFFER_COUNT = 512;
+
+    private static final int DECODE_THREADS =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final AtomicInteger DECODE_THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * The Linux tables of the UDP sockets, with the packets each one dropped.
+     */
+    private static final Path[] SOCKET_TABLES = {Paths.get("/proc/net/udp"), Paths.get("/proc/net/udp6")};
+
+    public static final int DEFAULT_RECEIVE_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private Thread receiverThread;
+    private DecodeThread[] decodeThreads;
     private String encoding;
 
     // default to log4j xml decoder
     private String decoder = "org.apache.log4j.xml.XMLDecoder";
-    private Decoder decoderImpl;
-    private boolean closed = false;
+    private volatile boolean closed = false;
     private int port;
-    private DatagramSocket socket;
+    private int receiveBufferSize = DEFAULT_RECEIVE_BUFFER_SIZE;
+    private DatagramChannel channel;
+    private int boundPort;
     private boolean active = true;
 
+    /**
+     * Buffers free to receive a packet into.
+     */
+    private final BlockingQueue<ByteBuffer> buffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    /**
+     * Buffers created so far, only changed by the receiving thread.
+     */
+    private int bufferCount;
+
+    private final LongAdder packetCount = new LongAdder();
+    private final LongAdder droppedPacketCount = new LongAdder();
+    private final LongAdder decodeFailureCount = new LongAdder();
+    /**
+     * Packets the system dropped when the socket was last seen open.
+     */
+    private volatile long systemDroppedPacketCount = -1;
+
     /**
      * The MulticastDNS zone advertised by a UDPReceiver
      */
@@ -76,6 +135,20 @@ public class UDPReceiver extends ChainsawReceiverSkeleton implements PortBased {
         return encoding;
     }
 
+    /**
+     * The charset of the Encoding option, or the system one.
+     */
+    private Charset getCharset() {
+        if (encoding != null) {
+            try {
+                return Charset.forName(encoding);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unsupported encoding {}, using the system encoding", encoding);
+            }
+        }
+        return Charset.defaultCharset();
+    }
+
     public String getDecoder() {
         return decoder;
     }
@@ -84,16 +157,103 @@ public class UDPReceiver extends ChainsawReceiverSkeleton implements PortBased {
         this.decoder = decoder;
     }
 
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * Set the size of the socket's receive buffer (SO_RCVBUF) in bytes, which holds
+     * the packets arriving faster than they are drained.  The system may limit it.
+     */
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    /**
+     * @return number of packets received since this receiver was created
+     */
+    public long getPacketCount() {
+        return packetCount.sum();
+    }
+
+    /**
+     * @return number of packets received but dropped since this receiver was
+     * created, as all the buffers were waiting to be decoded
+     */
+    public long getDroppedPacketCount() {
+        return droppedPacketCount.sum();
+    }
+
+    /**
+     * @return number of packets no event was decoded from since this receiver was
+     * created, including the start of an event split between packets
+     */
+    public long getDecodeFailureCount() {
+        return decodeFailureCount.sum();
+    }
+
+    /**
+     * The packets the system dropped as the socket's receive buffer was full, as
+     * reported for the sockets bound to the port, so only an estimate if others
+     * share it.  The count is only available on Linux, and is kept from when the
+     * socket was last seen open.
+     *
+     * @return number of packets dropped by the system, or -1 if not known
+     */
+    public long getSystemDroppedPacketCount() {
+        DatagramChannel current = channel;
+        if (current != null && current.isOpen()) {
+            long dropped = readSystemDroppedPacketCount(boundPort);
+            if (dropped >= 0) {
+                systemDroppedPacketCount = dropped;
+            }
+        }
+        return systemDroppedPacketCount;
+    }
+
+    private static long readSystemDroppedPacketCount(int port) {
+        long dropped = -1;
+        for (Path table : SOCKET_TABLES) {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(table);
+            } catch (IOException | RuntimeException e) {
+                continue;
+            }
+            // sl local_address rem_address st ... drops, the addresses in hex
+            for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 13) {
+                    continue;
+                }
+                try {
+                    String local = fields[1];
+                    if (Integer.parseInt(local.substring(local.lastIndexOf(':') + 1), 16) == port) {
+                        dropped = Math.max(dropped, 0) + Long.parseLong(fields[fields.length - 1]);
+                    }
+                } catch (NumberFormatException e) {
+                    // not a socket
+                }
+            }
+        }
+        return dropped;
+    }
+
     public synchronized void shutdown() {
         if (closed) {
             return;
         }
         closed = true;
         active = false;
-        // Closing the datagram socket will unblock the UDPReceiverThread if it is
+        // Closing the channel will unblock the receiving thread if it
         // was waiting to receive data from the socket.
-        if (socket != null) {
-            socket.close();
+        if (channel != null) {
+            getSystemDroppedPacketCount();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close the socket", e);
+            }
         }
 
         try {
@@ -103,26 +263,62 @@ public class UDPReceiver extends ChainsawReceiverSkeleton implements PortBased {
         } catch (InterruptedException ie) {
             logger.error(ie, ie);
         }
+        if (decodeThreads != null) {
+            for (DecodeThread decodeThread : decodeThreads) {
+                decodeThread.interrupt();
+            }
+        }
+        logger.info(
+                "{} received {} packets, dropped {}, could not decode {}, the system dropped {}",
+                getName(),
+                getPacketCount(),
+                getDroppedPacketCount(),
+                getDecodeFailureCount(),
+                systemDroppedPacketCount);
     }
 
     @Override
     public void start() {
-        try {
-            Class c = Class.forName(decoder);
-            Object o = c.newInstance();
-
-            if (o instanceof Decoder) {
-                this.decoderImpl = (Decoder) o;
+        // each decoding thread has a decoder, which keeps the events split between packets
+        Charset charset = getCharset();
+        DecodeThread[] threads = new DecodeThread[DECODE_THREADS];
+        for (int i = 0; i < threads.length; i++) {
+            try {
+                Object o = Class.forName(decoder).getDeclaredConstructor().newInstance();
+                if (!(o instanceof Decoder)) {
+                    logger.warn("{} is not a decoder", decoder);
+                    return;
+                }
+                threads[i] = new DecodeThread(StreamingDecoder.of((Decoder) o, charset));
+            } catch (ClassNotFoundException cnfe) {
+                logger.warn("Unable to find decoder", cnfe);
+                return;
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Could not construct decoder", e);
+                return;
             }
-        } catch (ClassNotFoundException cnfe) {
-            logger.warn("Unable to find decoder", cnfe);
-        } catch (IllegalAccessException | InstantiationException iae) {
-            logger.warn("Could not construct decoder", iae);
         }
 
         try {
-            socket = new DatagramSocket(port);
-            receiverThread = new UDPReceiverThread();
+            closed = false;
+            channel = DatagramChannel.open();
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            channel.bind(new InetSocketAddress(port));
+            boundPort = ((InetSocketAddress) channel.getLocalAddress()).getPort();
+            int actualSize = channel.getOption(StandardSocketOptions.SO_RCVBUF);
+            if (actualSize < receiveBufferSize) {
+                logger.warn(
+                        "{} has a receive buffer of {} bytes, the system limits it below the {} set",
+                        getName(),
+                        actualSize,
+                        receiveBufferSize);
+            }
+            decodeThreads = threads;
+            for (DecodeThread decodeThread : threads) {
+                decodeThread.start();
+            }
+            receiverThread = new Thread(this::receive, "UDPReceiver-" + getName());
+            receiverThread.setDaemon(true);
             receiverThread.start();
             active = true;
         } catch (IOException ioe) {
@@ -135,37 +331,96 @@ public class UDPReceiver extends ChainsawReceiverSkeleton implements PortBased {
         return active;
     }
 
-    class UDPReceiverThread extends Thread {
-        public UDPReceiverThread() {
+    /**
+     * Receives the packets until the socket is closed, handing each one to the
+     * decoding thread of its sender.
+     */
+    private void receive() {
+        ByteBuffer discarded = null;
+        while (!closed) {
+            ByteBuffer buffer = buffers.poll();
+            if (buffer == null && bufferCount < BUFFER_COUNT) {
+                bufferCount++;
+                buffer = ByteBuffer.allocateDirect(PACKET_LENGTH);
+            }
+            boolean dropped = buffer == null;
+            if (dropped) {
+                // the decoders are behind, keep draining the socket regardless
+                if (discarded == null) {
+                    discarded = ByteBuffer.allocateDirect(PACKET_LENGTH);
+                }
+                buffer = discarded;
+                buffer.clear();
+            }
+            SocketAddress sender;
+            try {
+                sender = channel.receive(buffer);
+            } catch (ClosedChannelException e) {
+                // disconnected
+                break;
+            } catch (IOException ioe) {
+                logger.warn("{} could not receive a packet", getName(), ioe);
+                release(buffer, dropped);
+                continue;
+            }
+            packetCount.increment();
+            if (dropped) {
+                droppedPacketCount.increment();
+                continue;
+            }
+            buffer.flip();
+            decodeThreads[Math.floorMod(sender.hashCode(), decodeThreads.length)].packets.add(buffer);
+        }
+    }
+
+    private void release(ByteBuffer buffer, boolean discarded) {
+        if (!discarded) {
+            buffer.clear();
+            buffers.add(buffer);
+        }
+    }
+
+    /**
+     * Decodes the packets of some of the senders.
+     */
+    private class DecodeThread extends Thread implements Consumer<ChainsawLoggingEvent> {
+        private final BlockingQueue<ByteBuffer> packets = new ArrayBlockingQueue<>(BUFFER_COUNT);
+        private final StreamingDecoder decoder;
+        /**
+         * Events decoded from the current packet.
+         */
+        private int eventCount;
+
+        DecodeThread(StreamingDecoder decoder) {
+            super("UDPReceiver-Decoder-" + DECODE_THREAD_NUMBER.incrementAndGet());
+            this.decoder = decoder;
             setDaemon(true);
         }
 
         public void run() {
-            byte[] b = new byte[PACKET_LENGTH];
-            DatagramPacket p = new DatagramPacket(b, b.length);
-
-            while (!UDPReceiver.this.closed) {
-                try {
-                    socket.receive(p);
-
-                    // this string constructor which accepts a charset throws an exception if it is null
-                    String data;
-                    if (encoding == null) {
-                        data = new String(p.getData(), 0, p.getLength());
-                    } else {
-                        data = new String(p.getData(), 0, p.getLength(), encoding);
+            try {
+                while (true) {
+                    ByteBuffer packet = packets.take();
+                    eventCount = 0;
+                    try {
+                        decoder.decode(packet, this);
+                    } catch (RuntimeException e) {
+                        logger.debug("Could not decode a packet", e);
                     }
-
-                    List<ChainsawLoggingEvent> v = decoderImpl.decodeEvents(data);
-                    for (ChainsawLoggingEvent evt : v) {
-                        append(evt);
+                    if (eventCount == 0) {
+                        decodeFailureCount.increment();
                     }
-                } catch (SocketException se) {
-                    // disconnected
-                } catch (IOException ioe) {
-                    ioe.printStackTrace();
+                    release(packet, false);
                 }
+            } catch (InterruptedException e) {
+                // shut down
             }
         }
+
+        @Override
+        public void accept(ChainsawLoggingEvent event) {
+            eventCount++;
+            append(event);
+        }
     }
 }
@@ -35,6 +35,7 @@ public class UDPReceiverFactory implements ChainsawReceiverFactory {
             new PropertyDescriptor("port", UDPReceiver.class),
             new PropertyDescriptor("encoding", UDPReceiver.class),
             new PropertyDescriptor("decoder", UDPReceiver.class),
+            new PropertyDescriptor("receiveBufferSize", UDPReceiver.class),
         };
     }
 
@@ -49,6 +50,8 @@ public class UDPReceiverFactory implements ChainsawReceiverFactory {
                 + "<li>port - the port to listen on for incoming data on all interfaces</li>"
                 + "<li>encoding - the encoding of the data(e.g. UTF-8)</li>"
                 + "<li>decoder - the specific decoder to use to decode the data.  Only XML decoding is built-in</li>"
+                + "<li>receiveBufferSize - the size in bytes of the socket's receive buffer, which holds the packets"
+                + " arriving faster than they are decoded.  The system may limit it</li>"
                 + "</ul>"
                 + "</html>";
     }
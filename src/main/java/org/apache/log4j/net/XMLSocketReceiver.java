@@ -20,11 +20,15 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.InputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.log4j.chainsaw.receiver.ChainsawReceiverSkeleton;
 import org.apache.log4j.spi.Decoder;
+import org.apache.log4j.spi.StreamingDecoder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -42,6 +46,12 @@ import org.apache.logging.log4j.Logger;
  * To configure this receiver to support java.util.logging's XMLFormatter, specify a 'decoder' param
  * of org.apache.log4j.xml.UtilLoggingXMLDecoder.
  * <p>
+ * Any number of clients, up to maxConnections, may be connected at once.  Each
+ * connection is read by its own worker thread as one continuous stream of UTF-8
+ * text, decoded by its own decoder instance, since decoders keep the part of an
+ * event received so far.  The XML decoders parse the stream as it arrives, other
+ * decoders are passed the text read chunk by chunk.
+ * <p>
  * Once the event has been "posted", it will be handled by the
  * appenders currently configured in the LoggerRespository.
  *
@@ -54,10 +64,13 @@ public class XMLSocketReceiver extends ChainsawReceiverSkeleton implements Runna
     // default to log4j xml decoder
     protected String decoder = "org.apache.log4j.xml.XMLDecoder";
     private ServerSocket serverSocket;
-    private List<Socket> socketList = new ArrayList<>();
     private Thread rThread;
+    private ExecutorService connectionWorkers;
+    private final List<ReceiverConnection> connections = new CopyOnWriteArrayList<>();
     public static final int DEFAULT_PORT = 4448;
+    public static final int DEFAULT_MAX_CONNECTIONS = 1024;
     protected int port = DEFAULT_PORT;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
     private boolean active = false;
 
     /**
@@ -84,6 +97,25 @@ public class XMLSocketReceiver extends ChainsawReceiverSkeleton implements Runna
         this.port = port;
     }
 
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Set the number of clients which may be connected at once, further ones are
+     * disconnected straight away.
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return the connections currently open
+     */
+    public List<ReceiverConnection> getConnections() {
+        return new ArrayList<>(connections);
+    }
+
     public String getDecoder() {
         return decoder;
     }
@@ -135,6 +167,15 @@ public class XMLSocketReceiver extends ChainsawReceiverSkeleton implements Runna
 
         // close the server socket
         closeServerSocket();
+
+        // and the connections, which ends their workers
+        for (ReceiverConnection connection : connections) {
+            connection.close();
+        }
+        if (connectionWorkers != null) {
+            connectionWorkers.shutdownNow();
+            connectionWorkers = null;
+        }
     }
 
     /**
@@ -163,13 +204,18 @@ public class XMLSocketReceiver extends ChainsawReceiverSkeleton implements Runna
          * Ensure we start fresh.
          */
         logger.debug("performing socket cleanup prior to entering loop for {}", name);
-        closeServerSocket();
+        doShutdown();
         logger.debug("socket cleanup complete for {}", name);
         active = true;
 
         // start the server socket
+        ExecutorService workers;
         try {
-            serverSocket = new ServerSocket(port);
+            synchronized (this) {
+                serverSocket = new ServerSocket(port);
+                workers = ReceiverConnection.newWorkerPool("XMLSocketReceiver");
+                connectionWorkers = workers;
+            }
         } catch (Exception e) {
             logger.error("error starting XMLSocketReceiver (" + this.getName() + "), receiver did not start", e);
             active = false;
@@ -178,31 +224,34 @@ public class XMLSocketReceiver extends ChainsawReceiverSkeleton implements Runna
             return;
         }
 
-        Socket socket = null;
-
         try {
             logger.debug("in run-about to enter while isactiveloop");
 
-            active = true;
-
-            while (!rThread.isInterrupted()) {
-                // if we have a socket, start watching it
-                if (socket != null) {
-                    logger.debug("socket not null - parsing data");
-                    parseIncomingData(socket);
-                }
-
+            while (!Thread.currentThread().isInterrupted()) {
                 logger.debug("waiting to accept socket");
 
-                // wait for a socket to open, then loop to start it
-                socket = serverSocket.accept();
-                logger.debug("accepted socket");
-            }
-
-            // socket not watched because we a no longer running
-            // so close it now.
-            if (socket != null) {
-                socket.close();
+                // wait for a socket to open, then hand it to a worker
+                Socket socket = serverSocket.accept();
+                if (connections.size() >= maxConnections) {
+                    logger.warn(
+                            "{} already has {} connections, refusing {}",
+                            getName(),
+                            connections.size(),
+                            socket.getRemoteSocketAddress());
+                    socket.close();
+                    continue;
+                }
+                logger.debug("accepted socket {}", socket.getRemoteSocketAddress());
+                ReceiverConnection connection = new ReceiverConnection(socket);
+                connections.add(connection);
+                try {
+                    workers.execute(() -> parseIncomingData(connection));
+                } catch (RejectedExecutionException e) {
+                    // shut down in the meantime
+                    connection.close();
+                    connections.remove(connection);
+                    break;
+                }
             }
         } catch (Exception e) {
             logger.warn("socket server disconnected, stopping");
@@ -226,51 +275,34 @@ public class XMLSocketReceiver extends ChainsawReceiverSkeleton implements Runna
         return active;
     }
 
-    private void parseIncomingData(Socket sock) {
-        InputStream is;
-        Decoder d = null;
+    /**
+     * Reads the events a client sends until it disconnects.
+     */
+    private void parseIncomingData(ReceiverConnection connection) {
+        Decoder d;
 
         try {
             d = (Decoder) Class.forName(decoder).getDeclaredConstructor().newInstance();
         } catch (Exception e) {
             logger.error("Unable to load correct decoder", e);
+            connection.close();
+            connections.remove(connection);
             return;
         }
 
-        try {
-            is = sock.getInputStream();
-        } catch (Exception e) {
-            logger.error("Exception opening InputStream to " + sock, e);
-            return;
-        }
-
-        // TODO: is is never updated
-        while (is != null) {
-            try {
-                byte[] b = new byte[1024];
-                int length = is.read(b);
-                if (length == -1) {
-                    logger.info("no bytes read from stream - closing connection.");
-                    break;
-                }
-                List<ChainsawLoggingEvent> v = d.decodeEvents(new String(b, 0, length));
-
-                for (ChainsawLoggingEvent evt : v) {
-                    append(evt);
-                }
-            } catch (Exception ex) {
+        try (InputStream is = connection.getInputStream()) {
+            StreamingDecoder.of(d, StandardCharsets.UTF_8).decode(is, evt -> {
+                connection.eventReceived();
+                append(evt);
+            });
+            logger.info("no bytes read from stream - closing connection.");
+        } catch (Exception ex) {
+            if (!connection.isClosed()) {
                 logger.error(ex);
-                break;
             }
-        }
-
-        // close the socket
-        try {
-            if (is != null) {
-                is.close();
-            }
-        } catch (Exception e) {
-            logger.error("Could not close connection.", e);
+        } finally {
+            connection.close();
+            connections.remove(connection);
         }
     }
 }
@@ -20,6 +20,10 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
 
 /**
  * An abstract Rule class that provides the PropertyChange support plumbing.
@@ -71,4 +75,41 @@ public abstract class AbstractRule implements Rule, Serializable {
     public void firePropertyChange(final PropertyChangeEvent evt) {
         propertySupport.firePropertyChange(evt);
     }
+
+    /**
+     * Get the result of the rule if it doesn't depend on the event, so RuleOptimizer
+     * can fold it into a constant.
+     * @return result, or null if the result depends on the event
+     */
+    Boolean getConstantResult() {
+        return null;
+    }
+
+    /**
+     * Get the levels of the events the rule matches, if the result only depends on
+     * the level, so LevelIndex can answer it.
+     * @return levels, or null if the result depends on more than the level
+     */
+    Set<Level> getAcceptedLevels() {
+        return null;
+    }
+
+    /**
+     * Get the accessor of the field the rule reads, if it reads a single field, so
+     * RuleOptimizer can tell the properties of rules apart by their exact key.
+     * @return accessor, or null
+     */
+    LoggingEventFieldAccessor getAccessor() {
+        return null;
+    }
+
+    /**
+     * View the matches map passed to evaluate with the types Rule documents for it.
+     * @param matches matches
+     * @return field names mapped to the sets of strings they matched
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Set<String>> matchesOf(final Map<?, ?> matches) {
+        return (Map<String, Set<String>>) matches;
+    }
 }
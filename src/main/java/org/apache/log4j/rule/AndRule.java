@@ -83,6 +83,22 @@ public class AndRule extends AbstractRule {
         return new AndRule(firstParam, secondParam);
     }
 
+    /**
+     * Get first rule.
+     * @return first rule.
+     */
+    Rule getFirstRule() {
+        return firstRule;
+    }
+
+    /**
+     * Get second rule.
+     * @return second rule.
+     */
+    Rule getSecondRule() {
+        return secondRule;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -119,4 +135,11 @@ public class AndRule extends AbstractRule {
         }
         return result;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString() {
+        return "( " + firstRule + " && " + secondRule + " )";
+    }
 }
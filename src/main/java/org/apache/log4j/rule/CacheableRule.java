@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+/**
+ * A Rule whose results can be cached, because it can describe the criteria it
+ * currently applies.
+ */
+public interface CacheableRule extends Rule {
+    /**
+     * Get a fingerprint of the criteria the rule currently applies: two rules with the
+     * same fingerprint give the same result for any event.
+     * @return fingerprint, or null if the results of the rule can't be cached
+     */
+    String getFingerprint();
+}
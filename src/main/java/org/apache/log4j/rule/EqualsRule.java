@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 /**
@@ -46,6 +47,10 @@ public class EqualsRule extends AbstractRule {
      * Field.
      */
     private final String field;
+    /**
+     * Accessor of the field, resolved once.
+     */
+    private final LoggingEventFieldAccessor accessor;
 
     /**
      * Create new instance.
@@ -59,6 +64,7 @@ public class EqualsRule extends AbstractRule {
         }
 
         this.field = field;
+        this.accessor = RESOLVER.getAccessor(field);
         this.value = value;
     }
 
@@ -95,19 +101,40 @@ public class EqualsRule extends AbstractRule {
         }
     }
 
+    /**
+     * Get accessor of the field.
+     * @return accessor
+     */
+    LoggingEventFieldAccessor getAccessor() {
+        return accessor;
+    }
+
+    /**
+     * Get value.
+     * @return value
+     */
+    String getValue() {
+        return value;
+    }
+
     /** {@inheritDoc} */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-        Object p2 = RESOLVER.getValue(field, event);
+        Object p2 = accessor.getValue(event);
 
         boolean result = (p2 != null) && p2.toString().equals(value);
         if (result && matches != null) {
-            Set entries = (Set) matches.get(field.toUpperCase());
+            Set entries = (Set) matches.get(accessor.getName());
             if (entries == null) {
                 entries = new HashSet();
-                matches.put(field.toUpperCase(), entries);
+                matches.put(accessor.getName(), entries);
             }
             entries.add(value);
         }
         return result;
     }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return accessor.getName() + " == " + value;
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index of events by id, narrowing down the events a rule can match.
+ *
+ * The candidates returned for a rule always include every event the rule matches,
+ * but may include others: they still have to be evaluated.  Subclasses narrow down
+ * the rules on a single field; this class combines them through AND and OR, and
+ * several indexes of the same events can be combined the same way.
+ */
+public abstract class EventIndex {
+
+    /**
+     * Get the events a rule may match.
+     * @param rule rule
+     * @return ids of the events in ascending order, or null if the rule may match any event
+     */
+    public long[] getCandidates(final Rule rule) {
+        return getCandidates(rule, this);
+    }
+
+    /**
+     * Get the events a rule may match according to any of several indexes of the same events.
+     * @param rule rule
+     * @param indexes indexes
+     * @return ids of the events in ascending order, or null if the rule may match any event
+     */
+    public static long[] getCandidates(final Rule rule, final EventIndex... indexes) {
+        if (rule instanceof ExpressionRule) {
+            return getCandidates(((ExpressionRule) rule).getCompiledRule(), indexes);
+        }
+        if (rule instanceof RuleOptimizer.SharedRule) {
+            return getCandidates(((RuleOptimizer.SharedRule) rule).getRule(), indexes);
+        }
+        if (rule instanceof RuleOptimizer.CompositeRule) {
+            RuleOptimizer.CompositeRule composite = (RuleOptimizer.CompositeRule) rule;
+            return combine(indexes, composite.isAnd(), composite.getOperands());
+        }
+        if (rule instanceof AndRule) {
+            return combine(indexes, true, ((AndRule) rule).getFirstRule(), ((AndRule) rule).getSecondRule());
+        }
+        if (rule instanceof OrRule) {
+            return combine(indexes, false, ((OrRule) rule).getFirstRule(), ((OrRule) rule).getSecondRule());
+        }
+        if (rule instanceof RuleOptimizer.ConstantRule) {
+            return ((RuleOptimizer.ConstantRule) rule).getConstantResult() ? null : new long[0];
+        }
+        for (EventIndex index : indexes) {
+            long[] candidates = index.getFieldCandidates(rule);
+            if (candidates != null) {
+                return candidates;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the events a rule which isn't an AND or OR may match.
+     * @param rule rule
+     * @return ids of the events in ascending order, or null if the index can't narrow the rule down
+     */
+    abstract long[] getFieldCandidates(Rule rule);
+
+    /**
+     * Combine the candidates of the operands of an AND or OR.
+     */
+    private static long[] combine(final EventIndex[] indexes, final boolean and, final Rule... operands) {
+        List<long[]> lists = new ArrayList<>();
+        for (Rule operand : operands) {
+            long[] candidates = getCandidates(operand, indexes);
+            if (candidates != null) {
+                lists.add(candidates);
+            } else if (!and) {
+                // any event may match this operand, so the OR
+                return null;
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        return and ? intersection(lists) : union(lists);
+    }
+
+    static long[] intersection(final List<long[]> lists) {
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+        long[] result = lists.get(0);
+        for (int l = 1; l < lists.size() && result.length > 0; l++) {
+            long[] other = lists.get(l);
+            long[] common = new long[result.length];
+            int count = 0;
+            int j = 0;
+            for (long id : result) {
+                while (j < other.length && other[j] < id) {
+                    j++;
+                }
+                if (j < other.length && other[j] == id) {
+                    common[count++] = id;
+                }
+            }
+            result = Arrays.copyOf(common, count);
+        }
+        return result;
+    }
+
+    static long[] union(final List<long[]> lists) {
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int total = 0;
+        for (long[] list : lists) {
+            total += list.length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] list : lists) {
+            System.arraycopy(list, 0, all, offset, list.length);
+            offset += list.length;
+        }
+        Arrays.sort(all);
+        int count = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (count == 0 || all[count - 1] != all[i]) {
+                all[count++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, count);
+    }
+}
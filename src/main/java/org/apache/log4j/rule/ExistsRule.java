@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 /**
@@ -41,6 +42,10 @@ public class ExistsRule extends AbstractRule {
      * field name.
      */
     private final String field;
+    /**
+     * Accessor of the field, resolved once.
+     */
+    private final LoggingEventFieldAccessor accessor;
 
     /**
      * Create new instance.
@@ -53,6 +58,7 @@ public class ExistsRule extends AbstractRule {
         }
 
         this.field = fld;
+        this.accessor = RESOLVER.getAccessor(fld);
     }
 
     /**
@@ -79,21 +85,34 @@ public class ExistsRule extends AbstractRule {
         return new ExistsRule(stack.pop().toString());
     }
 
+    /**
+     * Get accessor of the field.
+     * @return accessor
+     */
+    LoggingEventFieldAccessor getAccessor() {
+        return accessor;
+    }
+
     /**
      * {@inheritDoc}
      */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-        Object p2 = RESOLVER.getValue(field, event);
+        Object p2 = accessor.getValue(event);
 
         boolean result = !((p2 == null) || (p2.toString().isEmpty()));
         if (result && matches != null) {
-            Set entries = (Set) matches.get(field.toUpperCase());
+            Set entries = (Set) matches.get(accessor.getName());
             if (entries == null) {
                 entries = new HashSet();
-                matches.put(field.toUpperCase(), entries);
+                matches.put(accessor.getName(), entries);
             }
             entries.add(p2);
         }
         return result;
     }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return accessor.getName() + " exists";
+    }
 }
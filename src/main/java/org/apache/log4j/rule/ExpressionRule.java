@@ -16,6 +16,7 @@
  */
 package org.apache.log4j.rule;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Stack;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
@@ -42,9 +43,15 @@ import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
  * description of supported operators.
  * See org.apache.log4j.spi.LoggingEventFieldResolver for field keywords.
  *
+ * Compiled expressions are kept in a small least-recently-used cache keyed by the
+ * expression text with its whitespace normalised, so the same expression typed
+ * again, used by another tab or restored from preferences is only parsed once.
+ * The cached rule tree is never evaluated itself: each caller gets its own
+ * optimized copy, so listeners and evaluation statistics are not shared.
+ *
  * @author Scott Deboy (sdeboy@apache.org)
  */
-public class ExpressionRule extends AbstractRule {
+public class ExpressionRule extends AbstractRule implements CacheableRule {
     /**
      * Serialization ID.
      */
@@ -57,18 +64,33 @@ public class ExpressionRule extends AbstractRule {
      * Compiler.
      */
     private static final PostFixExpressionCompiler COMPILER = new PostFixExpressionCompiler();
+    /**
+     * Maximum number of compiled expressions kept.
+     */
+    private static final int MAX_CACHED_RULES = 256;
+    /**
+     * Compiled expressions, or the IllegalArgumentException thrown while compiling,
+     * by normalised expression, least recently used first.
+     */
+    private static final LinkedHashMap<String, Object> CACHE = new LinkedHashMap<>(64, 0.75f, true);
     /**
      * Rule.
      */
     private final Rule rule;
+    /**
+     * Post-fix expression.
+     */
+    private final String postFix;
 
     /**
      * Create new instance.
      * @param r rule
+     * @param postFix post-fix expression
      */
-    private ExpressionRule(final Rule r) {
+    private ExpressionRule(final Rule r, final String postFix) {
         super();
         this.rule = r;
+        this.postFix = postFix;
     }
 
     /**
@@ -87,12 +109,92 @@ public class ExpressionRule extends AbstractRule {
      * @return rule
      */
     public static Rule getRule(final String expression, final boolean isPostFix) {
+        String key = (isPostFix ? "postfix:" : "infix:") + normalize(expression);
+        Object cached;
+        synchronized (CACHE) {
+            cached = CACHE.get(key);
+        }
+        if (cached == null) {
+            try {
+                cached = compile(expression, isPostFix);
+            } catch (IllegalArgumentException e) {
+                // partially typed expressions are usually invalid, remember that too
+                cached = e;
+            }
+            synchronized (CACHE) {
+                CACHE.put(key, cached);
+                if (CACHE.size() > MAX_CACHED_RULES) {
+                    CACHE.remove(CACHE.keySet().iterator().next());
+                }
+            }
+        }
+        if (cached instanceof IllegalArgumentException) {
+            IllegalArgumentException cause = (IllegalArgumentException) cached;
+            throw new IllegalArgumentException(cause.getMessage(), cause);
+        }
+        Compiled compiled = (Compiled) cached;
+        return new ExpressionRule(RuleOptimizer.optimize(compiled.rule), compiled.postFix);
+    }
+
+    /**
+     * Compile an expression.
+     * @param expression expression.
+     * @param isPostFix If post-fix.
+     * @return compiled expression
+     */
+    private static Compiled compile(final String expression, final boolean isPostFix) {
         String postFix = expression;
         if (!isPostFix) {
             postFix = CONVERTER.convert(expression);
         }
 
-        return new ExpressionRule(COMPILER.compileExpression(postFix));
+        return new Compiled(COMPILER.compileExpression(postFix), postFix);
+    }
+
+    /**
+     * Trim an expression and collapse runs of spaces outside quoted operands,
+     * which don't change how it is parsed.
+     * @param expression expression.
+     * @return normalised expression
+     */
+    static String normalize(final String expression) {
+        StringBuilder result = new StringBuilder(expression.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (quote == 0 && c == ' ') {
+                pendingSpace = result.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                result.append(' ');
+                pendingSpace = false;
+            }
+            if (quote == 0 && (c == '\'' || c == '"')) {
+                quote = c;
+            } else if (c == quote) {
+                quote = 0;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Get the compiled and optimized rule.
+     * @return rule
+     */
+    Rule getCompiledRule() {
+        return rule;
+    }
+
+    /**
+     * Get the post-fix expression, which identifies the rule.
+     * @return post-fix expression
+     */
+    public String getFingerprint() {
+        return postFix;
     }
 
     /**
@@ -109,6 +211,31 @@ public class ExpressionRule extends AbstractRule {
         return rule.toString();
     }
 
+    /**
+     * A compiled expression, before optimization.  The rules it is made of
+     * hold no evaluation state.
+     */
+    private static final class Compiled {
+        /**
+         * Rule.
+         */
+        private final Rule rule;
+        /**
+         * Post-fix expression.
+         */
+        private final String postFix;
+
+        /**
+         * Create new instance.
+         * @param rule rule
+         * @param postFix post-fix expression
+         */
+        Compiled(final Rule rule, final String postFix) {
+            this.rule = rule;
+            this.postFix = postFix;
+        }
+    }
+
     /**
      * Evaluate a boolean postfix expression.
      *
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+/**
+ * The inequality operators, resolved from their symbol once when a rule is created.
+ */
+enum Inequality {
+    LESS_THAN("<") {
+        boolean test(final long first, final long second) {
+            return first < second;
+        }
+    },
+    GREATER_THAN(">") {
+        boolean test(final long first, final long second) {
+            return first > second;
+        }
+    },
+    LESS_THAN_EQUALS("<=") {
+        boolean test(final long first, final long second) {
+            return first <= second;
+        }
+    },
+    GREATER_THAN_EQUALS(">=") {
+        boolean test(final long first, final long second) {
+            return first >= second;
+        }
+    };
+
+    /**
+     * Symbol.
+     */
+    private final String symbol;
+
+    /**
+     * Create new instance.
+     * @param symbol symbol
+     */
+    Inequality(final String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Get the operator with a symbol.
+     * @param symbol symbol
+     * @return operator, or null if the symbol isn't an inequality
+     */
+    static Inequality of(final String symbol) {
+        for (Inequality inequality : values()) {
+            if (inequality.symbol.equals(symbol)) {
+                return inequality;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compare two values.
+     * @param first first value
+     * @param second second value
+     * @return whether the first value is in this relation to the second
+     */
+    abstract boolean test(long first, long second);
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return symbol;
+    }
+}
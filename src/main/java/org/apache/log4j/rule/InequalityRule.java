@@ -18,9 +18,9 @@ package org.apache.log4j.rule;
 
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.Stack;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 /**
@@ -46,14 +46,22 @@ public class InequalityRule extends AbstractRule {
      * Field name.
      */
     private final String field;
+    /**
+     * Accessor of the field, resolved once.
+     */
+    private final LoggingEventFieldAccessor accessor;
     /**
      * Comparison value.
      */
     private final String value;
     /**
-     * Inequality symbol.
+     * Comparison value as a number, or NO_VALUE if it isn't one.
+     */
+    private final long numericValue;
+    /**
+     * Inequality.
      */
-    private final String inequalitySymbol;
+    private final Inequality inequality;
 
     /**
      * Create new instance.
@@ -63,14 +71,25 @@ public class InequalityRule extends AbstractRule {
      */
     private InequalityRule(final String inequalitySymbol, final String field, final String value) {
         super();
-        this.inequalitySymbol = inequalitySymbol;
+        this.inequality = Inequality.of(inequalitySymbol);
+        if (inequality == null) {
+            throw new IllegalArgumentException("Invalid inequality rule - " + inequalitySymbol + " is not supported");
+        }
         if (!RESOLVER.isField(field)) {
             throw new IllegalArgumentException(
                     "Invalid " + inequalitySymbol + " rule - " + field + " is not a supported field");
         }
 
         this.field = field;
+        this.accessor = RESOLVER.getAccessor(field);
         this.value = value;
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException nfe) {
+            number = LoggingEventFieldAccessor.NO_VALUE;
+        }
+        this.numericValue = number;
     }
 
     /**
@@ -109,42 +128,41 @@ public class InequalityRule extends AbstractRule {
         }
     }
 
+    /**
+     * Get accessor of the field.
+     * @return accessor
+     */
+    LoggingEventFieldAccessor getAccessor() {
+        return accessor;
+    }
+
     /** {@inheritDoc} */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-        long first = 0;
-        try {
-            first = new Long(RESOLVER.getValue(field, event).toString()).longValue();
-        } catch (NumberFormatException nfe) {
+        long first = accessor.getLong(event);
+        long second = numericValue;
+        if (first == LoggingEventFieldAccessor.NO_VALUE || second == LoggingEventFieldAccessor.NO_VALUE) {
             return false;
         }
 
-        long second = 0;
-
-        try {
-            second = new Long(value).longValue();
-        } catch (NumberFormatException nfe) {
-            return false;
-        }
-
-        boolean result = false;
-
-        if ("<".equals(inequalitySymbol)) {
-            result = first < second;
-        } else if (">".equals(inequalitySymbol)) {
-            result = first > second;
-        } else if ("<=".equals(inequalitySymbol)) {
-            result = first <= second;
-        } else if (">=".equals(inequalitySymbol)) {
-            result = first >= second;
-        }
+        boolean result = inequality.test(first, second);
         if (result && matches != null) {
-            Set entries = (Set) matches.get(field.toUpperCase());
-            if (entries == null) {
-                entries = new HashSet();
-                matches.put(field.toUpperCase(), entries);
-            }
-            entries.add(String.valueOf(first));
+            matchesOf(matches)
+                    .computeIfAbsent(accessor.getName(), k -> new HashSet<>())
+                    .add(String.valueOf(first));
         }
         return result;
     }
+
+    /**
+     * A value which is not a number is never less or greater than the field.
+     * @return false if the value is not a number, otherwise null
+     */
+    Boolean getConstantResult() {
+        return numericValue == LoggingEventFieldAccessor.NO_VALUE ? Boolean.FALSE : null;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return accessor.getName() + " " + inequality + " " + value;
+    }
 }
@@ -16,6 +16,7 @@
  */
 package org.apache.log4j.rule;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -107,4 +108,22 @@ public class LevelEqualsRule extends AbstractRule {
         }
         return result;
     }
+
+    /**
+     * No event has a level which isn't known.
+     * @return false if the level isn't known, otherwise null
+     */
+    Boolean getConstantResult() {
+        return level == null ? Boolean.FALSE : null;
+    }
+
+    /** {@inheritDoc} */
+    Set<Level> getAcceptedLevels() {
+        return level == null ? EnumSet.noneOf(Level.class) : EnumSet.of(level);
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "LEVEL == " + level;
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import java.util.BitSet;
+import java.util.Set;
+import org.apache.log4j.chainsaw.logevents.Level;
+
+/**
+ * A bitmap of the events at each level, answering the rules on the level alone
+ * (==, != and the inequalities on LEVEL) without evaluating them event by event.
+ *
+ * Bit i of each bitmap stands for the event with id base + i.  Events are added in
+ * the order of their ids and removed oldest first, as a cyclic buffer evicts them;
+ * removed ids are skipped straight away and the bitmaps are shifted down once as
+ * many events were removed as are left.  Events without a level are candidates
+ * for every rule on the level, which they would fail to evaluate rather than match.
+ *
+ * The index is not thread-safe, the caller synchronizes.
+ */
+public final class LevelIndex extends EventIndex {
+    /**
+     * Removed events which are left in the bitmaps before they are shifted down.
+     */
+    private static final int MIN_COMPACTION = 4096;
+    /**
+     * Index of the bitmap of the events without a level.
+     */
+    private static final int NO_LEVEL = Level.values().length;
+
+    /**
+     * The events at each level, and those without one.
+     */
+    private final BitSet[] bitmaps = new BitSet[NO_LEVEL + 1];
+    /**
+     * Id of the first bit of the bitmaps.
+     */
+    private long base;
+    /**
+     * Ids below this were removed.
+     */
+    private long firstId;
+    /**
+     * Id of the last event added.
+     */
+    private long lastId = -1;
+
+    /**
+     * Create new instance.
+     */
+    public LevelIndex() {
+        clear();
+    }
+
+    /**
+     * Index the level of an event.
+     * @param id id of the event, greater than those of the events already added
+     * @param level level, or null
+     */
+    public void add(final long id, final Level level) {
+        if (lastId < 0) {
+            base = id;
+            firstId = id;
+        }
+        lastId = id;
+        bitmaps[level == null ? NO_LEVEL : level.ordinal()].set((int) (id - base));
+    }
+
+    /**
+     * Remove the events with lower ids.
+     * @param id id of the oldest event left
+     */
+    public void removeBefore(final long id) {
+        if (id <= firstId) {
+            return;
+        }
+        firstId = id;
+        // as many removed as left, so shifting is linear in the events removed
+        if (firstId - base >= Math.max(MIN_COMPACTION, lastId - firstId)) {
+            int from = (int) (firstId - base);
+            int to = (int) Math.max(from, lastId + 1 - base);
+            for (int i = 0; i < bitmaps.length; i++) {
+                bitmaps[i] = bitmaps[i].get(from, to);
+            }
+            base = firstId;
+        }
+    }
+
+    /**
+     * Remove all events, the next may have any id.
+     */
+    public void clear() {
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = new BitSet();
+        }
+        base = 0;
+        firstId = 0;
+        lastId = -1;
+    }
+
+    /** {@inheritDoc} */
+    long[] getFieldCandidates(final Rule rule) {
+        Set<Level> levels = rule instanceof AbstractRule ? ((AbstractRule) rule).getAcceptedLevels() : null;
+        if (levels == null || levels.size() == NO_LEVEL) {
+            return null;
+        }
+        BitSet matches = (BitSet) bitmaps[NO_LEVEL].clone();
+        for (Level level : levels) {
+            matches.or(bitmaps[level.ordinal()]);
+        }
+        matches.clear(0, (int) (firstId - base));
+        return matches.stream().mapToLong(offset -> base + offset).toArray();
+    }
+}
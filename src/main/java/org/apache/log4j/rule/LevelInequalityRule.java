@@ -16,6 +16,7 @@
  */
 package org.apache.log4j.rule;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -151,6 +152,22 @@ public class LevelInequalityRule {
             }
             return result;
         }
+
+        /** {@inheritDoc} */
+        Set<Level> getAcceptedLevels() {
+            Set<Level> levels = EnumSet.noneOf(Level.class);
+            for (Level level : Level.values()) {
+                if (level.ordinal() < newLevelInt) {
+                    levels.add(level);
+                }
+            }
+            return levels;
+        }
+
+        /** {@inheritDoc} */
+        public String toString() {
+            return "LEVEL < " + Level.values()[newLevelInt];
+        }
     }
 
     /**
@@ -185,6 +202,22 @@ public class LevelInequalityRule {
             }
             return result;
         }
+
+        /** {@inheritDoc} */
+        Set<Level> getAcceptedLevels() {
+            Set<Level> levels = EnumSet.noneOf(Level.class);
+            for (Level level : Level.values()) {
+                if (level.ordinal() > newLevelInt) {
+                    levels.add(level);
+                }
+            }
+            return levels;
+        }
+
+        /** {@inheritDoc} */
+        public String toString() {
+            return "LEVEL > " + Level.values()[newLevelInt];
+        }
     }
 
     /**
@@ -220,6 +253,22 @@ public class LevelInequalityRule {
             }
             return result;
         }
+
+        /** {@inheritDoc} */
+        Set<Level> getAcceptedLevels() {
+            Set<Level> levels = EnumSet.noneOf(Level.class);
+            for (Level level : Level.values()) {
+                if (level.ordinal() >= newLevelInt) {
+                    levels.add(level);
+                }
+            }
+            return levels;
+        }
+
+        /** {@inheritDoc} */
+        public String toString() {
+            return "LEVEL >= " + Level.values()[newLevelInt];
+        }
     }
 
     /**
@@ -256,5 +305,21 @@ public class LevelInequalityRule {
 
             return result;
         }
+
+        /** {@inheritDoc} */
+        Set<Level> getAcceptedLevels() {
+            Set<Level> levels = EnumSet.noneOf(Level.class);
+            for (Level level : Level.values()) {
+                if (level.ordinal() <= newLevelInt) {
+                    levels.add(level);
+                }
+            }
+            return levels;
+        }
+
+        /** {@inheritDoc} */
+        public String toString() {
+            return "LEVEL <= " + Level.values()[newLevelInt];
+        }
     }
 }
@@ -21,10 +21,10 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 /**
@@ -46,14 +46,27 @@ public class LikeRule extends AbstractRule {
      * Pattern.
      */
     private transient Pattern pattern;
-    /**
-     * Regular expression matcher.
-     */
-    private transient Matcher matcher = null;
     /**
      * Field.
      */
     private transient String field;
+    /**
+     * Accessor of the field, resolved once.
+     */
+    private transient LoggingEventFieldAccessor accessor;
+    /**
+     * Searcher for the literal text of the pattern, if it is a literal, optionally
+     * preceded or followed by ".*".
+     */
+    private transient TextSearcher literal;
+    /**
+     * True if the pattern starts with the literal, false if it starts with ".*".
+     */
+    private transient boolean literalAtStart;
+    /**
+     * True if the pattern ends with the literal, false if it ends with ".*".
+     */
+    private transient boolean literalAtEnd;
 
     /**
      * Create new instance.
@@ -67,7 +80,58 @@ public class LikeRule extends AbstractRule {
         }
 
         this.field = field;
+        this.accessor = RESOLVER.getAccessor(field);
         this.pattern = pattern;
+        compileLiteral();
+    }
+
+    /**
+     * Replace the regular expression by a plain search if it is a literal, optionally
+     * preceded or followed by ".*" - the common 'contains' pattern.
+     */
+    private void compileLiteral() {
+        String regex = pattern.pattern();
+        literalAtStart = !regex.startsWith(".*");
+        String text = literalAtStart ? regex : regex.substring(2);
+        literalAtEnd = !text.endsWith(".*") || text.endsWith("\\.*");
+        text = literalAtEnd ? text : text.substring(0, text.length() - 2);
+        literal = null;
+        for (int i = 0; i < text.length(); i++) {
+            if ("\\^$.|?*+()[]{}".indexOf(text.charAt(i)) >= 0 || isLineTerminator(text.charAt(i))) {
+                return;
+            }
+        }
+        // the pattern is case-insensitive for US-ASCII only
+        literal = new TextSearcher(text, true);
+    }
+
+    /**
+     * Check a character for one of the line terminators '.' doesn't match.
+     */
+    private static boolean isLineTerminator(final char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Match the text against the literal pattern, the way Matcher.matches would.
+     */
+    private boolean matchesLiteral(final String text) {
+        if (literalAtStart && literalAtEnd) {
+            return text.length() == literal.length() && literal.isFoundAt(text, 0);
+        }
+        // the .* can't match line terminators, and the literal has none
+        for (int i = 0; i < text.length(); i++) {
+            if (isLineTerminator(text.charAt(i))) {
+                return false;
+            }
+        }
+        if (literalAtStart) {
+            return literal.isFoundAt(text, 0);
+        }
+        if (literalAtEnd) {
+            return literal.isFoundAt(text, text.length() - literal.length());
+        }
+        return literal.isFoundIn(text);
     }
 
     /**
@@ -100,22 +164,29 @@ public class LikeRule extends AbstractRule {
         }
     }
 
+    /**
+     * Get accessor of the field.
+     * @return accessor
+     */
+    LoggingEventFieldAccessor getAccessor() {
+        return accessor;
+    }
+
     /** {@inheritDoc} */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
         // no need to figure out what part of the string matched, just set the entire string as a match
-        Object input = RESOLVER.getValue(field, event);
+        Object input = accessor.getValue(event);
         if ((input != null) && (pattern != null)) {
-            if (matcher == null) {
-                matcher = pattern.matcher(input.toString());
-            } else {
-                matcher.reset(input.toString());
-            }
-            boolean result = matcher.matches();
+            String text = input.toString();
+            // a matcher per call, rules are evaluated from several threads at once
+            boolean result = literal != null
+                    ? matchesLiteral(text)
+                    : pattern.matcher(text).matches();
             if (result && matches != null) {
-                Set entries = (Set) matches.get(field.toUpperCase());
+                Set entries = (Set) matches.get(accessor.getName());
                 if (entries == null) {
                     entries = new HashSet();
-                    matches.put(field.toUpperCase(), entries);
+                    matches.put(accessor.getName(), entries);
                 }
                 entries.add(input);
             }
@@ -135,8 +206,10 @@ public class LikeRule extends AbstractRule {
     private void readObject(final java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
         try {
             field = (String) in.readObject();
+            accessor = RESOLVER.getAccessor(field);
             String patternString = (String) in.readObject();
             pattern = Pattern.compile(patternString, Pattern.CASE_INSENSITIVE);
+            compileLiteral();
         } catch (PatternSyntaxException e) {
             throw new IOException("Invalid LIKE rule - " + e.getMessage());
         }
@@ -153,4 +226,9 @@ public class LikeRule extends AbstractRule {
         out.writeObject(field);
         out.writeObject(pattern.pattern());
     }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return accessor.getName() + " like " + pattern.pattern();
+    }
 }
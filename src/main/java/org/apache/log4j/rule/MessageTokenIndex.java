@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.log4j.spi.LoggingEventFieldResolver;
+
+/**
+ * An inverted index of the words of event messages, narrowing down the events a
+ * rule on the message can match.
+ *
+ * Messages are split into tokens, the runs of letters and digits, which are case
+ * folded like TextSearcher does.  Each token maps to the ids of the events whose
+ * message contains it, in ascending order.  Tokens without letters aren't indexed:
+ * numbers are mostly unique, and would make up most of the tokens.  Events are added in the order of their
+ * ids and removed oldest first, as a cyclic buffer evicts them; removed ids are
+ * skipped by lookups straight away and dropped from the posting lists once as many
+ * events were removed as are left.
+ *
+ * The candidates returned for a rule always include every event the rule matches,
+ * but may include others: they still have to be evaluated.  Only partial-text
+ * matches (~=) and equality (==) on MSG narrow down the candidates, combined with
+ * AND and OR; any other rule may match any event.  A word delimited on both sides in
+ * the value is looked up directly, otherwise the tokens are scanned for those the
+ * value may start or end in.
+ *
+ * The index is not thread-safe, the caller synchronizes.
+ */
+public final class MessageTokenIndex extends EventIndex {
+    /**
+     * Removed events which are left in the posting lists before they are compacted.
+     */
+    private static final int MIN_COMPACTION = 4096;
+
+    /**
+     * The ids of the events containing each token.
+     */
+    private final HashMap<String, Postings> postings = new HashMap<>();
+    /**
+     * Ids below this were removed.
+     */
+    private long firstId;
+    /**
+     * Value of firstId when the posting lists were last compacted.
+     */
+    private long compactedId;
+    /**
+     * Id of the last event added.
+     */
+    private long lastId = -1;
+
+    /**
+     * Index the message of an event.
+     * @param id id of the event, greater than those of the events already added
+     * @param message message, or null
+     */
+    public void add(final long id, final String message) {
+        lastId = id;
+        if (message == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        boolean hasLetter = false;
+        int length = message.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? message.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(TextSearcher.fold(c, false));
+                hasLetter |= Character.isLetter(c);
+            } else if (token.length() > 0) {
+                if (hasLetter) {
+                    postings.computeIfAbsent(token.toString(), k -> new Postings())
+                            .add(id);
+                }
+                token.setLength(0);
+                hasLetter = false;
+            }
+        }
+    }
+
+    /**
+     * Remove the events with lower ids.
+     * @param id id of the oldest event left
+     */
+    public void removeBefore(final long id) {
+        if (id <= firstId) {
+            return;
+        }
+        firstId = id;
+        // as many removed as left, so compacting is linear in the events removed
+        if (firstId - compactedId >= Math.max(MIN_COMPACTION, lastId - firstId)) {
+            compactedId = firstId;
+            postings.values().removeIf(list -> list.removeBefore(firstId));
+        }
+    }
+
+    /**
+     * Remove all events, the next may have any id.
+     */
+    public void clear() {
+        postings.clear();
+        firstId = 0;
+        compactedId = 0;
+        lastId = -1;
+    }
+
+    /**
+     * Get number of distinct tokens.
+     * @return number of tokens
+     */
+    public int getTokenCount() {
+        return postings.size();
+    }
+
+    /** {@inheritDoc} */
+    long[] getFieldCandidates(final Rule rule) {
+        if (rule instanceof PartialTextMatchRule) {
+            PartialTextMatchRule partialTextMatchRule = (PartialTextMatchRule) rule;
+            if (isMessage(partialTextMatchRule.getAccessor().getName()) && partialTextMatchRule.getValue() != null) {
+                return getContaining(partialTextMatchRule.getValue());
+            }
+        } else if (rule instanceof MultiTermMatchRule) {
+            MultiTermMatchRule multiTermMatchRule = (MultiTermMatchRule) rule;
+            if (isMessage(multiTermMatchRule.getAccessor().getName())) {
+                List<long[]> lists = new ArrayList<>();
+                for (String value : multiTermMatchRule.getValues()) {
+                    long[] containing = getContaining(value);
+                    if (containing == null) {
+                        return null;
+                    }
+                    lists.add(containing);
+                }
+                return union(lists);
+            }
+        } else if (rule instanceof EqualsRule) {
+            EqualsRule equalsRule = (EqualsRule) rule;
+            if (isMessage(equalsRule.getAccessor().getName())) {
+                return getEqualTo(equalsRule.getValue());
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMessage(final String fieldName) {
+        return LoggingEventFieldResolver.MSG_FIELD.equals(fieldName);
+    }
+
+    /**
+     * The events whose message may contain a value, ignoring case.
+     */
+    private long[] getContaining(final String value) {
+        List<long[]> exact = new ArrayList<>();
+        String prefix = null;
+        String suffix = null;
+        String infix = null;
+        for (int[] run : runs(value)) {
+            if (!hasLetter(value, run)) {
+                // the tokens it could be part of may not be indexed
+                continue;
+            }
+            String token = fold(value, run[0], run[1]);
+            boolean atStart = run[0] == 0;
+            boolean atEnd = run[1] == value.length();
+            if (!atStart && !atEnd) {
+                // delimited on both sides, so a whole token of the message
+                exact.add(getPostings(token));
+            } else if (atStart && atEnd) {
+                infix = token;
+            } else if (atEnd) {
+                // may continue in the message, the start of a token
+                prefix = token;
+            } else {
+                suffix = token;
+            }
+        }
+        if (!exact.isEmpty()) {
+            return intersection(exact);
+        }
+        if (prefix == null && suffix == null && infix == null) {
+            // no words to look up
+            return null;
+        }
+        // a scan of the tokens, still far fewer than the events
+        List<long[]> lists = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            String token = entry.getKey();
+            boolean candidate;
+            if (prefix != null || suffix != null) {
+                // the message tokens the value starts in and ends in may differ, only one is checked
+                candidate = prefix != null ? token.startsWith(prefix) : token.endsWith(suffix);
+            } else {
+                candidate = token.contains(infix);
+            }
+            if (candidate) {
+                lists.add(entry.getValue().from(firstId));
+            }
+        }
+        return union(lists);
+    }
+
+    /**
+     * The events whose message may be equal to a value.
+     */
+    private long[] getEqualTo(final String value) {
+        if (value == null) {
+            return new long[0];
+        }
+        List<long[]> lists = new ArrayList<>();
+        for (int[] run : runs(value)) {
+            if (hasLetter(value, run)) {
+                lists.add(getPostings(fold(value, run[0], run[1])));
+            }
+        }
+        return lists.isEmpty() ? null : intersection(lists);
+    }
+
+    private long[] getPostings(final String token) {
+        Postings list = postings.get(token);
+        return list == null ? new long[0] : list.from(firstId);
+    }
+
+    /**
+     * @return the start and end of each run of letters and digits
+     */
+    private static List<int[]> runs(final String value) {
+        List<int[]> runs = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i < value.length() && Character.isLetterOrDigit(value.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                runs.add(new int[] {start, i});
+                start = -1;
+            }
+        }
+        return runs;
+    }
+
+    private static boolean hasLetter(final String value, final int[] run) {
+        for (int i = run[0]; i < run[1]; i++) {
+            if (Character.isLetter(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String fold(final String value, final int start, final int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = TextSearcher.fold(value.charAt(i), false);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * The ids of the events containing a token, in ascending order.
+     */
+    private static final class Postings {
+        private long[] ids = new long[2];
+        private int start;
+        private int end;
+
+        void add(final long id) {
+            if (end > start && ids[end - 1] == id) {
+                // the token occurs more than once in the message
+                return;
+            }
+            if (end == ids.length) {
+                if (start >= ids.length / 2) {
+                    System.arraycopy(ids, start, ids, 0, end - start);
+                    end -= start;
+                    start = 0;
+                } else {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+            }
+            ids[end++] = id;
+        }
+
+        /**
+         * @return true if no ids are left
+         */
+        boolean removeBefore(final long id) {
+            start = lowerBound(id);
+            if (start == end) {
+                return true;
+            }
+            if (end - start < ids.length / 4) {
+                ids = Arrays.copyOfRange(ids, start, Math.max(2, end - start) + start);
+                end -= start;
+                start = 0;
+            }
+            return false;
+        }
+
+        long[] from(final long id) {
+            return Arrays.copyOfRange(ids, lowerBound(id), end);
+        }
+
+        private int lowerBound(final long id) {
+            int index = Arrays.binarySearch(ids, start, end, id);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
+
+/**
+ * A Rule class implementing case-insensitive partial-text matches of one field
+ * against any of several values: the OR of the partial-text rules on the field,
+ * searching the field once for all the values.
+ *
+ * Created by RuleOptimizer.
+ */
+final class MultiTermMatchRule extends AbstractRule {
+    /**
+     * Serialization ID.
+     */
+    static final long serialVersionUID = -1870566384001563402L;
+    /**
+     * Accessor of the field.
+     */
+    private final LoggingEventFieldAccessor accessor;
+    /**
+     * Values.
+     */
+    private final String[] values;
+    /**
+     * Searcher for the values.
+     */
+    private final MultiTermSearcher searcher;
+
+    /**
+     * Create new instance.
+     * @param accessor accessor of the field
+     * @param values values
+     */
+    MultiTermMatchRule(final LoggingEventFieldAccessor accessor, final List<String> values) {
+        super();
+        this.accessor = accessor;
+        this.values = values.toArray(new String[0]);
+        this.searcher = new MultiTermSearcher(values);
+    }
+
+    /**
+     * Get accessor of the field.
+     * @return accessor
+     */
+    LoggingEventFieldAccessor getAccessor() {
+        return accessor;
+    }
+
+    /**
+     * Get values.
+     * @return values
+     */
+    String[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Get number of values.
+     * @return number of values
+     */
+    int getValueCount() {
+        return values.length;
+    }
+
+    /** {@inheritDoc} */
+    public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
+        Object p2 = accessor.getValue(event);
+        if (p2 == null) {
+            return false;
+        }
+        if (matches == null) {
+            return searcher.isAnyFoundIn(p2.toString());
+        }
+        boolean[] found = new boolean[values.length];
+        boolean result = searcher.findAll(p2.toString(), found);
+        if (result) {
+            Set<String> entries = matchesOf(matches).computeIfAbsent(accessor.getName(), k -> new HashSet<>());
+            for (int i = 0; i < values.length; i++) {
+                if (found[i]) {
+                    entries.add(values[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        StringBuilder buf = new StringBuilder(accessor.getName()).append(" ~= any of (");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append(values[i]);
+        }
+        return buf.append(')').toString();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Case-insensitive search for any of several terms in a single pass over the text,
+ * using an Aho-Corasick automaton over case-folded characters.
+ *
+ * Characters are folded as String.toLowerCase does each character.  The automaton
+ * follows US-ASCII characters through a table and the others through a sorted list
+ * of transitions per state, so searching allocates nothing.
+ */
+final class MultiTermSearcher implements Serializable {
+    /**
+     * Serialization ID.
+     */
+    static final long serialVersionUID = 7364127310498765131L;
+    /**
+     * Characters with a transition table entry.
+     */
+    private static final int ASCII = 128;
+
+    /**
+     * Next state of each state for each US-ASCII character, following the failure
+     * links, so the table is complete.
+     */
+    private final int[] asciiNext;
+    /**
+     * Non US-ASCII characters with a transition from each state, sorted.
+     */
+    private final char[][] otherChars;
+    /**
+     * Next state for each of the otherChars.
+     */
+    private final int[][] otherNext;
+    /**
+     * State to continue from when the text doesn't continue any term of a state.
+     */
+    private final int[] failure;
+    /**
+     * Indexes of the terms ending at each state, including those reached through
+     * the failure links.
+     */
+    private final int[][] outputs;
+
+    /**
+     * Create new instance.
+     * @param terms terms
+     */
+    MultiTermSearcher(final List<String> terms) {
+        // build the trie
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        children.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            int state = 0;
+            for (int i = 0; i < term.length(); i++) {
+                char c = TextSearcher.fold(term.charAt(i), false);
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.get(state).put(c, next);
+                    children.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            ends.get(state).add(t);
+        }
+
+        int stateCount = children.size();
+        asciiNext = new int[stateCount * ASCII];
+        otherChars = new char[stateCount][];
+        otherNext = new int[stateCount][];
+        failure = new int[stateCount];
+        outputs = new int[stateCount][];
+
+        // breadth first, so the failure state of a state is complete before the state
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> stateOutputs = new ArrayList<>(ends.get(state));
+            if (state != 0) {
+                for (int output : outputs[failure[state]]) {
+                    stateOutputs.add(output);
+                }
+            }
+            outputs[state] = stateOutputs.stream().mapToInt(Integer::intValue).toArray();
+
+            int otherCount = 0;
+            for (char c : children.get(state).keySet()) {
+                if (c >= ASCII) {
+                    otherCount++;
+                }
+            }
+            otherChars[state] = new char[otherCount];
+            otherNext[state] = new int[otherCount];
+            int other = 0;
+            for (Map.Entry<Character, Integer> entry : children.get(state).entrySet()) {
+                char c = entry.getKey();
+                int child = entry.getValue();
+                failure[child] = state == 0 ? 0 : next(failure[state], c);
+                if (c >= ASCII) {
+                    otherChars[state][other] = c;
+                    otherNext[state][other] = child;
+                    other++;
+                }
+                queue.add(child);
+            }
+            for (int c = 0; c < ASCII; c++) {
+                Integer child = children.get(state).get((char) c);
+                if (child != null) {
+                    asciiNext[state * ASCII + c] = child;
+                } else {
+                    asciiNext[state * ASCII + c] = state == 0 ? 0 : asciiNext[failure[state] * ASCII + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * The state following a state for a folded character.
+     */
+    private int next(final int state, final char c) {
+        if (c < ASCII) {
+            return asciiNext[state * ASCII + c];
+        }
+        int current = state;
+        while (true) {
+            int index = Arrays.binarySearch(otherChars[current], c);
+            if (index >= 0) {
+                return otherNext[current][index];
+            }
+            if (current == 0) {
+                return 0;
+            }
+            current = failure[current];
+        }
+    }
+
+    /**
+     * Find any of the terms in a text.
+     * @param text text
+     * @return true if the text contains one of the terms, ignoring case
+     */
+    boolean isAnyFoundIn(final CharSequence text) {
+        if (outputs[0].length > 0) {
+            // an empty term
+            return true;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, TextSearcher.fold(text.charAt(i), false));
+            if (outputs[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find which of the terms are in a text.
+     * @param text text
+     * @param found set to true for the index of each term the text contains
+     * @return true if the text contains one of the terms, ignoring case
+     */
+    boolean findAll(final CharSequence text, final boolean[] found) {
+        boolean any = false;
+        int state = 0;
+        for (int i = -1; i < text.length(); i++) {
+            if (i >= 0) {
+                state = next(state, TextSearcher.fold(text.charAt(i), false));
+            }
+            for (int output : outputs[state]) {
+                found[output] = true;
+                any = true;
+            }
+        }
+        return any;
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.log4j.rule;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -107,4 +108,22 @@ public class NotLevelEqualsRule extends AbstractRule {
         }
         return result;
     }
+
+    /**
+     * Every event has a level other than one which isn't known.
+     * @return true if the level isn't known, otherwise null
+     */
+    Boolean getConstantResult() {
+        return level == null ? Boolean.TRUE : null;
+    }
+
+    /** {@inheritDoc} */
+    Set<Level> getAcceptedLevels() {
+        return level == null ? null : EnumSet.complementOf(EnumSet.of(level));
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "LEVEL != " + level;
+    }
 }
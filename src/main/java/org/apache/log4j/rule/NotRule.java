@@ -74,6 +74,14 @@ public class NotRule extends AbstractRule {
         throw new IllegalArgumentException("Invalid NOT rule: - expected rule but received " + o1);
     }
 
+    /**
+     * Get enclosed rule.
+     * @return enclosed rule.
+     */
+    Rule getRule() {
+        return rule;
+    }
+
     /** {@inheritDoc} */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
         if (matches == null) {
@@ -96,4 +104,9 @@ public class NotRule extends AbstractRule {
         }
         return result;
     }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "! " + rule;
+    }
 }
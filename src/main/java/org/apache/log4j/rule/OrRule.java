@@ -83,6 +83,22 @@ public class OrRule extends AbstractRule {
         throw new IllegalArgumentException("Invalid OR rule: " + o2 + "..." + o1);
     }
 
+    /**
+     * Get first rule.
+     * @return first rule
+     */
+    Rule getFirstRule() {
+        return rule1;
+    }
+
+    /**
+     * Get second rule.
+     * @return second rule
+     */
+    Rule getSecondRule() {
+        return rule2;
+    }
+
     /** {@inheritDoc} */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
         if (matches == null) {
@@ -120,4 +136,9 @@ public class OrRule extends AbstractRule {
         }
         return result;
     }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "( " + rule1 + " || " + rule2 + " )";
+    }
 }
@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 /**
@@ -42,10 +43,18 @@ public class PartialTextMatchRule extends AbstractRule {
      * Field.
      */
     private final String field;
+    /**
+     * Accessor of the field, resolved once.
+     */
+    private final LoggingEventFieldAccessor accessor;
     /**
      * Value.
      */
     private final String value;
+    /**
+     * Case-insensitive searcher for the value.
+     */
+    private final TextSearcher searcher;
 
     /**
      * Create new instance.
@@ -59,7 +68,9 @@ public class PartialTextMatchRule extends AbstractRule {
         }
 
         this.field = field;
+        this.accessor = RESOLVER.getAccessor(field);
         this.value = value;
+        this.searcher = value == null ? null : new TextSearcher(value, false);
     }
 
     /**
@@ -89,19 +100,39 @@ public class PartialTextMatchRule extends AbstractRule {
         return new PartialTextMatchRule(p1, p2);
     }
 
+    /**
+     * Get accessor of the field.
+     * @return accessor
+     */
+    LoggingEventFieldAccessor getAccessor() {
+        return accessor;
+    }
+
+    /**
+     * Get value.
+     * @return value
+     */
+    String getValue() {
+        return value;
+    }
+
     /** {@inheritDoc} */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-        Object p2 = RESOLVER.getValue(field, event);
-        boolean result =
-                ((p2 != null) && (value != null) && (p2.toString().toLowerCase().indexOf(value.toLowerCase()) > -1));
+        Object p2 = accessor.getValue(event);
+        boolean result = ((p2 != null) && (searcher != null) && searcher.isFoundIn(p2.toString()));
         if (result && matches != null) {
-            Set entries = (Set) matches.get(field.toUpperCase());
+            Set entries = (Set) matches.get(accessor.getName());
             if (entries == null) {
                 entries = new HashSet();
-                matches.put(field.toUpperCase(), entries);
+                matches.put(accessor.getName(), entries);
             }
             entries.add(value);
         }
         return result;
     }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return accessor.getName() + " ~= " + value;
+    }
 }
@@ -25,6 +25,12 @@ import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
  * listeners when the underlying implementation of this Rule has it's
  * criteria changed by using the standard PropertyChangeListener infrastructure.
  *
+ * <p>Rules may be evaluated from several threads at once, for example by
+ * RuleEvaluator.  Implementations must not keep per-evaluation state in their
+ * fields: a rule either holds immutable state only, or keeps its scratch state per
+ * thread.  The matches map belongs to the caller and must not be shared between
+ * evaluations running at the same time.
+ *
  * @author Paul Smith (psmith@apache.org)
  * @author Scott Deboy (sdeboy@apache.org)
  */
@@ -38,7 +44,7 @@ public interface Rule {
      * @param e LoggingEvent this instance will evaluate
      * @param matches a Map of event field keys to Sets of matching strings (may be null) which will be
      * updated during execution of this method to include field and string matches based on the rule
-     * evaluation results
+     * evaluation results; only the calling thread may use it during the evaluation
      * @return true if this Rule instance accepts the event, otherwise false.
      */
     boolean evaluate(ChainsawLoggingEvent e, Map matches);
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+
+/**
+ * Evaluates a rule against a batch of events on all cores.
+ *
+ * The batch is split into ranges evaluated by the tasks of a fork/join pool.  Each
+ * range covers whole 64-bit words of the result, so the tasks write their results
+ * side by side without synchronization.
+ */
+public final class RuleEvaluator {
+    /**
+     * Events evaluated by a task without splitting the range further (a multiple of 64).
+     */
+    private static final int MIN_RANGE = 1024;
+
+    /**
+     * Create new instance.
+     */
+    private RuleEvaluator() {
+        super();
+    }
+
+    /**
+     * Evaluate a rule against events, using the common pool.
+     * @param rule rule
+     * @param events events
+     * @return the indexes of the events the rule is true for
+     */
+    public static BitSet evaluate(final Rule rule, final List<? extends ChainsawLoggingEvent> events) {
+        return evaluate(rule, events.size(), events::get, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluate a rule against events.
+     * @param rule rule
+     * @param count number of events
+     * @param events the event at each index, called from the pool's threads
+     * @param pool pool to evaluate the rule on
+     * @return the indexes of the events the rule is true for
+     */
+    public static BitSet evaluate(
+            final Rule rule,
+            final int count,
+            final IntFunction<? extends ChainsawLoggingEvent> events,
+            final ForkJoinPool pool) {
+        long[] words = new long[(count + 63) / 64];
+        EvaluateTask task = new EvaluateTask(rule, events, words, 0, count);
+        if (count <= MIN_RANGE) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Evaluates the rule against a range of the events.
+     */
+    private static final class EvaluateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Rule rule;
+        private final IntFunction<? extends ChainsawLoggingEvent> events;
+        private final long[] words;
+        private final int from;
+        private final int to;
+
+        EvaluateTask(
+                final Rule rule,
+                final IntFunction<? extends ChainsawLoggingEvent> events,
+                final long[] words,
+                final int from,
+                final int to) {
+            this.rule = rule;
+            this.events = events;
+            this.words = words;
+            this.from = from;
+            this.to = to;
+        }
+
+        /** {@inheritDoc} */
+        protected void compute() {
+            if (to - from > MIN_RANGE) {
+                // split on a word boundary
+                int middle = (from + (to - from) / 2) & ~63;
+                invokeAll(
+                        new EvaluateTask(rule, events, words, from, middle),
+                        new EvaluateTask(rule, events, words, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (rule.evaluate(events.apply(i), null)) {
+                    words[i >> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,824 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
+
+/**
+ * Rewrites a compiled rule tree so it is cheaper to evaluate.
+ *
+ * Nested AND and OR rules are flattened into a single node per run of the same
+ * operator, rules whose result doesn't depend on the event are folded into
+ * constants, and the operands of each node are ordered by their estimated cost and
+ * pass rate: an AND evaluates first the operands most likely to reject the event
+ * for the least work, an OR those most likely to accept it.  Level and timestamp
+ * comparisons are the cheapest operands, regular expressions the most expensive.
+ *
+ * The estimated pass rates are only a starting point - each node counts how often
+ * its operands pass and reorders them periodically as the counts come in.  Each
+ * thread counts its own evaluations, and only adds them to the node's totals and
+ * reorders the operands once it has made enough of them, so concurrent evaluations
+ * don't write to shared state.
+ *
+ * Evaluating with a matches map evaluates the operands in the order they were
+ * written, so the matches are the same as those of the original tree.
+ */
+public final class RuleOptimizer {
+    /**
+     * Rule which is always true.
+     */
+    static final Rule TRUE = new ConstantRule(true);
+    /**
+     * Rule which is always false.
+     */
+    static final Rule FALSE = new ConstantRule(false);
+
+    /**
+     * Evaluations of a node on one thread between two reorderings of its operands.
+     */
+    private static final int REORDER_INTERVAL = 1024;
+    /**
+     * Operand evaluation count at which the counts are halved, so they follow changes.
+     */
+    private static final int MAX_COUNT = 1 << 20;
+    /**
+     * How many evaluations the estimated pass rate counts for.
+     */
+    private static final double PRIOR_WEIGHT = 32;
+
+    /**
+     * Create new instance.
+     */
+    private RuleOptimizer() {
+        super();
+    }
+
+    /**
+     * Optimize a rule tree.
+     * @param rule rule
+     * @return an equivalent rule which is usually cheaper to evaluate
+     */
+    public static Rule optimize(final Rule rule) {
+        if (rule instanceof AndRule) {
+            return optimizeComposite(true, rule);
+        }
+        if (rule instanceof OrRule) {
+            return optimizeComposite(false, rule);
+        }
+        if (rule instanceof NotRule) {
+            Rule operand = optimize(((NotRule) rule).getRule());
+            if (operand instanceof ConstantRule) {
+                return ((ConstantRule) operand).value ? FALSE : TRUE;
+            }
+            if (operand instanceof NotRule) {
+                return ((NotRule) operand).getRule();
+            }
+            return operand == ((NotRule) rule).getRule() ? rule : NotRule.getRule(operand);
+        }
+        if (rule instanceof ExpressionRule) {
+            return optimize(((ExpressionRule) rule).getCompiledRule());
+        }
+        Boolean constant = rule instanceof AbstractRule ? ((AbstractRule) rule).getConstantResult() : null;
+        if (constant != null) {
+            return constant ? TRUE : FALSE;
+        }
+        return rule;
+    }
+
+    /**
+     * Optimize rules which are evaluated against the same events one after the other,
+     * such as the color rules of a colorizer.  Subexpressions appearing more than once
+     * across the rules are evaluated at most once per event.
+     * @param rules rules
+     * @return the optimized rules
+     */
+    public static SharedRules optimizeShared(final List<? extends Rule> rules) {
+        Rule[] optimized = new Rule[rules.size()];
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i < optimized.length; i++) {
+            optimized[i] = optimize(rules.get(i));
+            countOccurrences(optimized[i], occurrences);
+        }
+        SharedRules shared = new SharedRules(optimized.length);
+        Map<String, SharedRule> sharedRules = new HashMap<>();
+        for (int i = 0; i < optimized.length; i++) {
+            shared.rules[i] = share(optimized[i], occurrences, sharedRules, shared);
+        }
+        shared.sharedCount = sharedRules.size();
+        return shared;
+    }
+
+    /**
+     * Key identifying the rules which always give the same result.  The field names
+     * in the text of a rule are upper-cased, but properties are looked up by their
+     * exact key first, so the keys of the properties are added as they were written.
+     */
+    private static String key(final Rule rule) {
+        StringBuilder key = new StringBuilder();
+        appendKey(rule, key);
+        return key.toString();
+    }
+
+    private static void appendKey(final Rule rule, final StringBuilder key) {
+        key.append(rule.getClass().getName()).append('(');
+        if (rule instanceof SharedRule) {
+            appendKey(((SharedRule) rule).getRule(), key);
+        } else if (rule instanceof CompositeRule) {
+            key.append(((CompositeRule) rule).and ? "AND" : "OR");
+            for (Rule operand : ((CompositeRule) rule).operands) {
+                appendKey(operand, key);
+            }
+        } else if (rule instanceof NotRule) {
+            appendKey(((NotRule) rule).getRule(), key);
+        } else {
+            key.append(rule);
+            LoggingEventFieldAccessor accessor =
+                    rule instanceof AbstractRule ? ((AbstractRule) rule).getAccessor() : null;
+            if (accessor != null && accessor.getPropertyKey() != null) {
+                key.append(" PROP:").append(accessor.getPropertyKey());
+            }
+        }
+        key.append(')');
+    }
+
+    private static void countOccurrences(final Rule rule, final Map<String, Integer> occurrences) {
+        // level and timestamp checks cost less than looking up a shared result
+        if (cost(rule) > 2) {
+            occurrences.merge(key(rule), 1, Integer::sum);
+        }
+        if (rule instanceof CompositeRule) {
+            for (Rule operand : ((CompositeRule) rule).operands) {
+                countOccurrences(operand, occurrences);
+            }
+        } else if (rule instanceof NotRule) {
+            countOccurrences(((NotRule) rule).getRule(), occurrences);
+        }
+    }
+
+    private static Rule share(
+            final Rule rule,
+            final Map<String, Integer> occurrences,
+            final Map<String, SharedRule> sharedRules,
+            final SharedRules owner) {
+        String key = key(rule);
+        SharedRule sharedRule = sharedRules.get(key);
+        if (sharedRule != null) {
+            return sharedRule;
+        }
+        Rule result = rule;
+        if (rule instanceof CompositeRule) {
+            CompositeRule composite = (CompositeRule) rule;
+            Rule[] operands = new Rule[composite.operands.length];
+            for (int i = 0; i < operands.length; i++) {
+                operands[i] = share(composite.operands[i], occurrences, sharedRules, owner);
+            }
+            result = new CompositeRule(composite.and, operands);
+        } else if (rule instanceof NotRule) {
+            result = NotRule.getRule(share(((NotRule) rule).getRule(), occurrences, sharedRules, owner));
+        }
+        if (occurrences.getOrDefault(key, 0) > 1) {
+            sharedRule = new SharedRule(owner, sharedRules.size(), result);
+            sharedRules.put(key, sharedRule);
+            return sharedRule;
+        }
+        return result;
+    }
+
+    /**
+     * Describe how a rule is evaluated: one line per node, operands in the order they
+     * are evaluated, with their estimated cost and pass rate.
+     * @param rule rule
+     * @return description
+     */
+    public static String explain(final Rule rule) {
+        StringBuilder buf = new StringBuilder();
+        explain(rule, 0, buf);
+        return buf.toString();
+    }
+
+    private static void explain(final Rule rule, final int depth, final StringBuilder buf) {
+        for (int i = 0; i < depth; i++) {
+            buf.append("  ");
+        }
+        Rule target = rule instanceof ExpressionRule ? ((ExpressionRule) rule).getCompiledRule() : rule;
+        if (target instanceof SharedRule) {
+            // evaluated once per event for all the rules containing it
+            buf.append("SHARED ");
+            target = ((SharedRule) target).getRule();
+        }
+        if (target instanceof CompositeRule) {
+            buf.append(((CompositeRule) target).and ? "AND" : "OR");
+        } else if (target instanceof NotRule) {
+            buf.append("NOT");
+        } else {
+            buf.append(target);
+        }
+        buf.append(String.format(Locale.US, "  (cost %.1f, pass rate %.2f)%n", cost(target), passRate(target)));
+        if (target instanceof CompositeRule) {
+            CompositeRule composite = (CompositeRule) target;
+            for (int index : composite.order) {
+                explain(composite.operands[index], depth + 1, buf);
+            }
+        } else if (target instanceof NotRule) {
+            explain(((NotRule) target).getRule(), depth + 1, buf);
+        }
+    }
+
+    private static Rule optimizeComposite(final boolean and, final Rule rule) {
+        List<Rule> operands = new ArrayList<>();
+        flatten(and, rule, operands);
+        List<Rule> kept = new ArrayList<>();
+        for (Rule operand : operands) {
+            Rule optimized = optimize(operand);
+            if (optimized instanceof ConstantRule) {
+                if (((ConstantRule) optimized).value != and) {
+                    // false in an AND, true in an OR
+                    return optimized;
+                }
+                // true in an AND, false in an OR - no effect
+                continue;
+            }
+            kept.add(optimized);
+        }
+        if (!and) {
+            kept = mergePartialTextMatches(kept);
+        }
+        if (kept.isEmpty()) {
+            return and ? TRUE : FALSE;
+        }
+        if (kept.size() == 1) {
+            return kept.get(0);
+        }
+        return new CompositeRule(and, kept.toArray(new Rule[0]));
+    }
+
+    /**
+     * Replace the partial-text rules on the same field of an OR by one rule searching
+     * the field for all their values at once.  Properties are the same field only if
+     * their keys are written the same way.
+     */
+    private static List<Rule> mergePartialTextMatches(final List<Rule> operands) {
+        Map<String, List<String>> valuesByField = new HashMap<>();
+        for (Rule operand : operands) {
+            if (operand instanceof PartialTextMatchRule && ((PartialTextMatchRule) operand).getValue() != null) {
+                PartialTextMatchRule rule = (PartialTextMatchRule) operand;
+                valuesByField
+                        .computeIfAbsent(fieldKey(rule.getAccessor()), k -> new ArrayList<>())
+                        .add(rule.getValue());
+            }
+        }
+        List<Rule> merged = new ArrayList<>();
+        for (Rule operand : operands) {
+            if (operand instanceof PartialTextMatchRule && ((PartialTextMatchRule) operand).getValue() != null) {
+                PartialTextMatchRule rule = (PartialTextMatchRule) operand;
+                List<String> values = valuesByField.get(fieldKey(rule.getAccessor()));
+                if (values == null) {
+                    // merged into the rule for the first of them
+                    continue;
+                }
+                if (values.size() > 1) {
+                    valuesByField.remove(fieldKey(rule.getAccessor()));
+                    merged.add(new MultiTermMatchRule(rule.getAccessor(), values));
+                    continue;
+                }
+            }
+            merged.add(operand);
+        }
+        return merged;
+    }
+
+    private static String fieldKey(final LoggingEventFieldAccessor accessor) {
+        return accessor.getPropertyKey() == null ? accessor.getName() : "PROP:" + accessor.getPropertyKey();
+    }
+
+    private static void flatten(final boolean and, final Rule rule, final List<Rule> operands) {
+        if (and && rule instanceof AndRule) {
+            flatten(and, ((AndRule) rule).getFirstRule(), operands);
+            flatten(and, ((AndRule) rule).getSecondRule(), operands);
+        } else if (!and && rule instanceof OrRule) {
+            flatten(and, ((OrRule) rule).getFirstRule(), operands);
+            flatten(and, ((OrRule) rule).getSecondRule(), operands);
+        } else {
+            operands.add(rule);
+        }
+    }
+
+    /**
+     * Estimate the relative cost of evaluating a rule against one event.
+     * @param rule rule
+     * @return cost
+     */
+    static double cost(final Rule rule) {
+        if (rule instanceof SharedRule) {
+            return cost(((SharedRule) rule).getRule());
+        }
+        if (rule instanceof CompositeRule) {
+            return ((CompositeRule) rule).cost();
+        }
+        if (rule instanceof NotRule) {
+            return cost(((NotRule) rule).getRule());
+        }
+        if (rule instanceof ExpressionRule) {
+            return cost(((ExpressionRule) rule).getCompiledRule());
+        }
+        if (rule instanceof ConstantRule) {
+            return 0;
+        }
+        if (rule instanceof LevelEqualsRule
+                || rule instanceof NotLevelEqualsRule
+                || rule.getClass().getEnclosingClass() == LevelInequalityRule.class) {
+            return 1;
+        }
+        if (rule instanceof TimestampEqualsRule || rule instanceof TimestampInequalityRule) {
+            return 2;
+        }
+        if (rule instanceof EqualsRule
+                || rule instanceof NotEqualsRule
+                || rule instanceof ExistsRule
+                || rule instanceof InequalityRule) {
+            return 4;
+        }
+        if (rule instanceof PartialTextMatchRule) {
+            return 15;
+        }
+        if (rule instanceof MultiTermMatchRule) {
+            // one pass whatever the number of values, a little slower than a single search
+            return 20;
+        }
+        if (rule instanceof LikeRule) {
+            return 50;
+        }
+        return 20;
+    }
+
+    /**
+     * Estimate the fraction of events a rule is true for.
+     * @param rule rule
+     * @return pass rate between 0 and 1
+     */
+    static double passRate(final Rule rule) {
+        if (rule instanceof SharedRule) {
+            return passRate(((SharedRule) rule).getRule());
+        }
+        if (rule instanceof CompositeRule) {
+            return ((CompositeRule) rule).passRate();
+        }
+        if (rule instanceof NotRule) {
+            return 1 - passRate(((NotRule) rule).getRule());
+        }
+        if (rule instanceof ExpressionRule) {
+            return passRate(((ExpressionRule) rule).getCompiledRule());
+        }
+        if (rule instanceof ConstantRule) {
+            return ((ConstantRule) rule).value ? 1 : 0;
+        }
+        if (rule instanceof LevelEqualsRule) {
+            return 0.2;
+        }
+        if (rule instanceof EqualsRule || rule instanceof PartialTextMatchRule || rule instanceof LikeRule) {
+            return 0.1;
+        }
+        if (rule instanceof NotLevelEqualsRule || rule instanceof NotEqualsRule) {
+            return 0.9;
+        }
+        if (rule instanceof MultiTermMatchRule) {
+            return 1 - Math.pow(0.9, ((MultiTermMatchRule) rule).getValueCount());
+        }
+        return 0.5;
+    }
+
+    /**
+     * Rules optimized together by optimizeShared.
+     *
+     * The results of the shared subexpressions are kept per thread, for the event
+     * being evaluated: call reset before evaluating the rules against an event.
+     */
+    public static final class SharedRules {
+        /**
+         * Optimized rules.
+         */
+        private final Rule[] rules;
+        /**
+         * Number of shared subexpressions.
+         */
+        private int sharedCount;
+        /**
+         * Result of each shared subexpression for the current event: 0 if not
+         * evaluated yet, otherwise RESULT_FALSE or RESULT_TRUE.
+         */
+        private final ThreadLocal<byte[]> results = ThreadLocal.withInitial(() -> new byte[sharedCount]);
+
+        /**
+         * Create new instance.
+         * @param size number of rules
+         */
+        private SharedRules(final int size) {
+            rules = new Rule[size];
+        }
+
+        /**
+         * Get the number of rules.
+         * @return number of rules
+         */
+        public int size() {
+            return rules.length;
+        }
+
+        /**
+         * Forget the results of the shared subexpressions, before evaluating the rules
+         * against another event, or against the same event after it changed.
+         */
+        public void reset() {
+            if (sharedCount > 0) {
+                Arrays.fill(results.get(), (byte) 0);
+            }
+        }
+
+        /**
+         * Evaluate one of the rules.
+         * @param index index of the rule
+         * @param event event
+         * @return true if the rule is true for the event
+         */
+        public boolean evaluate(final int index, final ChainsawLoggingEvent event) {
+            return rules[index].evaluate(event, null);
+        }
+
+        /** {@inheritDoc} */
+        public String toString() {
+            StringBuilder buf = new StringBuilder();
+            for (Rule rule : rules) {
+                buf.append(explain(rule));
+            }
+            return buf.toString();
+        }
+    }
+
+    /**
+     * A subexpression shared by several of the rules optimized together.
+     */
+    static final class SharedRule extends AbstractRule {
+        /**
+         * Serialization ID.
+         */
+        static final long serialVersionUID = -2117474520409356618L;
+        /**
+         * Result when false.
+         */
+        private static final byte RESULT_FALSE = 1;
+        /**
+         * Result when true.
+         */
+        private static final byte RESULT_TRUE = 2;
+        /**
+         * Rules sharing the subexpression.
+         */
+        private final transient SharedRules owner;
+        /**
+         * Index of the result.
+         */
+        private final int slot;
+        /**
+         * Subexpression.
+         */
+        private final Rule rule;
+
+        /**
+         * Create new instance.
+         * @param owner rules sharing the subexpression
+         * @param slot index of the result
+         * @param rule subexpression
+         */
+        SharedRule(final SharedRules owner, final int slot, final Rule rule) {
+            super();
+            this.owner = owner;
+            this.slot = slot;
+            this.rule = rule;
+        }
+
+        /**
+         * Get subexpression.
+         * @return subexpression
+         */
+        Rule getRule() {
+            return rule;
+        }
+
+        /** {@inheritDoc} */
+        public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
+            if (matches != null) {
+                return rule.evaluate(event, matches);
+            }
+            byte[] results = owner.results.get();
+            if (results[slot] != 0) {
+                return results[slot] == RESULT_TRUE;
+            }
+            boolean result = rule.evaluate(event, null);
+            results[slot] = result ? RESULT_TRUE : RESULT_FALSE;
+            return result;
+        }
+
+        /** {@inheritDoc} */
+        public String toString() {
+            return rule.toString();
+        }
+    }
+
+    /**
+     * A rule whose result doesn't depend on the event.
+     */
+    static final class ConstantRule extends AbstractRule {
+        /**
+         * Serialization ID.
+         */
+        static final long serialVersionUID = 6101540941587335092L;
+        /**
+         * Result.
+         */
+        private final boolean value;
+
+        /**
+         * Create new instance.
+         * @param value result
+         */
+        ConstantRule(final boolean value) {
+            super();
+            this.value = value;
+        }
+
+        /** {@inheritDoc} */
+        public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
+            return value;
+        }
+
+        /** {@inheritDoc} */
+        Boolean getConstantResult() {
+            return value;
+        }
+
+        /** {@inheritDoc} */
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    /**
+     * An AND or OR of any number of operands, evaluated in the order of their rank.
+     */
+    static final class CompositeRule extends AbstractRule {
+        /**
+         * Serialization ID.
+         */
+        static final long serialVersionUID = -3324557372367549720L;
+        /**
+         * True for AND, false for OR.
+         */
+        private final boolean and;
+        /**
+         * Operands, in the order they were written.
+         */
+        private final Rule[] operands;
+        /**
+         * Estimated cost of each operand.
+         */
+        private final double[] costs;
+        /**
+         * Estimated pass rate of each operand.
+         */
+        private final double[] estimatedPassRates;
+        /**
+         * Times each operand was evaluated, guarded by this.
+         */
+        private final int[] evaluations;
+        /**
+         * Times each operand was true, guarded by this.
+         */
+        private final int[] passes;
+        /**
+         * Indexes of the operands in the order they are evaluated.
+         */
+        private volatile int[] order;
+        /**
+         * Counts of the evaluations on each thread, not added to the totals yet.
+         */
+        private final transient ThreadLocal<Sample> samples;
+
+        /**
+         * Create new instance.
+         * @param and true for AND, false for OR
+         * @param operands operands
+         */
+        CompositeRule(final boolean and, final Rule[] operands) {
+            super();
+            this.and = and;
+            this.operands = operands;
+            costs = new double[operands.length];
+            estimatedPassRates = new double[operands.length];
+            evaluations = new int[operands.length];
+            passes = new int[operands.length];
+            samples = ThreadLocal.withInitial(() -> new Sample(operands.length));
+            for (int i = 0; i < operands.length; i++) {
+                costs[i] = RuleOptimizer.cost(operands[i]);
+                estimatedPassRates[i] = RuleOptimizer.passRate(operands[i]);
+            }
+            reorder();
+        }
+
+        /**
+         * Is this an AND.
+         * @return true for AND, false for OR
+         */
+        boolean isAnd() {
+            return and;
+        }
+
+        /**
+         * Get operands.
+         * @return operands, in the order they were written
+         */
+        Rule[] getOperands() {
+            return operands.clone();
+        }
+
+        /** {@inheritDoc} */
+        public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
+            if (matches != null) {
+                return evaluateWithMatches(event, matches);
+            }
+            // an AND is decided by the first false operand, an OR by the first true one
+            boolean decisive = !and;
+            boolean result = and;
+            Sample sample = samples.get();
+            for (int index : order) {
+                boolean operandResult = operands[index].evaluate(event, null);
+                sample.evaluations[index]++;
+                if (operandResult) {
+                    sample.passes[index]++;
+                }
+                if (operandResult == decisive) {
+                    result = decisive;
+                    break;
+                }
+            }
+            if (++sample.count == REORDER_INTERVAL) {
+                addSample(sample);
+            }
+            return result;
+        }
+
+        /**
+         * Evaluate in the written order, the same way the AND and OR rules do.
+         */
+        private boolean evaluateWithMatches(final ChainsawLoggingEvent event, final Map<?, ?> matches) {
+            List<Map<String, Set<String>>> operandMatches = new ArrayList<>(operands.length);
+            boolean result = and;
+            for (Rule operand : operands) {
+                Map<String, Set<String>> tempMatches = new HashMap<>();
+                boolean operandResult = operand.evaluate(event, tempMatches);
+                operandMatches.add(tempMatches);
+                if (and && !operandResult) {
+                    return false;
+                }
+                // an OR evaluates every operand to collect all the matches
+                result = and ? result : result || operandResult;
+            }
+            if (result) {
+                for (Map<String, Set<String>> tempMatches : operandMatches) {
+                    for (Map.Entry<String, Set<String>> entry : tempMatches.entrySet()) {
+                        matchesOf(matches)
+                                .computeIfAbsent(entry.getKey(), k -> new HashSet<>())
+                                .addAll(entry.getValue());
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Add the counts of a thread to the totals, and reorder the operands.
+         */
+        private synchronized void addSample(final Sample sample) {
+            for (int i = 0; i < operands.length; i++) {
+                evaluations[i] += sample.evaluations[i];
+                passes[i] += sample.passes[i];
+            }
+            sample.clear();
+            reorder();
+        }
+
+        /**
+         * Order the operands by the cost of evaluating them per event they decide.
+         */
+        private synchronized void reorder() {
+            double[] ranks = new double[operands.length];
+            Integer[] indexes = new Integer[operands.length];
+            for (int i = 0; i < operands.length; i++) {
+                if (evaluations[i] > MAX_COUNT) {
+                    evaluations[i] /= 2;
+                    passes[i] /= 2;
+                }
+                double passRate = operandPassRate(i);
+                double decidedRate = and ? 1 - passRate : passRate;
+                ranks[i] = costs[i] / Math.max(decidedRate, 0.001);
+                indexes[i] = i;
+            }
+            Arrays.sort(indexes, Comparator.comparingDouble(i -> ranks[i]));
+            int[] newOrder = new int[operands.length];
+            for (int i = 0; i < newOrder.length; i++) {
+                newOrder[i] = indexes[i];
+            }
+            order = newOrder;
+        }
+
+        /**
+         * The estimated pass rate, corrected by the observed one as evaluations accumulate.
+         */
+        private double operandPassRate(final int index) {
+            return (passes[index] + estimatedPassRates[index] * PRIOR_WEIGHT) / (evaluations[index] + PRIOR_WEIGHT);
+        }
+
+        /**
+         * Expected cost of an evaluation in the current order.
+         */
+        synchronized double cost() {
+            double cost = 0;
+            double reached = 1;
+            for (int index : order) {
+                cost += reached * costs[index];
+                double passRate = operandPassRate(index);
+                reached *= and ? passRate : 1 - passRate;
+            }
+            return cost;
+        }
+
+        /**
+         * Expected pass rate, assuming the operands are independent.
+         */
+        synchronized double passRate() {
+            double all = 1;
+            double none = 1;
+            for (int i = 0; i < operands.length; i++) {
+                double passRate = operandPassRate(i);
+                all *= passRate;
+                none *= 1 - passRate;
+            }
+            return and ? all : 1 - none;
+        }
+
+        /** {@inheritDoc} */
+        public String toString() {
+            StringBuilder buf = new StringBuilder("( ");
+            for (int i = 0; i < operands.length; i++) {
+                if (i > 0) {
+                    buf.append(and ? " && " : " || ");
+                }
+                buf.append(operands[i]);
+            }
+            return buf.append(" )").toString();
+        }
+    }
+
+    /**
+     * The counts of the evaluations of a CompositeRule on one thread.
+     */
+    private static final class Sample {
+        private final int[] evaluations;
+        private final int[] passes;
+        private int count;
+
+        Sample(final int operandCount) {
+            evaluations = new int[operandCount];
+            passes = new int[operandCount];
+        }
+
+        void clear() {
+            Arrays.fill(evaluations, 0);
+            Arrays.fill(passes, 0);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Case-insensitive search for a term, using Boyer-Moore-Horspool over case-folded
+ * characters.
+ *
+ * The term is folded once, when the searcher is created, and the text is folded a
+ * character at a time while it is compared, so searching allocates nothing.
+ */
+final class TextSearcher implements Serializable {
+    /**
+     * Serialization ID.
+     */
+    static final long serialVersionUID = -4215508853937012260L;
+    /**
+     * Size of the shift table, indexed by the low bits of the folded characters.
+     */
+    private static final int TABLE_SIZE = 256;
+
+    /**
+     * Folded term.
+     */
+    private final char[] term;
+    /**
+     * True to fold US-ASCII letters only, as regular expressions do by default.
+     */
+    private final boolean asciiOnly;
+    /**
+     * How far the term can move when the text character under its last character is
+     * one with these low bits.  Characters sharing their low bits share the smallest
+     * of their shifts.
+     */
+    private final int[] shifts = new int[TABLE_SIZE];
+
+    /**
+     * Create new instance.
+     * @param term term
+     * @param asciiOnly true to fold US-ASCII letters only, false to fold as
+     * String.toLowerCase does each character
+     */
+    TextSearcher(final String term, final boolean asciiOnly) {
+        this.asciiOnly = asciiOnly;
+        this.term = new char[term.length()];
+        for (int i = 0; i < this.term.length; i++) {
+            this.term[i] = fold(term.charAt(i), asciiOnly);
+        }
+        int length = this.term.length;
+        Arrays.fill(shifts, Math.max(length, 1));
+        for (int i = 0; i < length - 1; i++) {
+            shifts[this.term[i] % TABLE_SIZE] = length - 1 - i;
+        }
+    }
+
+    /**
+     * Fold the case of a character.
+     * @param c character
+     * @param asciiOnly true to fold US-ASCII letters only
+     * @return lower-case character
+     */
+    static char fold(final char c, final boolean asciiOnly) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return asciiOnly ? c : Character.toLowerCase(c);
+    }
+
+    /**
+     * Get the length of the term.
+     * @return length
+     */
+    int length() {
+        return term.length;
+    }
+
+    /**
+     * Find the term in a text.
+     * @param text text
+     * @return true if the text contains the term, ignoring case
+     */
+    boolean isFoundIn(final CharSequence text) {
+        int length = term.length;
+        int last = length - 1;
+        int end = text.length() - length;
+        int i = 0;
+        while (i <= end) {
+            int j = last;
+            while (j >= 0 && fold(text.charAt(i + j), asciiOnly) == term[j]) {
+                j--;
+            }
+            if (j < 0) {
+                return true;
+            }
+            i += shifts[fold(text.charAt(i + last), asciiOnly) % TABLE_SIZE];
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the term is at an offset in a text.
+     * @param text text
+     * @param offset offset
+     * @return true if the text holds the term at the offset, ignoring case
+     */
+    boolean isFoundAt(final CharSequence text, final int offset) {
+        if (offset < 0 || offset + term.length > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < term.length; i++) {
+            if (fold(text.charAt(offset + i), asciiOnly) != term[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -19,10 +19,11 @@ package org.apache.log4j.rule;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 /**
@@ -36,9 +37,10 @@ public class TimestampEqualsRule extends AbstractRule {
      */
     static final long serialVersionUID = 1639079557187790321L;
     /**
-     * Resolver.
+     * Accessor of the timestamp.
      */
-    private static final LoggingEventFieldResolver RESOLVER = LoggingEventFieldResolver.getInstance();
+    private static final LoggingEventFieldAccessor ACCESSOR =
+            LoggingEventFieldResolver.getInstance().getAccessor(LoggingEventFieldResolver.TIMESTAMP_FIELD);
     /**
      * Date format.
      */
@@ -57,7 +59,8 @@ public class TimestampEqualsRule extends AbstractRule {
         super();
         // expects value to be a timestamp value represented as a long
         try {
-            synchronized (this) {
+            // SimpleDateFormat is not thread-safe, rules are created from several threads
+            synchronized (DATE_FORMAT) {
                 timeStamp = DATE_FORMAT.parse(value).getTime();
             }
         } catch (ParseException pe) {
@@ -76,18 +79,22 @@ public class TimestampEqualsRule extends AbstractRule {
 
     /** {@inheritDoc} */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-        String eventTimeStampString = RESOLVER.getValue(LoggingEventFieldResolver.TIMESTAMP_FIELD, event)
-                .toString();
-        long eventTimeStamp = Long.parseLong(eventTimeStampString) / 1000 * 1000;
-        boolean result = (eventTimeStamp == timeStamp);
+        long eventMillis = ACCESSOR.getLong(event);
+        if (eventMillis == LoggingEventFieldAccessor.NO_VALUE) {
+            return false;
+        }
+        // the date format has a resolution of seconds
+        boolean result = Math.floorDiv(eventMillis, 1000) * 1000 == timeStamp;
         if (result && matches != null) {
-            Set entries = (Set) matches.get(LoggingEventFieldResolver.TIMESTAMP_FIELD);
-            if (entries == null) {
-                entries = new HashSet();
-                matches.put(LoggingEventFieldResolver.TIMESTAMP_FIELD, entries);
-            }
-            entries.add(eventTimeStampString);
+            matchesOf(matches)
+                    .computeIfAbsent(LoggingEventFieldResolver.TIMESTAMP_FIELD, k -> new HashSet<>())
+                    .add(String.valueOf(eventMillis));
         }
         return result;
     }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "TIMESTAMP == " + Instant.ofEpochMilli(timeStamp);
+    }
 }
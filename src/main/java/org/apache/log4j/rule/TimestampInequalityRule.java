@@ -19,10 +19,11 @@ package org.apache.log4j.rule;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.spi.LoggingEventFieldAccessor;
 import org.apache.log4j.spi.LoggingEventFieldResolver;
 
 /**
@@ -36,17 +37,18 @@ public class TimestampInequalityRule extends AbstractRule {
      */
     static final long serialVersionUID = -4642641663914789241L;
     /**
-     * Resolver.
+     * Accessor of the timestamp.
      */
-    private static final LoggingEventFieldResolver RESOLVER = LoggingEventFieldResolver.getInstance();
+    private static final LoggingEventFieldAccessor ACCESSOR =
+            LoggingEventFieldResolver.getInstance().getAccessor(LoggingEventFieldResolver.TIMESTAMP_FIELD);
     /**
      * Date format.
      */
     private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
     /**
-     * Inequality symbol.
+     * Inequality.
      */
-    private transient String inequalitySymbol;
+    private final Inequality inequality;
     /**
      * Timestamp.
      */
@@ -59,9 +61,13 @@ public class TimestampInequalityRule extends AbstractRule {
      */
     private TimestampInequalityRule(final String inequalitySymbol, final String value) {
         super();
-        this.inequalitySymbol = inequalitySymbol;
+        this.inequality = Inequality.of(inequalitySymbol);
+        if (inequality == null) {
+            throw new IllegalArgumentException("Invalid inequality rule - " + inequalitySymbol + " is not supported");
+        }
         try {
-            synchronized (this) {
+            // SimpleDateFormat is not thread-safe, rules are created from several threads
+            synchronized (DATE_FORMAT) {
                 timeStamp = DATE_FORMAT.parse(value).getTime();
             }
         } catch (ParseException pe) {
@@ -81,30 +87,22 @@ public class TimestampInequalityRule extends AbstractRule {
 
     /** {@inheritDoc} */
     public boolean evaluate(final ChainsawLoggingEvent event, Map matches) {
-        String eventTimeStampString = RESOLVER.getValue(LoggingEventFieldResolver.TIMESTAMP_FIELD, event)
-                .toString();
-        long eventTimeStamp = Long.parseLong(eventTimeStampString) / 1000 * 1000;
-        boolean result = false;
-        long first = eventTimeStamp;
-        long second = timeStamp;
-
-        if ("<".equals(inequalitySymbol)) {
-            result = first < second;
-        } else if (">".equals(inequalitySymbol)) {
-            result = first > second;
-        } else if ("<=".equals(inequalitySymbol)) {
-            result = first <= second;
-        } else if (">=".equals(inequalitySymbol)) {
-            result = first >= second;
+        long eventMillis = ACCESSOR.getLong(event);
+        if (eventMillis == LoggingEventFieldAccessor.NO_VALUE) {
+            return false;
         }
+        // the date format has a resolution of seconds
+        boolean result = inequality.test(Math.floorDiv(eventMillis, 1000) * 1000, timeStamp);
         if (result && matches != null) {
-            Set entries = (Set) matches.get(LoggingEventFieldResolver.TIMESTAMP_FIELD);
-            if (entries == null) {
-                entries = new HashSet();
-                matches.put(LoggingEventFieldResolver.TIMESTAMP_FIELD, entries);
-            }
-            entries.add(eventTimeStampString);
+            matchesOf(matches)
+                    .computeIfAbsent(LoggingEventFieldResolver.TIMESTAMP_FIELD, k -> new HashSet<>())
+                    .add(String.valueOf(eventMillis));
         }
         return result;
     }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "TIMESTAMP " + inequality + " " + Instant.ofEpochMilli(timeStamp);
+    }
 }
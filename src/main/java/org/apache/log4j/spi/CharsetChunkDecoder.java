@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.spi;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes text arriving in chunks of bytes, keeping the bytes of a character split
+ * between two chunks until the rest of it arrives.  Malformed input is replaced.
+ * <p>
+ * Not thread-safe, each source of chunks needs an instance of its own.
+ */
+public final class CharsetChunkDecoder {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final CharsetDecoder decoder;
+    /**
+     * Bytes of an incomplete character at the end of the last chunk.
+     */
+    private ByteBuffer carried = EMPTY;
+    /**
+     * Reused for the characters of each chunk.
+     */
+    private CharBuffer chars = CharBuffer.allocate(1024);
+
+    /**
+     * Create new instance.
+     *
+     * @param charset charset of the bytes
+     */
+    public CharsetChunkDecoder(final Charset charset) {
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Decode the bytes remaining in a chunk, which are consumed.
+     *
+     * @param bytes chunk
+     * @return the characters completed by the chunk, only valid until the next call
+     */
+    public CharBuffer decode(final ByteBuffer bytes) {
+        ByteBuffer in = bytes;
+        if (carried.hasRemaining()) {
+            in = ByteBuffer.allocate(carried.remaining() + bytes.remaining());
+            in.put(carried).put(bytes).flip();
+        }
+        int capacity = (int) Math.ceil(in.remaining() * (double) decoder.maxCharsPerByte());
+        if (chars.capacity() < capacity) {
+            chars = CharBuffer.allocate(capacity);
+        }
+        chars.clear();
+        decoder.decode(in, chars, false);
+        if (in.hasRemaining()) {
+            carried = ByteBuffer.allocate(in.remaining());
+            carried.put(in).flip();
+        } else {
+            carried = EMPTY;
+        }
+        bytes.position(bytes.limit());
+        chars.flip();
+        return chars;
+    }
+}
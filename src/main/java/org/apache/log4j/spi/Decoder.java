@@ -59,5 +59,5 @@ public interface Decoder {
      *
      * @param additionalProperties map of additional properties.
      */
-    void setAdditionalProperties(Map additionalProperties);
+    void setAdditionalProperties(Map<String, String> additionalProperties);
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+
+/**
+ * The streaming form of a Decoder which only decodes text, passing it the text
+ * decoded from each chunk of bytes.
+ */
+final class DecoderAdapter implements StreamingDecoder {
+    /**
+     * Characters read from a stream at a time.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Decoder decoder;
+    private final Charset charset;
+    private final CharsetChunkDecoder chunkDecoder;
+
+    DecoderAdapter(final Decoder decoder, final Charset charset) {
+        this.decoder = decoder;
+        this.charset = charset;
+        this.chunkDecoder = new CharsetChunkDecoder(charset);
+    }
+
+    @Override
+    public void decode(final InputStream in, final Consumer<ChainsawLoggingEvent> sink) throws IOException {
+        // a reader keeps characters split between two reads whole
+        Reader reader = new InputStreamReader(in, charset);
+        char[] buffer = new char[BUFFER_SIZE];
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            decodeText(new String(buffer, 0, length), sink);
+        }
+    }
+
+    @Override
+    public void decode(final ByteBuffer bytes, final Consumer<ChainsawLoggingEvent> sink) {
+        decodeText(chunkDecoder.decode(bytes).toString(), sink);
+    }
+
+    private void decodeText(final String text, final Consumer<ChainsawLoggingEvent> sink) {
+        List<ChainsawLoggingEvent> events = decoder.decodeEvents(text);
+        if (events != null) {
+            events.forEach(sink);
+        }
+    }
+
+    @Override
+    public void setAdditionalProperties(final Map<String, String> additionalProperties) {
+        decoder.setAdditionalProperties(additionalProperties);
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.spi;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.LocationInfo;
+import org.apache.log4j.chainsaw.logevents.StringDictionary;
+
+/**
+ * Reads one field of a logging event.
+ *
+ * The field name is resolved once, when the accessor is created by
+ * LoggingEventFieldResolver.getAccessor; rules keep the accessor rather than the
+ * field name, so evaluating them against an event does no field name matching,
+ * upper-casing or allocation.  Property keys are interned, so the property is
+ * usually found by identity.
+ *
+ * The values returned by getValue are those described in LoggingEventFieldResolver.
+ */
+public final class LoggingEventFieldAccessor implements Serializable {
+    /**
+     * Serialization ID.
+     */
+    static final long serialVersionUID = 2279914586375542215L;
+
+    /**
+     * The value of getLong when the field has no numeric value.
+     */
+    public static final long NO_VALUE = ChainsawLoggingEvent.NO_VALUE;
+
+    /**
+     * The fields an accessor can read.
+     */
+    enum Kind {
+        LOGGER,
+        LEVEL,
+        CLASS,
+        FILE,
+        LINE,
+        METHOD,
+        MSG,
+        NDC,
+        EXCEPTION,
+        TIMESTAMP,
+        THREAD,
+        PROPERTY
+    }
+
+    /**
+     * Field.
+     */
+    private final Kind kind;
+    /**
+     * Upper-cased field name, the key of the field in a matches map.
+     */
+    private final String name;
+    /**
+     * Interned property key, for PROP. fields.
+     */
+    private final String propertyKey;
+
+    /**
+     * Create new instance.
+     * @param kind field
+     * @param name upper-cased field name
+     * @param propertyKey property key, or null
+     */
+    LoggingEventFieldAccessor(final Kind kind, final String name, final String propertyKey) {
+        this.kind = kind;
+        this.name = name;
+        this.propertyKey = propertyKey == null ? null : StringDictionary.KEYS.intern(propertyKey);
+    }
+
+    /**
+     * Get the upper-cased field name.
+     * @return field name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the key of the property the accessor reads, in the case it was written in.
+     * @return property key, or null if the field isn't a property
+     */
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    /**
+     * Get value of field.
+     * @param event event
+     * @return value of field
+     */
+    public Object getValue(final ChainsawLoggingEvent event) {
+        switch (kind) {
+            case LOGGER:
+                return event.m_logger;
+            case LEVEL:
+                return event.m_level;
+            case MSG:
+                return event.m_message;
+            case NDC:
+                return event.m_ndc == null ? LoggingEventFieldResolver.EMPTY_STRING : event.m_ndc;
+            case EXCEPTION:
+                return LoggingEventFieldResolver.EMPTY_STRING;
+            case TIMESTAMP:
+                return event.m_timestamp;
+            case THREAD:
+                return event.m_threadName;
+            case PROPERTY:
+                return getProperty(event);
+            default:
+                return getLocationValue(event.m_locationInfo);
+        }
+    }
+
+    /**
+     * Get the numeric value of the field: the epoch millis of the timestamp, the
+     * ordinal of the level, the line number, or the value of a property or other
+     * field holding a number.
+     * @param event event
+     * @return value of field, or NO_VALUE if the field is missing or not a number
+     */
+    public long getLong(final ChainsawLoggingEvent event) {
+        switch (kind) {
+            case TIMESTAMP:
+                Instant timestamp = event.m_timestamp;
+                return timestamp == null ? NO_VALUE : timestamp.toEpochMilli();
+            case LEVEL:
+                return event.m_level == null ? NO_VALUE : event.m_level.ordinal();
+            case LINE:
+                LocationInfo info = event.m_locationInfo;
+                return info == null ? NO_VALUE : info.lineNumber;
+            case PROPERTY:
+                // parsed when the property was set
+                return event.getPropertyAsLong(propertyKey);
+            default:
+                Object value = getValue(event);
+                return value == null ? NO_VALUE : parseLong(value.toString());
+        }
+    }
+
+    private String getProperty(final ChainsawLoggingEvent event) {
+        String property = event.getProperty(propertyKey);
+        if (property != null && property.length() >= 1) {
+            return property;
+        }
+        // We did not get the property in a case-sensitive manner - check for
+        // case-insensitive
+        property = event.getPropertyIgnoreCase(propertyKey);
+        return property == null ? LoggingEventFieldResolver.EMPTY_STRING : property;
+    }
+
+    private Object getLocationValue(final LocationInfo info) {
+        if (info == null) {
+            return LoggingEventFieldResolver.EMPTY_STRING;
+        }
+        switch (kind) {
+            case CLASS:
+                return info.className;
+            case FILE:
+                return info.fileName;
+            case LINE:
+                return info.lineNumber;
+            default:
+                return info.methodName;
+        }
+    }
+
+    /**
+     * Parses a decimal number without throwing for the values which are not one.
+     */
+    private static long parseLong(final String value) {
+        int length = value.length();
+        int start = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+        if (start == length) {
+            return NO_VALUE;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_VALUE;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // too many digits
+            return NO_VALUE;
+        }
+    }
+
+    /**
+     * Intern the property key again when deserialized.
+     * @return accessor
+     */
+    private Object readResolve() {
+        return new LoggingEventFieldAccessor(kind, name, propertyKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString() {
+        return name;
+    }
+}
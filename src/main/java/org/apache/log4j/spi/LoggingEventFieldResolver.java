@@ -17,9 +17,11 @@
 package org.apache.log4j.spi;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.rule.InFixToPostFix;
 
@@ -122,6 +124,26 @@ public final class LoggingEventFieldResolver {
      * LOGGER string literal.
      */
     private static final LoggingEventFieldResolver RESOLVER = new LoggingEventFieldResolver();
+    /**
+     * Accessors of the keyword fields.
+     */
+    private static final Map<String, LoggingEventFieldAccessor> KEYWORD_ACCESSORS = new HashMap<>();
+    /**
+     * Maximum number of property accessors kept.
+     */
+    private static final int MAX_PROPERTY_ACCESSORS = 1024;
+    /**
+     * Accessors of the property fields, by field name as written.
+     */
+    private static final Map<String, LoggingEventFieldAccessor> PROPERTY_ACCESSORS = new ConcurrentHashMap<>();
+
+    static {
+        for (LoggingEventFieldAccessor.Kind kind : LoggingEventFieldAccessor.Kind.values()) {
+            if (kind != LoggingEventFieldAccessor.Kind.PROPERTY) {
+                KEYWORD_ACCESSORS.put(kind.name(), new LoggingEventFieldAccessor(kind, kind.name(), null));
+            }
+        }
+    }
 
     /**
      * Create new instance.
@@ -187,7 +209,7 @@ public final class LoggingEventFieldResolver {
     public boolean isField(final String fieldName) {
         if (fieldName != null) {
             return (KEYWORD_LIST.contains(fieldName.toUpperCase(Locale.US))
-                    || fieldName.toUpperCase().startsWith(PROP_FIELD));
+                    || fieldName.toUpperCase(Locale.US).startsWith(PROP_FIELD));
         }
         return false;
     }
@@ -199,60 +221,36 @@ public final class LoggingEventFieldResolver {
      * @return value of field
      */
     public Object getValue(final String fieldName, final ChainsawLoggingEvent event) {
+        return getAccessor(fieldName).getValue(event);
+    }
+
+    /**
+     * Resolve a field name once, for reading the field of many events.
+     * @param fieldName field
+     * @return accessor for the field
+     */
+    public LoggingEventFieldAccessor getAccessor(final String fieldName) {
+        LoggingEventFieldAccessor propertyAccessor = PROPERTY_ACCESSORS.get(fieldName);
+        if (propertyAccessor != null) {
+            return propertyAccessor;
+        }
         String upperField = fieldName.toUpperCase(Locale.US);
-        if (LOGGER_FIELD.equals(upperField)) {
-            return event.m_logger;
-        } else if (LEVEL_FIELD.equals(upperField)) {
-            return event.m_level;
-        } else if (MSG_FIELD.equals(upperField)) {
-            return event.m_message;
-        } else if (NDC_FIELD.equals(upperField)) {
-            String ndcValue = event.m_ndc;
-            return ((ndcValue == null) ? EMPTY_STRING : ndcValue);
-        } else if (EXCEPTION_FIELD.equals(upperField)) {
-            //        String[] throwableRep = event.getThrowableStrRep();
-            //        if (throwableRep == null) {
-            //            return EMPTY_STRING;
-            //        } else {
-            //            return getExceptionMessage(throwableRep);
-            //        }
-            return "";
-        } else if (TIMESTAMP_FIELD.equals(upperField)) {
-            return event.m_timestamp;
-        } else if (THREAD_FIELD.equals(upperField)) {
-            return event.m_threadName;
-        } else if (upperField.startsWith(PROP_FIELD)) {
+        if (upperField.startsWith(PROP_FIELD)) {
             // note: need to use actual fieldname since case matters
-            String realFieldName = fieldName.substring(5);
-            String property = event.getProperty(realFieldName);
-            if (property != null && property.length() >= 1) {
-                return property;
-            }
-
-            // We did not get the property in a case-sensitive manner - check for
-            // case-insensitive
-            for (Map.Entry<String, String> entry : event.getProperties().entrySet()) {
-                if (entry.getKey().equalsIgnoreCase(realFieldName)) {
-                    return entry.getValue();
-                }
-            }
-
-            return EMPTY_STRING;
-        } else {
-            org.apache.log4j.chainsaw.logevents.LocationInfo info = event.m_locationInfo;
-            if (CLASS_FIELD.equals(upperField)) {
-                return ((info == null) ? EMPTY_STRING : info.className);
-            } else if (FILE_FIELD.equals(upperField)) {
-                return ((info == null) ? EMPTY_STRING : info.fileName);
-            } else if (LINE_FIELD.equals(upperField)) {
-                return ((info == null) ? EMPTY_STRING : info.lineNumber);
-            } else if (METHOD_FIELD.equals(upperField)) {
-                return ((info == null) ? EMPTY_STRING : info.methodName);
+            propertyAccessor = new LoggingEventFieldAccessor(
+                    LoggingEventFieldAccessor.Kind.PROPERTY, upperField, fieldName.substring(5));
+            // property names come from the events, so only so many are kept
+            if (PROPERTY_ACCESSORS.size() < MAX_PROPERTY_ACCESSORS) {
+                PROPERTY_ACCESSORS.putIfAbsent(fieldName, propertyAccessor);
             }
+            return propertyAccessor;
         }
-
-        // there wasn't a match, so throw a runtime exception
-        throw new IllegalArgumentException("Unsupported field name: " + fieldName);
+        LoggingEventFieldAccessor accessor = KEYWORD_ACCESSORS.get(upperField);
+        if (accessor == null) {
+            // there wasn't a match, so throw a runtime exception
+            throw new IllegalArgumentException("Unsupported field name: " + fieldName);
+        }
+        return accessor;
     }
 
     /**
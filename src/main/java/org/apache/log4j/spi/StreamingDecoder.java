@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+
+/**
+ * Reconstructs LoggingEvents from the bytes they were sent as, passing each one
+ * to a sink as soon as it is decoded.
+ * <p>
+ * Unlike a Decoder, the input doesn't have to be turned into a String first: a
+ * stream is read until it ends, and buffers, such as the packets of a datagram
+ * receiver, are decoded as they arrive.  An event split between two buffers is
+ * kept until the rest of it arrives, including a character whose bytes are split,
+ * so each source needs an instance of its own.
+ * <p>
+ * Existing Decoders are used through {@link #of(Decoder, Charset)}.
+ */
+public interface StreamingDecoder {
+    /**
+     * Decode the events read from a stream, until it ends.
+     *
+     * @param in stream to read, which is not closed
+     * @param sink receives the events
+     * @throws IOException if IO error reading the stream.
+     */
+    void decode(InputStream in, Consumer<ChainsawLoggingEvent> sink) throws IOException;
+
+    /**
+     * Decode the events completed by the bytes remaining in a buffer.  The buffer
+     * is consumed, and may be reused once this returns.
+     *
+     * @param bytes bytes to decode
+     * @param sink receives the events
+     */
+    void decode(ByteBuffer bytes, Consumer<ChainsawLoggingEvent> sink);
+
+    /**
+     * Sets additional properties.
+     *
+     * @param additionalProperties map of additional properties.
+     */
+    void setAdditionalProperties(Map<String, String> additionalProperties);
+
+    /**
+     * Get a streaming form of a decoder.  The decoder itself is returned if it
+     * decodes UTF-8 streams already, otherwise the bytes are decoded to text with
+     * the charset and passed on to it chunk by chunk.
+     *
+     * @param decoder decoder
+     * @param charset charset of the bytes
+     * @return streaming decoder, which keeps the state of the decoder
+     */
+    static StreamingDecoder of(final Decoder decoder, final Charset charset) {
+        if (decoder instanceof StreamingDecoder && StandardCharsets.UTF_8.equals(charset)) {
+            return (StreamingDecoder) decoder;
+        }
+        return new DecoderAdapter(decoder, charset);
+    }
+}
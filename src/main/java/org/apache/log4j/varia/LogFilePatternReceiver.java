@@ -32,6 +32,7 @@ import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
 import org.apache.log4j.chainsaw.logevents.Level;
 import org.apache.log4j.chainsaw.logevents.LocationInfo;
+import org.apache.log4j.chainsaw.logevents.StringDictionary;
 import org.apache.log4j.chainsaw.receiver.ChainsawReceiverSkeleton;
 import org.apache.log4j.helpers.Constants;
 import org.apache.log4j.rule.ExpressionRule;
@@ -967,15 +968,18 @@ public class LogFilePatternReceiver extends ChainsawReceiverSkeleton {
 
         lineNumber = fieldMap.remove(LINE);
 
-        properties.put(Constants.HOSTNAME_KEY, host);
-        properties.put(Constants.APPLICATION_KEY, path);
-        properties.put(Constants.RECEIVER_NAME_KEY, getName());
+        // keys are interned here, so the builder keeps the map rather than copying it
+        properties.put(StringDictionary.KEYS.intern(Constants.HOSTNAME_KEY), host);
+        properties.put(StringDictionary.KEYS.intern(Constants.APPLICATION_KEY), path);
+        properties.put(StringDictionary.KEYS.intern(Constants.RECEIVER_NAME_KEY), getName());
         if (group != null) {
-            properties.put(Constants.GROUP_KEY, group);
+            properties.put(StringDictionary.KEYS.intern(Constants.GROUP_KEY), group);
         }
 
         // all remaining entries in fieldmap are properties
-        properties.putAll(fieldMap);
+        for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
+            properties.put(StringDictionary.KEYS.intern(entry.getKey()), entry.getValue());
+        }
 
         LocationInfo info = null;
 
@@ -20,13 +20,15 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Collection;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
 import org.apache.log4j.chainsaw.receiver.ChainsawReceiverSkeleton;
 import org.apache.log4j.helpers.Constants;
 import org.apache.log4j.rule.ExpressionRule;
 import org.apache.log4j.rule.Rule;
 import org.apache.log4j.spi.Decoder;
+import org.apache.log4j.spi.StreamingDecoder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -65,8 +67,13 @@ public class LogFileXMLReceiver extends ChainsawReceiverSkeleton {
     private boolean tailing = false;
 
     private Decoder decoderInstance;
-    private Reader reader;
+    private InputStream stream;
     private static final String FILE_KEY = "file";
+    /**
+     * Bytes read from the file at a time.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
     private String host;
     private String path;
     private boolean useCurrentThread;
@@ -145,24 +152,25 @@ public class LogFileXMLReceiver extends ChainsawReceiverSkeleton {
      */
     public void shutdown() {
         try {
-            if (reader != null) {
-                reader.close();
-                reader = null;
+            if (stream != null) {
+                stream.close();
+                stream = null;
             }
         } catch (IOException ioe) {
             ioe.printStackTrace();
         }
     }
 
-    private void process(Reader unbufferedReader) throws IOException {
-        BufferedReader bufferedReader = new BufferedReader(unbufferedReader);
-        char[] content = new char[10000];
+    private void process(InputStream in) throws IOException {
+        // log files are read as UTF-8, like the XML decoders assume
+        StreamingDecoder streamingDecoder = StreamingDecoder.of(decoderInstance, StandardCharsets.UTF_8);
+        byte[] content = new byte[BUFFER_SIZE];
         logger.debug("processing starting: {}", fileURL);
         int length;
         do {
             logger.debug("in do loop-about to process");
-            while ((length = bufferedReader.read(content)) > -1) {
-                processEvents(decoderInstance.decodeEvents(String.valueOf(content, 0, length)));
+            while ((length = in.read(content)) > -1) {
+                streamingDecoder.decode(ByteBuffer.wrap(content, 0, length), this::processEvent);
             }
             if (tailing) {
                 try {
@@ -177,21 +185,15 @@ public class LogFileXMLReceiver extends ChainsawReceiverSkeleton {
         shutdown();
     }
 
-    private void processEvents(Collection<ChainsawLoggingEvent> chainsawLoggingEvents) {
-        if (chainsawLoggingEvents == null) {
-            return;
-        }
-
-        for (ChainsawLoggingEvent event : chainsawLoggingEvents) {
-            if (passesExpression(event)) {
-                if (event.getProperty(Constants.HOSTNAME_KEY) != null) {
-                    event.setProperty(Constants.HOSTNAME_KEY, host);
-                }
-                if (event.getProperty(Constants.APPLICATION_KEY) != null) {
-                    event.setProperty(Constants.APPLICATION_KEY, path);
-                }
-                append(event);
+    private void processEvent(ChainsawLoggingEvent event) {
+        if (passesExpression(event)) {
+            if (event.getProperty(Constants.HOSTNAME_KEY) != null) {
+                event.setProperty(Constants.HOSTNAME_KEY, host);
+            }
+            if (event.getProperty(Constants.APPLICATION_KEY) != null) {
+                event.setProperty(Constants.APPLICATION_KEY, path);
             }
+            append(event);
         }
     }
 
@@ -254,8 +256,8 @@ public class LogFileXMLReceiver extends ChainsawReceiverSkeleton {
                     }
 
                     try {
-                        reader = new InputStreamReader(new URL(getFileURL()).openStream());
-                        process(reader);
+                        stream = new BufferedInputStream(new URL(getFileURL()).openStream(), BUFFER_SIZE);
+                        process(stream);
                     } catch (FileNotFoundException fnfe) {
                         logger.info("file not available");
                     } catch (IOException ioe) {
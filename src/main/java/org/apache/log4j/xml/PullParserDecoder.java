@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.xml;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.awt.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+import java.util.function.Consumer;
+import java.util.zip.ZipInputStream;
+import javax.swing.ProgressMonitorInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.StringDictionary;
+import org.apache.log4j.spi.CharsetChunkDecoder;
+import org.apache.log4j.spi.Decoder;
+import org.apache.log4j.spi.StreamingDecoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Base of the decoders of XML records, which pull the events straight out of a
+ * StAX parser instead of building a DOM.
+ * <p>
+ * A stream of records is parsed as a whole, wrapped in a root element of its own,
+ * after skipping the XML declaration, doctype and comments at its start.  The
+ * document element of a complete log file, if any, is simply a parent of the
+ * records, which may be left open.  Names are matched including their prefix, with
+ * namespaces off, as the records of XMLLayout use the log4j prefix without
+ * declaring it.
+ * <p>
+ * Text decoded chunk by chunk, as Strings or bytes, is kept until the end of a
+ * record arrives, then the complete records are parsed in one go, straight from the
+ * buffer.  A stream is parsed as it is read instead.
+ * <p>
+ * NOTE: This class has been created on the assumption that all XML log files
+ * are encoded in UTF-8. There is no current support for any other
+ * encoding format at this time.
+ */
+abstract class PullParserDecoder implements Decoder, StreamingDecoder {
+    private static final Logger logger = LogManager.getLogger(PullParserDecoder.class);
+
+    private static final String ROOT_START = "<chainsaw-records>";
+    private static final String ROOT_END = "</chainsaw-records>";
+
+    private final XMLInputFactory factory;
+    /**
+     * Name of the record elements.
+     */
+    private final String recordElement;
+    /**
+     * Record end.
+     */
+    private final String recordEnd;
+    /**
+     * Text received which doesn't end in a complete record yet.
+     */
+    private final StringBuilder pending = new StringBuilder();
+    /**
+     * Characters of pending which have been searched for a record end.
+     */
+    private int searched;
+    /**
+     * Decodes the chunks of bytes into pending.
+     */
+    private final CharsetChunkDecoder chunkDecoder = new CharsetChunkDecoder(StandardCharsets.UTF_8);
+    /**
+     * Additional properties.
+     */
+    private Map<String, String> additionalProperties = new HashMap<>();
+    /**
+     * Owner.
+     */
+    Component owner;
+
+    final ChainsawLoggingEventBuilder builder = new ChainsawLoggingEventBuilder();
+
+    /**
+     * Create new instance.
+     *
+     * @param recordElement name of the record elements
+     */
+    PullParserDecoder(final String recordElement) {
+        this.recordElement = recordElement;
+        this.recordEnd = "</" + recordElement + ">";
+        factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /**
+     * Sets an additionalProperty map, where each Key/Value pair is
+     * automatically added to each LoggingEvent as it is decoded.
+     * <p>
+     * This is useful, say, to include the source file name of the Logging events
+     *
+     * @param properties additional properties
+     */
+    public void setAdditionalProperties(final Map<String, String> properties) {
+        if (properties == null) {
+            this.additionalProperties = null;
+            return;
+        }
+        // interned once here rather than for every event
+        Map<String, String> interned = new HashMap<>();
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            interned.put(StringDictionary.KEYS.intern(entry.getKey()), entry.getValue());
+        }
+        this.additionalProperties = interned;
+    }
+
+    /**
+     * Decodes a File into a Vector of LoggingEvents.
+     *
+     * @param url the url of a file containing events to decode
+     * @return Vector of LoggingEvents
+     * @throws IOException if IO error during processing.
+     */
+    @SuppressFBWarnings // TODO: loading files like this is dangerous - at least in web. see if we can do better
+    public Vector<ChainsawLoggingEvent> decode(final URL url) throws IOException {
+        boolean isZipFile = url.getPath().toLowerCase().endsWith(".zip");
+        InputStream inputStream;
+        if (isZipFile) {
+            inputStream = new ZipInputStream(url.openStream());
+            // move stream to next entry so we can read it
+            ((ZipInputStream) inputStream).getNextEntry();
+        } else {
+            inputStream = url.openStream();
+        }
+        if (owner != null) {
+            inputStream = new ProgressMonitorInputStream(owner, "Loading " + url, inputStream);
+        }
+        Vector<ChainsawLoggingEvent> v = new Vector<>();
+        try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            parse(reader, v::add);
+        }
+        return v;
+    }
+
+    /**
+     * Decodes a String representing a number of events into a
+     * Vector of LoggingEvents.  A record which isn't complete yet is kept, and
+     * decoded once the rest of it is passed in.
+     *
+     * @param document to decode events from
+     * @return Vector of LoggingEvents, or null if no record was completed
+     */
+    public Vector<ChainsawLoggingEvent> decodeEvents(final String document) {
+        if (document == null) {
+            return null;
+        }
+        pending.append(document);
+        Vector<ChainsawLoggingEvent> events = new Vector<>();
+        return parsePending(events::add) ? events : null;
+    }
+
+    /**
+     * Decodes the records read from a stream of UTF-8 text, until it ends.  The
+     * stream is parsed as it is read, each record is passed on as soon as its end
+     * arrives.
+     *
+     * @param in stream to read, which is not closed
+     * @param sink receives the events
+     */
+    public void decode(final InputStream in, final Consumer<ChainsawLoggingEvent> sink) {
+        parse(new InputStreamReader(in, StandardCharsets.UTF_8), sink);
+    }
+
+    /**
+     * Decodes the records completed by a chunk of UTF-8 text.  The chunk is
+     * decoded straight into the text kept from the previous chunks, without
+     * making a String of it.
+     *
+     * @param bytes chunk, which is consumed
+     * @param sink receives the events
+     */
+    public void decode(final ByteBuffer bytes, final Consumer<ChainsawLoggingEvent> sink) {
+        pending.append(chunkDecoder.decode(bytes));
+        parsePending(sink);
+    }
+
+    /**
+     * Parses the complete records of the pending text, and removes them.
+     *
+     * @param sink receives the events
+     * @return false if no record was completed
+     */
+    private boolean parsePending(final Consumer<ChainsawLoggingEvent> sink) {
+        int end = -1;
+        // a record end may straddle the previous chunk
+        int from = Math.max(0, searched - recordEnd.length() + 1);
+        for (int i = pending.indexOf(recordEnd, from); i >= 0; i = pending.indexOf(recordEnd, i + 1)) {
+            end = i + recordEnd.length();
+        }
+        searched = pending.length();
+        if (end < 0) {
+            return false;
+        }
+        parse(new CharSequenceReader(pending, end), sink);
+        pending.delete(0, end);
+        searched = pending.length();
+        return true;
+    }
+
+    /**
+     * Decodes the first event of an XML fragment.
+     *
+     * @param data XML fragment
+     * @return a single LoggingEvent or null
+     */
+    public ChainsawLoggingEvent decode(final String data) {
+        if (data == null) {
+            return null;
+        }
+        Vector<ChainsawLoggingEvent> events = new Vector<>();
+        parse(new CharSequenceReader(data, data.length()), events::add);
+        return events.isEmpty() ? null : events.firstElement();
+    }
+
+    /**
+     * Decodes the records read from a reader, until it ends.  The records are
+     * passed on as soon as each one is parsed.  A malformed record ends the stream,
+     * as there is no telling where the next one starts.
+     *
+     * @param reader reader
+     * @param sink receives the events
+     */
+    void parse(final Reader reader, final Consumer<ChainsawLoggingEvent> sink) {
+        boolean inRecord = false;
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(new FragmentReader(reader));
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT
+                            && recordElement.equalsIgnoreCase(xml.getLocalName())) {
+                        inRecord = true;
+                        ChainsawLoggingEvent event = null;
+                        try {
+                            event = readRecord(xml);
+                        } catch (RuntimeException e) {
+                            logger.warn("Skipping a record which can't be decoded: {}", e.toString());
+                        }
+                        inRecord = false;
+                        if (event != null) {
+                            sink.accept(event);
+                        }
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            if (inRecord) {
+                logger.error(e, e);
+            } else {
+                // after the last record, e.g. the document element of a log file left open
+                logger.debug("Records ended with malformed XML", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the record the parser is at the start of, up to its end.  Values are
+     * only converted once the end is reached, so a record with a value which can't
+     * be converted is skipped, and the records after it are still read.
+     *
+     * @param xml parser
+     * @return event, or null to skip the record
+     */
+    abstract ChainsawLoggingEvent readRecord(XMLStreamReader xml) throws XMLStreamException;
+
+    /**
+     * Adds the additional properties to the properties of an event, overriding
+     * properties that already exist.
+     *
+     * @param properties properties of the event, or null
+     * @return properties, or null if there are none
+     */
+    Map<String, String> withAdditionalProperties(final Map<String, String> properties) {
+        if (additionalProperties == null || additionalProperties.isEmpty()) {
+            return properties;
+        }
+        Map<String, String> result = properties == null ? new HashMap<>() : properties;
+        result.putAll(additionalProperties);
+        return result;
+    }
+
+    /**
+     * Skips the element the parser is at the start of, up to its end.
+     *
+     * @param xml parser
+     */
+    static void skipElement(final XMLStreamReader xml) throws XMLStreamException {
+        for (int depth = 1; depth > 0; ) {
+            int type = xml.next();
+            if (type == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (type == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Reads the characters of a CharSequence, without copying it to a String.
+     */
+    private static final class CharSequenceReader extends Reader {
+        private final CharSequence chars;
+        private final int end;
+        private int position;
+
+        CharSequenceReader(final CharSequence chars, final int end) {
+            this.chars = chars;
+            this.end = end;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (position >= end) {
+                return -1;
+            }
+            int count = Math.min(length, end - position);
+            if (chars instanceof StringBuilder) {
+                ((StringBuilder) chars).getChars(position, position + count, buffer, offset);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    buffer[offset + i] = chars.charAt(position + i);
+                }
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * Reads a stream of records as a single document: the stream, after the XML
+     * declaration, doctype and comments at its start, wrapped in a root element.
+     */
+    private static final class FragmentReader extends Reader {
+        private final Reader in;
+        /**
+         * Characters to return before reading more of the stream.
+         */
+        private String next = ROOT_START;
+
+        private boolean started;
+        private boolean ended;
+
+        FragmentReader(final Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (next.isEmpty()) {
+                if (!started) {
+                    started = true;
+                    next = skipProlog();
+                    if (!next.isEmpty()) {
+                        return read(buffer, offset, length);
+                    }
+                }
+                int count = ended ? -1 : in.read(buffer, offset, length);
+                if (count >= 0) {
+                    return count;
+                }
+                if (ended) {
+                    return -1;
+                }
+                ended = true;
+                next = ROOT_END;
+            }
+            int count = Math.min(length, next.length());
+            next.getChars(0, count, buffer, offset);
+            next = next.substring(count);
+            return count;
+        }
+
+        /**
+         * Skips whitespace, the XML declaration, doctype and comments.
+         *
+         * @return the characters read after them
+         */
+        private String skipProlog() throws IOException {
+            while (true) {
+                int c = in.read();
+                while (c >= 0 && Character.isWhitespace(c)) {
+                    c = in.read();
+                }
+                if (c != '<') {
+                    return c < 0 ? "" : String.valueOf((char) c);
+                }
+                int c2 = in.read();
+                if (c2 == '?') {
+                    skipPast("?>");
+                } else if (c2 == '!') {
+                    int c3 = in.read();
+                    if (c3 == '-') {
+                        skipPast("-->");
+                    } else {
+                        skipDeclaration();
+                    }
+                } else {
+                    return c2 < 0 ? "<" : "<" + (char) c2;
+                }
+            }
+        }
+
+        private void skipPast(final String end) throws IOException {
+            StringBuilder last = new StringBuilder();
+            int c;
+            while ((c = in.read()) >= 0) {
+                last.append((char) c);
+                if (last.length() > end.length()) {
+                    last.deleteCharAt(0);
+                }
+                if (end.contentEquals(last)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Skips a doctype, including an internal subset.
+         */
+        private void skipDeclaration() throws IOException {
+            int brackets = 0;
+            int c;
+            while ((c = in.read()) >= 0) {
+                if (c == '[') {
+                    brackets++;
+                } else if (c == ']') {
+                    brackets--;
+                } else if (c == '>' && brackets <= 0) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.chainsaw.color.RuleColorizer;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.rule.ExpressionRule;
+import org.junit.Test;
+
+/**
+ * Tests for ChainsawCyclicBufferTableModel.
+ */
+public class ChainsawCyclicBufferTableModelTest {
+    private static final int EVENT_COUNT = 50000;
+
+    // the columns of ChainsawColumns, which creates a cursor and so needs a display
+    private static final List<String> COLUMNS = Arrays.asList(
+            ChainsawConstants.TIMESTAMP_COL_NAME,
+            ChainsawConstants.LOG4J_MARKER_COL_NAME,
+            ChainsawConstants.LEVEL_COL_NAME,
+            ChainsawConstants.LOGGER_COL_NAME,
+            ChainsawConstants.MESSAGE_COL_NAME,
+            ChainsawConstants.ID_COL_NAME);
+
+    private static ChainsawCyclicBufferTableModel createModel(EventStore store) {
+        return new ChainsawCyclicBufferTableModel(store, "test", COLUMNS);
+    }
+
+    private static EventStore createStore() {
+        EventStore store = new EventStore(EVENT_COUNT, new RuleColorizer());
+        List<LoggingEventWrapper> wrappers = new ArrayList<>();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            wrappers.add(new LoggingEventWrapper(new ChainsawLoggingEventBuilder()
+                    .setTimestamp(Instant.ofEpochMilli(i))
+                    .setLevel(i % 3 == 0 ? Level.WARN : Level.INFO)
+                    .setLogger("org.example.Logger" + (i % 10))
+                    .setMessage("message " + i)
+                    .create()));
+        }
+        store.addAll(wrappers);
+        return store;
+    }
+
+    private static CountDownLatch awaitRefilter(ChainsawCyclicBufferTableModel model) {
+        CountDownLatch done = new CountDownLatch(1);
+        model.addPropertyChangeListener("refilter", evt -> {
+            if (Boolean.FALSE.equals(evt.getNewValue())) {
+                done.countDown();
+            }
+        });
+        return done;
+    }
+
+    @Test
+    public void testRefilterKeepsStoreOrder() throws InterruptedException {
+        ChainsawCyclicBufferTableModel model = createModel(createStore());
+        RuleMediator ruleMediator = new RuleMediator(false);
+        ruleMediator.setFilterRule(ExpressionRule.getRule("level == WARN && logger like .*Logger[0-4]"));
+        CountDownLatch done = awaitRefilter(model);
+        model.setRuleMediator(ruleMediator);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        List<LoggingEventWrapper> rows = model.getFilteredEvents();
+        int expected = 0;
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            if (i % 3 == 0 && i % 10 < 5) {
+                assertEquals("message " + i, rows.get(expected).getLoggingEvent().m_message);
+                expected++;
+            }
+        }
+        assertEquals(expected, rows.size());
+        assertEquals(2999, model.getRowIndex(rows.get(2999)));
+    }
+
+    @Test
+    public void testNewerRefilterReplacesRunningOne() throws InterruptedException {
+        ChainsawCyclicBufferTableModel model = createModel(createStore());
+        RuleMediator ruleMediator = new RuleMediator(false);
+        model.setRuleMediator(ruleMediator);
+        ruleMediator.setFilterRule(ExpressionRule.getRule("level == INFO"));
+        ruleMediator.setFilterRule(ExpressionRule.getRule("msg ~= 'message 4'"));
+        // abandoned refilters stop appending, so only the newest one can reach its row count
+        long deadline = System.currentTimeMillis() + 30000;
+        while (model.getFilteredEvents().size() != 11111 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        List<LoggingEventWrapper> rows = model.getFilteredEvents();
+        for (LoggingEventWrapper row : rows) {
+            assertTrue(row.getLoggingEvent().m_message.startsWith("message 4"));
+        }
+        // 4, 40-49, 400-499, 4000-4999, 40000-49999
+        assertEquals(11111, rows.size());
+    }
+
+    @Test
+    public void testSortedViewMergesNewRows() throws InterruptedException {
+        EventStore store = createStore();
+        ChainsawCyclicBufferTableModel model = createModel(store);
+        CountDownLatch done = awaitRefilter(model);
+        model.setRuleMediator(new RuleMediator(false));
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        model.sortColumn(ChainsawColumns.INDEX_LOGGER_COL_NAME - 1, true);
+
+        List<LoggingEventWrapper> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new LoggingEventWrapper(new ChainsawLoggingEventBuilder()
+                    .setTimestamp(Instant.ofEpochMilli(EVENT_COUNT + i))
+                    .setLevel(Level.INFO)
+                    .setLogger("org.example.Logger" + (i % 12))
+                    .setMessage("new " + i)
+                    .create()));
+        }
+        store.addAll(batch);
+        for (LoggingEventWrapper loggingEventWrapper : batch) {
+            assertTrue(model.isAddRow(loggingEventWrapper));
+        }
+        model.sort();
+
+        List<LoggingEventWrapper> rows = model.getFilteredEvents();
+        // the new rows replaced the oldest ones
+        assertEquals(EVENT_COUNT, rows.size());
+        for (int i = 1; i < rows.size(); i++) {
+            String previous = rows.get(i - 1).getLoggingEvent().m_logger;
+            assertTrue(previous.compareToIgnoreCase(rows.get(i).getLoggingEvent().m_logger) <= 0);
+            assertEquals(i, model.getRowIndex(rows.get(i)));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.chainsaw.logevents.LocationInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for EventOverflowStore.
+ */
+public class EventOverflowStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ChainsawLoggingEvent createEvent(int i) {
+        ChainsawLoggingEvent event = new ChainsawLoggingEventBuilder()
+                .setTimestamp(Instant.ofEpochSecond(1000 + i, 123456789))
+                .setLevel(Level.WARN)
+                .setLogger("org.example.Logger" + i)
+                .setThreadName("main")
+                .setMessage("message é " + i)
+                .setLocationInfo(new LocationInfo("Example.java", "org.example.Example", "run", i))
+                .addMDCEntry("user", "u" + i)
+                .create();
+        event.setProperty("log4jid", String.valueOf(i));
+        return event;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        EventOverflowStore store = new EventOverflowStore(folder.getRoot().toPath(), 1 << 20, 4096);
+        long first = store.write(createEvent(1));
+        long second = store.write(createEvent(2));
+        assertNotEquals(first, second);
+
+        ChainsawLoggingEvent event = store.read(second);
+        assertEquals(Instant.ofEpochSecond(1002, 123456789), event.m_timestamp);
+        assertEquals(Level.WARN, event.m_level);
+        assertEquals("org.example.Logger2", event.m_logger);
+        assertEquals("main", event.m_threadName);
+        assertEquals("message é 2", event.m_message);
+        assertNull(event.m_ndc);
+        assertEquals("run", event.m_locationInfo.methodName);
+        assertEquals(2, event.m_locationInfo.lineNumber);
+        assertEquals("u2", event.m_mdc.get("user"));
+        assertEquals("2", event.getProperty("log4jid"));
+        store.close();
+    }
+
+    @Test
+    public void testDiskBudget() {
+        EventOverflowStore store = new EventOverflowStore(folder.getRoot().toPath(), 3 * 4096, 4096);
+        long firstHandle = store.write(createEvent(0));
+        long handle = firstHandle;
+        int written = 1;
+        while (handle >= 0) {
+            handle = store.write(createEvent(written++));
+        }
+        // three segments were filled and a fourth would exceed the budget
+        assertEquals(3 * 4096, store.getDiskUsage());
+        assertEquals(0, store.getOldestSegmentNumber());
+
+        store.deleteOldestSegment();
+        assertNull(store.read(firstHandle));
+        assertTrue(store.write(createEvent(written)) >= 0);
+        assertEquals(3, EventOverflowStore.segmentNumber(store.write(createEvent(written))));
+
+        store.deleteSegmentsBefore(3);
+        assertEquals(3, store.getOldestSegmentNumber());
+        assertEquals(4096, store.getDiskUsage());
+        store.close();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.log4j.chainsaw.color.RuleColorizer;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.junit.Test;
+
+/**
+ * Tests for EventStore.
+ */
+public class EventStoreTest {
+
+    @Test
+    public void testResizesOverflowInPlace() {
+        EventStore store = new EventStore(10000, new RuleColorizer());
+        store.setOverflow(1000, 1024 * 1024);
+        List<LoggingEventWrapper> batch = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            batch.add(new LoggingEventWrapper(new ChainsawLoggingEventBuilder()
+                    .setTimestamp(Instant.ofEpochMilli(i))
+                    .setLevel(Level.INFO)
+                    .setMessage("message " + i)
+                    .create()));
+        }
+        store.addAll(batch);
+        assertEquals(4000, countInOverflow(store));
+
+        // a larger window only reads the events it takes in back
+        store.setOverflow(3000, 1024 * 1024);
+        assertEquals(2000, countInOverflow(store));
+        assertTrue(store.get(1999).isInOverflow());
+        assertFalse(store.get(2000).isInOverflow());
+
+        store.setOverflow(500, 1024 * 1024);
+        assertEquals(4500, countInOverflow(store));
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals("message " + i, store.get(i).getLoggingEvent().m_message);
+        }
+
+        // a lower budget evicts the events of the oldest segments
+        store.setOverflow(500, 300 * 1024);
+        assertTrue(store.size() < 5000);
+        int first = 5000 - store.size();
+        assertEquals("message " + first, store.get(0).getLoggingEvent().m_message);
+        assertEquals(store.size() - 500, countInOverflow(store));
+
+        store.setOverflow(0, 300 * 1024);
+        assertEquals(0, countInOverflow(store));
+        assertFalse(store.isOverflowEnabled());
+    }
+
+    private static int countInOverflow(EventStore store) {
+        int count = 0;
+        for (int i = 0; i < store.size(); i++) {
+            if (store.get(i).isInOverflow()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests for RingBuffer.
+ */
+public class RingBufferTest {
+
+    @Test
+    public void testEvictsOldestWhenFull() {
+        List<Integer> evicted = new ArrayList<>();
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        buffer.setEvictionListener(evicted::add);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i);
+        }
+        assertEquals(List.of(2, 3, 4), buffer);
+        assertEquals(List.of(0, 1), evicted);
+        assertEquals(2, buffer.getFirstSequence());
+        assertTrue(buffer.isFull());
+    }
+
+    @Test
+    public void testAddAllWrapsAndEvicts() {
+        List<Integer> evicted = new ArrayList<>();
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        buffer.setEvictionListener(evicted::add);
+        buffer.addAll(List.of(0, 1, 2));
+        buffer.addAll(List.of(3, 4, 5));
+        assertEquals(List.of(2, 3, 4, 5), buffer);
+        assertEquals(List.of(0, 1), evicted);
+
+        // more elements than fit: the new ones which don't survive are evicted too
+        buffer.addAll(List.of(6, 7, 8, 9, 10, 11));
+        assertEquals(List.of(8, 9, 10, 11), buffer);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), evicted);
+        assertEquals(8, buffer.getFirstSequence());
+    }
+
+    @Test
+    public void testIndexOfSequence() {
+        RingBuffer<String> buffer = new RingBuffer<>(2);
+        buffer.add("a");
+        buffer.add("b");
+        buffer.add("c");
+        assertEquals(-1, buffer.indexOfSequence(0));
+        assertEquals(0, buffer.indexOfSequence(1));
+        assertEquals(1, buffer.indexOfSequence(2));
+        assertEquals(-1, buffer.indexOfSequence(3));
+        assertEquals("b", buffer.pollFirst());
+        assertEquals(0, buffer.indexOfSequence(2));
+    }
+
+    @Test
+    public void testUnboundedGrows() {
+        RingBuffer<Integer> buffer = new RingBuffer<>();
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i);
+        }
+        buffer.pollFirst();
+        buffer.addAll(List.of(100, 101));
+        assertEquals(101, buffer.size());
+        assertEquals(Integer.valueOf(1), buffer.get(0));
+        assertEquals(Integer.valueOf(101), buffer.get(100));
+    }
+
+    @Test
+    public void testRemoveAndSort() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(5);
+        for (int i = 0; i < 7; i++) {
+            buffer.add(i);
+        }
+        assertEquals(Integer.valueOf(3), buffer.remove(1));
+        assertEquals(Integer.valueOf(5), buffer.remove(2));
+        assertEquals(List.of(2, 4, 6), buffer);
+
+        buffer.sort(Comparator.reverseOrder());
+        assertEquals(List.of(6, 4, 2), buffer);
+        buffer.add(7);
+        assertEquals(List.of(6, 4, 2, 7), buffer);
+
+        buffer.clear();
+        assertNull(buffer.pollFirst());
+        assertEquals(0, buffer.getFirstSequence());
+    }
+
+    @Test
+    public void testInsertSorted() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(10);
+        // wrap the backing array first
+        buffer.addAll(List.of(0, 0, 0, 10, 20, 30));
+        buffer.pollFirst();
+        buffer.pollFirst();
+        buffer.pollFirst();
+
+        int[] inserted = buffer.insertSorted(List.of(5, 20, 20, 40), Comparator.naturalOrder());
+        assertEquals(List.of(5, 10, 20, 20, 20, 30, 40), buffer);
+        // equal elements go after those already in the buffer
+        assertArrayEquals(new int[] {0, 3, 4, 6}, inserted);
+        assertEquals(3, buffer.getFirstSequence());
+    }
+}
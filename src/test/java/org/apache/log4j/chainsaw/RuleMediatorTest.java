@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.log4j.rule.ExpressionRule;
+import org.junit.Test;
+
+/**
+ * Tests for RuleMediator.
+ */
+public class RuleMediatorTest {
+
+    @Test
+    public void testFingerprintBuiltOncePerRuleChange() {
+        RuleMediator ruleMediator = new RuleMediator(false);
+        ruleMediator.setFilterRule(ExpressionRule.getRule("level == WARN"));
+        String fingerprint = ruleMediator.getFingerprint();
+        assertNotNull(fingerprint);
+        // checked for every ingested event, so it must not be rebuilt
+        assertSame(fingerprint, ruleMediator.getFingerprint());
+
+        ruleMediator.setFilterRule(ExpressionRule.getRule("level == ERROR"));
+        assertFalse(fingerprint.equals(ruleMediator.getFingerprint()));
+        ruleMediator.setFilterRule(ExpressionRule.getRule("level == WARN"));
+        assertSame(ruleMediator.getFingerprint(), ruleMediator.getFingerprint());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for RuleOutcomeCache.
+ */
+public class RuleOutcomeCacheTest {
+
+    @Test
+    public void testRecordAndEvict() {
+        RuleOutcomeCache cache = new RuleOutcomeCache(100);
+        RuleOutcomeCache.Outcomes outcomes = cache.get("level == WARN");
+        assertFalse(outcomes.isKnown(70));
+
+        outcomes.record(70, true);
+        outcomes.record(71, false);
+        assertTrue(outcomes.isKnown(70));
+        assertTrue(outcomes.isMatched(70));
+        assertTrue(outcomes.isKnown(71));
+        assertFalse(outcomes.isMatched(71));
+
+        // the slot's next event starts unknown, even if recorded as not matching
+        cache.evicted(70);
+        assertFalse(outcomes.isKnown(70));
+        outcomes.record(70, false);
+        assertFalse(outcomes.isMatched(70));
+        assertTrue(outcomes.isKnown(71));
+        assertSame(outcomes, cache.get("level == WARN"));
+    }
+
+    @Test
+    public void testKeepsRecentlyUsedRules() {
+        RuleOutcomeCache cache = new RuleOutcomeCache(10);
+        RuleOutcomeCache.Outcomes first = cache.get("rule 0");
+        RuleOutcomeCache.Outcomes second = cache.get("rule 1");
+        for (int i = 2; i < 40; i++) {
+            // keep using the first rule only
+            assertSame(first, cache.get("rule 0"));
+            cache.get("rule " + i);
+        }
+        assertSame(first, cache.get("rule 0"));
+        assertNotSame(second, cache.get("rule 1"));
+
+        cache.clear();
+        assertNotSame(first, cache.get("rule 0"));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.color;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.time.Instant;
+import java.util.Arrays;
+import org.apache.log4j.chainsaw.ChainsawConstants;
+import org.apache.log4j.chainsaw.LoggingEventWrapper;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.rule.ColorRule;
+import org.apache.log4j.rule.ExpressionRule;
+import org.junit.Test;
+
+/**
+ * Tests for RuleColorizer.
+ */
+public class RuleColorizerTest {
+
+    private static LoggingEventWrapper wrapper(Level level, String message) {
+        return new LoggingEventWrapper(new ChainsawLoggingEventBuilder()
+                .setTimestamp(Instant.ofEpochMilli(1000))
+                .setLevel(level)
+                .setLogger("org.example")
+                .setMessage(message)
+                .create());
+    }
+
+    private static ColorRule colorRule(String expression, Color background, Color foreground) {
+        return new ColorRule(expression, ExpressionRule.getRule(expression), background, foreground);
+    }
+
+    @Test
+    public void testColorsFromFirstMatchingRuleForEach() {
+        RuleColorizer colorizer = new RuleColorizer();
+        colorizer.setRules(Arrays.asList(
+                colorRule("level == ERROR && msg ~= disk", null, Color.red),
+                colorRule("msg ~= disk", Color.yellow, Color.black),
+                colorRule("level == ERROR", Color.pink, Color.blue)));
+
+        LoggingEventWrapper wrapper = wrapper(Level.ERROR, "disk full");
+        colorizer.updateColors(wrapper);
+        assertEquals(Color.yellow, wrapper.getBackground());
+        assertEquals(Color.red, wrapper.getForeground());
+        assertEquals(colorizer.getBackgroundColor(wrapper.getLoggingEvent()), wrapper.getBackground());
+        assertEquals(colorizer.getForegroundColor(wrapper.getLoggingEvent()), wrapper.getForeground());
+
+        wrapper = wrapper(Level.ERROR, "connection lost");
+        colorizer.updateColors(wrapper);
+        assertEquals(Color.pink, wrapper.getBackground());
+        assertEquals(Color.blue, wrapper.getForeground());
+
+        wrapper = wrapper(Level.INFO, "started");
+        colorizer.updateColors(wrapper);
+        assertEquals(ChainsawConstants.COLOR_DEFAULT_BACKGROUND, wrapper.getBackground());
+        assertEquals(ChainsawConstants.COLOR_DEFAULT_FOREGROUND, wrapper.getForeground());
+    }
+}
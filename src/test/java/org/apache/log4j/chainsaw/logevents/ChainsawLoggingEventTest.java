@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.logevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * Tests for the property storage of ChainsawLoggingEvent.
+ */
+public class ChainsawLoggingEventTest {
+
+    private static ChainsawLoggingEvent createEvent() {
+        return new ChainsawLoggingEventBuilder().setMessage("message").create();
+    }
+
+    @Test
+    public void testProperties() {
+        ChainsawLoggingEvent event = createEvent();
+        for (int i = 0; i < 10; i++) {
+            event.setProperty("key" + i, "value" + i);
+        }
+        event.setProperty("key3", "changed");
+        assertEquals("changed", event.getProperty("key3"));
+        assertEquals("value9", event.getProperty("key9"));
+        assertEquals("value5", event.removeProperty("key5"));
+        assertNull(event.getProperty("key5"));
+        assertEquals("value6", event.getProperty("key6"));
+        assertEquals(9, event.getPropertyKeySet().size());
+        assertNull(event.removeProperty("missing"));
+    }
+
+    @Test
+    public void testNumericBookkeepingProperties() {
+        ChainsawLoggingEvent event = createEvent();
+        assertEquals(ChainsawLoggingEvent.NO_VALUE, event.getLog4jId());
+        assertNull(event.getProperty("log4jid"));
+
+        event.setProperty("log4jid", "42");
+        event.setMillisDelta(-7);
+        assertEquals(42, event.getLog4jId());
+        assertEquals("42", event.getProperty("log4jid"));
+        assertEquals("-7", event.getProperty("millisdelta"));
+        assertEquals(Set.of("log4jid", "millisdelta"), event.getPropertyKeySet());
+        assertEquals(Map.of("log4jid", "42", "millisdelta", "-7"), event.getProperties());
+
+        // values which wouldn't print the same are kept as strings
+        event.setProperty("log4jid", "007");
+        assertEquals(ChainsawLoggingEvent.NO_VALUE, event.getLog4jId());
+        assertEquals("007", event.getProperty("log4jid"));
+        event.setLog4jId(8);
+        assertEquals("8", event.getProperty("log4jid"));
+        assertEquals(2, event.getPropertyKeySet().size());
+
+        assertEquals("-7", event.removeProperty("millisdelta"));
+        assertEquals(ChainsawLoggingEvent.NO_VALUE, event.getMillisDelta());
+    }
+
+    @Test
+    public void testNumericPropertyValues() {
+        ChainsawLoggingEvent event = createEvent();
+        for (int i = 0; i < 10; i++) {
+            event.setProperty("size" + i, String.valueOf(i * 100));
+        }
+        event.setProperty("name", "not a number");
+        event.setProperty("Offset", "-12");
+        event.setProperty("size3", "+3");
+        event.setLog4jId(5);
+
+        assertEquals(3, event.getPropertyAsLong("size3"));
+        assertEquals(ChainsawLoggingEvent.NO_VALUE, event.getPropertyAsLong("name"));
+        assertEquals(-12, event.getPropertyAsLong("OFFSET"));
+        assertEquals(5, event.getPropertyAsLong("LOG4JID"));
+        assertEquals(ChainsawLoggingEvent.NO_VALUE, event.getPropertyAsLong("missing"));
+
+        event.removeProperty("size2");
+        assertEquals(900, event.getPropertyAsLong("size9"));
+        event.setProperty("size9", "99999999999999999999");
+        assertEquals(ChainsawLoggingEvent.NO_VALUE, event.getPropertyAsLong("size9"));
+    }
+
+    @Test
+    public void testPropertiesReadWhileChanged() throws Exception {
+        ChainsawLoggingEvent event = createEvent();
+        event.setProperty("host", "alpha");
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        // a marker toggled on one thread while a refilter reads the event on another
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100000; i++) {
+                    event.setProperty("marker" + (i % 4), "set");
+                    event.removeProperty("marker" + ((i + 2) % 4));
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            } finally {
+                done.set(true);
+            }
+        });
+        writer.start();
+        while (!done.get()) {
+            try {
+                assertEquals("alpha", event.getProperty("host"));
+                assertEquals("alpha", event.getPropertyIgnoreCase("HOST"));
+                assertEquals(ChainsawLoggingEvent.NO_VALUE, event.getPropertyAsLong("Marker1"));
+                event.forEachProperty((key, value) -> assertNotNull(key));
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+                break;
+            }
+        }
+        writer.join();
+        assertNull(failure.get());
+    }
+}
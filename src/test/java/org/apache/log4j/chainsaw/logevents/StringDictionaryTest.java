@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.logevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Tests for StringDictionary.
+ */
+public class StringDictionaryTest {
+
+    @Test
+    public void testInternReturnsCanonicalInstance() {
+        StringDictionary dictionary = new StringDictionary(10);
+        String first = dictionary.intern(new String("org.example.Foo"));
+        String second = dictionary.intern(new String("org.example.Foo"));
+        assertSame(first, second);
+        assertEquals(0, dictionary.idOf("org.example.Foo"));
+        assertEquals(1, dictionary.idOf("org.example.Bar"));
+        assertEquals("org.example.Bar", dictionary.valueOf(1));
+        assertNull(dictionary.valueOf(2));
+        assertNull(dictionary.intern(null));
+    }
+
+    @Test
+    public void testBounded() {
+        StringDictionary dictionary = new StringDictionary(2);
+        dictionary.intern("a");
+        dictionary.intern("b");
+        String c = new String("c");
+        assertSame(c, dictionary.intern(c));
+        assertNotSame(c, dictionary.intern(new String("c")));
+        assertEquals(StringDictionary.NO_ID, dictionary.idOf("c"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void testBuilderInternsFields() {
+        ChainsawLoggingEvent first = new ChainsawLoggingEventBuilder()
+                .setLogger(new String("org.example.Logger"))
+                .setThreadName(new String("main"))
+                .setMDC(Map.of(new String("user"), "alice"))
+                .create();
+        ChainsawLoggingEvent second = new ChainsawLoggingEventBuilder()
+                .setLogger(new String("org.example.Logger"))
+                .setThreadName(new String("main"))
+                .addMDCEntry(new String("user"), "bob")
+                .create();
+        assertSame(first.m_logger, second.m_logger);
+        assertSame(first.m_threadName, second.m_threadName);
+        assertSame(
+                first.m_mdc.keySet().iterator().next(),
+                second.m_mdc.keySet().iterator().next());
+        assertEquals(first.m_loggerId, second.m_loggerId);
+        assertEquals("org.example.Logger", StringDictionary.LOGGERS.valueOf(first.m_loggerId));
+    }
+
+    @Test
+    public void testBuilderKeepsMDCWithInternedKeys() {
+        Map<String, String> mdc = new HashMap<>();
+        mdc.put(StringDictionary.KEYS.intern(new String("session")), "s1");
+        ChainsawLoggingEvent event =
+                new ChainsawLoggingEventBuilder().setMDC(mdc).create();
+        assertSame(mdc, event.m_mdc);
+
+        // adding to a kept map copies it first
+        ChainsawLoggingEvent added = new ChainsawLoggingEventBuilder()
+                .setMDC(mdc)
+                .addMDCEntry("other", "value")
+                .create();
+        assertNotSame(mdc, added.m_mdc);
+        assertEquals(1, mdc.size());
+        assertEquals(2, added.m_mdc.size());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.receiver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests for BoundedRingQueue.
+ */
+public class BoundedRingQueueTest {
+
+    @Test
+    public void testCapacityRoundedToPowerOfTwo() {
+        assertEquals(2, new BoundedRingQueue<String>(1).capacity());
+        assertEquals(8, new BoundedRingQueue<String>(5).capacity());
+        assertEquals(16, new BoundedRingQueue<String>(16).capacity());
+    }
+
+    @Test
+    public void testFifoAndFull() {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, queue.drainTo(drained, 10));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final int producers = 4;
+        final int perProducer = 50000;
+        final int capacity = 1024;
+        final BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(capacity);
+        // producers take a free slot before offering and the consumer takes a filled one before polling,
+        // so neither side has to spin
+        final Semaphore free = new Semaphore(capacity);
+        final Semaphore filled = new Semaphore(0);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger rejected = new AtomicInteger();
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        free.acquire();
+                        if (!queue.offer(i)) {
+                            rejected.incrementAndGet();
+                        }
+                        filled.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+
+        long total = 0;
+        for (int received = 0; received < producers * perProducer; received++) {
+            filled.acquire();
+            Integer value;
+            int extra = 0;
+            while ((value = queue.poll()) == null) {
+                // the head slot is still being written by an offer which has not completed - wait for the next
+                // completed offer and try again
+                filled.acquire();
+                extra++;
+            }
+            filled.release(extra);
+            total += value;
+            free.release();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, rejected.get());
+        assertEquals((long) producers * perProducer * (perProducer - 1) / 2, total);
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.chainsaw.receiver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.junit.Test;
+
+/**
+ * Tests for the work queue of ChainsawReceiverSkeleton.
+ */
+public class ChainsawReceiverSkeletonTest {
+
+    private static final class TestReceiver extends ChainsawReceiverSkeleton {
+        @Override
+        public void start() {}
+
+        @Override
+        public void shutdown() {}
+    }
+
+    @Test
+    public void testResizeWhileEventsArriveLosesNothing() throws Exception {
+        final int producers = 4;
+        final int perProducer = 50000;
+        TestReceiver receiver = new TestReceiver();
+        receiver.setQueueInterval(0);
+        AtomicLong received = new AtomicLong();
+        receiver.addChainsawEventBatchListener(events -> received.addAndGet(events.size()));
+        ChainsawLoggingEvent event = new ChainsawLoggingEventBuilder()
+                .setLevel(Level.INFO)
+                .setMessage("message")
+                .create();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    receiver.append(event);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        int resizes = 0;
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            receiver.setQueueCapacity(resizes++ % 2 == 0 ? 1024 : 65536);
+            Thread.sleep(1);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = (long) producers * perProducer;
+        assertEquals(total, receiver.getEnqueuedEventCount());
+        long deadline = System.currentTimeMillis() + 30000;
+        while (received.get() + receiver.getDroppedEventCount() < total && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // events only drop when a smaller queue can't take the backlog of the old one
+        assertEquals(total, received.get() + receiver.getDroppedEventCount());
+        assertTrue(received.get() > 0);
+    }
+}
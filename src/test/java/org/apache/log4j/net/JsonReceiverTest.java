@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.junit.Test;
+
+/**
+ * Tests for JsonReceiver.
+ */
+public class JsonReceiverTest {
+
+    @Test
+    public void testReadsConcurrentConnections() throws Exception {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        JsonReceiver receiver = new JsonReceiver();
+        receiver.setPort(port);
+        List<ChainsawLoggingEvent> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(11);
+        receiver.addChainsawEventBatchListener(events -> {
+            received.addAll(events);
+            events.forEach(event -> latch.countDown());
+        });
+        receiver.start();
+        try (Socket idle = connect(port)) {
+            // a client which stays connected doesn't hold up the others
+            send(idle, "idle");
+            for (int i = 0; i < 10; i++) {
+                try (Socket client = connect(port)) {
+                    send(client, "client " + i);
+                }
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(11, received.size());
+
+            ReceiverConnection connection = receiver.getConnections().stream()
+                    .filter(c -> c.getEventCount() == 1 && c.getRemoteAddress().endsWith(":" + idle.getLocalPort()))
+                    .findFirst()
+                    .orElseThrow();
+            assertTrue(connection.getByteCount() > 0);
+        } finally {
+            receiver.shutdown();
+        }
+    }
+
+    private static Socket connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new Socket("localhost", port);
+            } catch (IOException e) {
+                if (attempt == 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static void send(Socket socket, String message) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(("{\"@timestamp\":\"2024-05-17T10:30:15Z\",\"log.level\":\"INFO\",\"message\":\"" + message
+                        + "\",\"process.thread.name\":\"main\",\"log.logger\":\"test\"}\n")
+                .getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests for UDPReceiver.
+ */
+public class UDPReceiverTest {
+
+    @Test
+    public void testDecodesAndCountsPackets() throws Exception {
+        int port;
+        try (DatagramSocket probe = new DatagramSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        UDPReceiver receiver = new UDPReceiver();
+        receiver.setPort(port);
+        receiver.setReceiveBufferSize(1024 * 1024);
+        Set<String> messages = new TreeSet<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        receiver.addChainsawEventBatchListener(events -> {
+            synchronized (messages) {
+                events.forEach(event -> messages.add(event.m_message));
+            }
+            events.forEach(event -> latch.countDown());
+        });
+        receiver.start();
+        try (DatagramSocket sender = new DatagramSocket()) {
+            InetAddress localhost = InetAddress.getLoopbackAddress();
+            send(sender, localhost, port, "not an event</log4j:event>");
+            for (int i = 0; i < 100; i++) {
+                send(
+                        sender,
+                        localhost,
+                        port,
+                        "<log4j:event logger=\"x\" timestamp=\"1\" level=\"INFO\" thread=\"main\">"
+                                + "<log4j:message>event " + i + "</log4j:message></log4j:event>");
+                if (i % 10 == 0) {
+                    // the loopback drops packets too, if the receiver can't keep up
+                    Thread.sleep(5);
+                }
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            assertEquals(100, messages.size());
+            assertEquals(101, receiver.getPacketCount());
+            assertEquals(0, receiver.getDroppedPacketCount());
+            assertEquals(1, receiver.getDecodeFailureCount());
+            if (Files.isReadable(Paths.get("/proc/net/udp"))) {
+                assertEquals(0, receiver.getSystemDroppedPacketCount());
+            }
+        } finally {
+            receiver.shutdown();
+        }
+    }
+
+    private static void send(DatagramSocket sender, InetAddress address, int port, String data) throws Exception {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        sender.send(new DatagramPacket(bytes, bytes.length, address, port));
+    }
+}
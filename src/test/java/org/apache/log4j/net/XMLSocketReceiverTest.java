@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.spi.Decoder;
+import org.junit.Test;
+
+/**
+ * Tests for XMLSocketReceiver.
+ */
+public class XMLSocketReceiverTest {
+
+    @Test
+    public void testReadsConcurrentConnections() throws Exception {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        XMLSocketReceiver receiver = new XMLSocketReceiver();
+        receiver.setPort(port);
+        receiver.setDecoder(LineDecoder.class.getName());
+        List<ChainsawLoggingEvent> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(12);
+        receiver.addChainsawEventBatchListener(events -> {
+            received.addAll(events);
+            events.forEach(event -> latch.countDown());
+        });
+        receiver.start();
+        try (Socket idle = connect(port)) {
+            // a client which stays connected doesn't hold up the others, and the
+            // event it sends in two parts, with a character split between them, is
+            // decoded once it is complete
+            byte[] split = "café\n".getBytes(StandardCharsets.UTF_8);
+            send(idle, split, 0, 4);
+            for (int i = 0; i < 10; i++) {
+                try (Socket client = connect(port)) {
+                    byte[] line = ("client " + i + "\n").getBytes(StandardCharsets.UTF_8);
+                    send(client, line, 0, line.length);
+                }
+            }
+            Thread.sleep(100);
+            send(idle, split, 4, split.length - 4);
+            send(idle, "idle\n".getBytes(StandardCharsets.UTF_8), 0, 5);
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            Set<String> messages = new TreeSet<>();
+            received.forEach(event -> messages.add(event.m_message));
+            assertEquals(12, messages.size());
+            assertTrue(messages.contains("café"));
+            assertEquals(
+                    2,
+                    receiver.getConnections().stream()
+                            .filter(c -> c.getRemoteAddress().endsWith(":" + idle.getLocalPort()))
+                            .findFirst()
+                            .orElseThrow()
+                            .getEventCount());
+        } finally {
+            receiver.shutdown();
+        }
+    }
+
+    private static Socket connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new Socket("localhost", port);
+            } catch (IOException e) {
+                if (attempt == 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static void send(Socket socket, byte[] bytes, int offset, int length) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(bytes, offset, length);
+        out.flush();
+    }
+
+    /**
+     * Decodes each line into an event with the line as message.
+     */
+    public static class LineDecoder implements Decoder {
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public Vector<ChainsawLoggingEvent> decodeEvents(String document) {
+            Vector<ChainsawLoggingEvent> events = new Vector<>();
+            partial.append(document);
+            int end;
+            while ((end = partial.indexOf("\n")) >= 0) {
+                events.add(decode(partial.substring(0, end)));
+                partial.delete(0, end + 1);
+            }
+            return events;
+        }
+
+        @Override
+        public ChainsawLoggingEvent decode(String event) {
+            return new ChainsawLoggingEventBuilder().setMessage(event).create();
+        }
+
+        @Override
+        public Vector<ChainsawLoggingEvent> decode(URL url) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setAdditionalProperties(Map<String, String> additionalProperties) {}
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.junit.Test;
+
+/**
+ * Tests for the compiled expression cache of ExpressionRule.
+ */
+public class ExpressionRuleTest {
+
+    @Test
+    public void testSharesCompiledRules() {
+        ExpressionRule rule = (ExpressionRule) ExpressionRule.getRule("msg ~= 'two  spaces' && level == WARN");
+        ExpressionRule same = (ExpressionRule) ExpressionRule.getRule("  msg ~= 'two  spaces'   &&  level == WARN ");
+        // every caller gets its own rule, with its own listeners and statistics
+        assertNotSame(rule, same);
+        assertNotSame(rule.getCompiledRule(), same.getCompiledRule());
+        assertSame(rule.getFingerprint(), same.getFingerprint());
+        assertFalse(rule.getFingerprint()
+                .equals(((ExpressionRule) ExpressionRule.getRule("msg ~= 'two spaces' && level == WARN"))
+                        .getFingerprint()));
+
+        ChainsawLoggingEvent event = new ChainsawLoggingEventBuilder()
+                .setLevel(Level.WARN)
+                .setMessage("two spaces")
+                .create();
+        assertFalse(rule.evaluate(event, null));
+        assertTrue(
+                ExpressionRule.getRule("msg ~= 'two spaces' && level == WARN").evaluate(event, null));
+    }
+
+    @Test
+    public void testRemembersInvalidExpressions() {
+        Throwable cause = null;
+        for (int i = 0; i < 2; i++) {
+            try {
+                ExpressionRule.getRule("msg == 'a' &&");
+                fail("expected an invalid expression");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid"));
+                // the exception thrown while compiling is kept as the cause
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+                assertEquals(e.getMessage(), e.getCause().getMessage());
+                if (cause != null) {
+                    assertSame(cause, e.getCause());
+                }
+                cause = e.getCause();
+            }
+        }
+    }
+
+    @Test
+    public void testNormalize() {
+        assertEquals("level == WARN", ExpressionRule.normalize("  level   ==  WARN "));
+        assertEquals(
+                "msg == \"a  b\" || msg == 'c  d'", ExpressionRule.normalize("msg == \"a  b\"  ||  msg == 'c  d'"));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.spi.LoggingEventFieldResolver;
+import org.junit.Test;
+
+/**
+ * Tests for the numeric and timestamp inequality rules.
+ */
+public class InequalityRuleTest {
+
+    @Test
+    public void testComparesNumericProperties() {
+        ChainsawLoggingEvent event = new ChainsawLoggingEventBuilder().create();
+        event.setProperty("size", "250");
+        event.setProperty("name", "large");
+
+        assertTrue(InequalityRule.getRule(">", "PROP.size", "200").evaluate(event, null));
+        assertTrue(InequalityRule.getRule("<=", "PROP.SIZE", "250").evaluate(event, null));
+        assertFalse(InequalityRule.getRule("<", "PROP.size", "250").evaluate(event, null));
+        assertFalse(InequalityRule.getRule(">", "PROP.name", "0").evaluate(event, null));
+        assertFalse(InequalityRule.getRule(">", "PROP.missing", "0").evaluate(event, null));
+    }
+
+    @Test
+    public void testComparesTimestampsToTheSecond() {
+        LocalDateTime time = LocalDateTime.of(2020, 5, 17, 10, 30, 15, 600_000_000);
+        ChainsawLoggingEvent event = new ChainsawLoggingEventBuilder()
+                .setTimestamp(time.atZone(ZoneId.systemDefault()).toInstant())
+                .create();
+
+        assertTrue(TimestampEqualsRule.getRule("2020/05/17 10:30:15").evaluate(event, null));
+        assertFalse(TimestampEqualsRule.getRule("2020/05/17 10:30:16").evaluate(event, null));
+        assertTrue(TimestampInequalityRule.getRule(">=", "2020/05/17 10:30:15").evaluate(event, null));
+        assertFalse(TimestampInequalityRule.getRule(">", "2020/05/17 10:30:15").evaluate(event, null));
+
+        Map<String, Set<String>> matches = new HashMap<>();
+        assertTrue(TimestampInequalityRule.getRule("<", "2020/05/17 10:31:00").evaluate(event, matches));
+        assertEquals(
+                Set.of(String.valueOf(event.m_timestamp.toEpochMilli())),
+                matches.get(LoggingEventFieldResolver.TIMESTAMP_FIELD));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.junit.Test;
+
+/**
+ * Tests for LevelIndex.
+ */
+public class LevelIndexTest {
+    private static final Level[] LEVELS = {Level.DEBUG, Level.INFO, Level.INFO, Level.WARN, Level.ERROR};
+
+    @Test
+    public void testCandidatesAreTheMatches() {
+        Random random = new Random(11);
+        List<ChainsawLoggingEvent> events = new ArrayList<>();
+        LevelIndex index = new LevelIndex();
+        for (int i = 0; i < 20000; i++) {
+            Level level = LEVELS[random.nextInt(LEVELS.length)];
+            events.add(new ChainsawLoggingEventBuilder()
+                    .setLevel(level)
+                    .setMessage(i % 7 == 0 ? "timeout" : "ok")
+                    .create());
+            index.add(1000 + i, level);
+        }
+        // evict the oldest events, enough to shift the bitmaps down
+        int first = 12000;
+        index.removeBefore(1000 + first);
+
+        String[] expressions = {
+            "level >= WARN",
+            "level < INFO",
+            "level == ERROR",
+            "level != INFO",
+            "level == FATAL",
+            "level >= WARN && msg ~= timeout",
+            "msg ~= timeout && level <= DEBUG",
+            "level == DEBUG || level == ERROR"
+        };
+        for (String expression : expressions) {
+            Rule rule = ExpressionRule.getRule(expression);
+            long[] candidates = index.getCandidates(rule);
+            List<Long> expected = new ArrayList<>();
+            for (int i = first; i < events.size(); i++) {
+                if (rule.evaluate(events.get(i), null)) {
+                    expected.add(1000L + i);
+                    assertTrue(expression + " " + i, Arrays.binarySearch(candidates, 1000L + i) >= 0);
+                }
+            }
+            assertTrue(expression, candidates.length == 0 || candidates[0] >= 1000 + first);
+            if (!expression.contains("msg")) {
+                // the rules on the level alone are answered exactly
+                assertArrayEquals(
+                        expression, expected.stream().mapToLong(Long::longValue).toArray(), candidates);
+            }
+        }
+        assertNull(index.getCandidates(ExpressionRule.getRule("msg ~= timeout")));
+        assertNull(index.getCandidates(ExpressionRule.getRule("level >= WARN || msg ~= timeout")));
+    }
+
+    @Test
+    public void testCombinesWithMessageIndex() {
+        LevelIndex levels = new LevelIndex();
+        MessageTokenIndex messages = new MessageTokenIndex();
+        String[] texts = {"starting up", "connection timeout", "shutting down", "read timeout"};
+        Level[] eventLevels = {Level.INFO, Level.WARN, Level.INFO, null};
+        for (int i = 0; i < texts.length; i++) {
+            levels.add(i, eventLevels[i]);
+            messages.add(i, texts[i]);
+        }
+        Rule rule = ExpressionRule.getRule("level == WARN || msg ~= down");
+        assertNull(levels.getCandidates(rule));
+        assertArrayEquals(new long[] {1, 2, 3}, EventIndex.getCandidates(rule, levels, messages));
+        assertArrayEquals(
+                new long[] {1, 3},
+                EventIndex.getCandidates(ExpressionRule.getRule("level > INFO && msg ~= timeout"), levels, messages));
+
+        levels.clear();
+        levels.add(5, Level.ERROR);
+        assertArrayEquals(new long[] {5}, levels.getCandidates(ExpressionRule.getRule("level >= WARN")));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.junit.Test;
+
+/**
+ * Tests for MessageTokenIndex.
+ */
+public class MessageTokenIndexTest {
+    private static final String[] WORDS = {"Connection", "connection-pool", "timeout", "TIMEOUTS", "user=42", "ok"};
+
+    @Test
+    public void testCandidatesIncludeEveryMatch() {
+        Random random = new Random(7);
+        List<ChainsawLoggingEvent> events = new ArrayList<>();
+        MessageTokenIndex index = new MessageTokenIndex();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder message = new StringBuilder();
+            for (int w = random.nextInt(4); w >= 0; w--) {
+                message.append(WORDS[random.nextInt(WORDS.length)]).append(w > 0 ? " " : "");
+            }
+            events.add(new ChainsawLoggingEventBuilder()
+                    .setLevel(i % 3 == 0 ? Level.WARN : Level.INFO)
+                    .setMessage(message.toString())
+                    .create());
+            index.add(i, message.toString());
+        }
+        // evict the oldest events, enough to compact the posting lists
+        int first = 12000;
+        index.removeBefore(first);
+
+        String[] expressions = {
+            "msg ~= timeout",
+            "msg ~= 'out connection'",
+            "msg ~= '-pool '",
+            "msg ~= 'user=4'",
+            "msg ~= nothing",
+            "msg == ok",
+            "msg ~= pool && level == WARN",
+            "msg ~= ok || msg ~= 'user='",
+            "msg ~= ok || msg ~= 'user 42' || msg ~= 'timeouts connection'"
+        };
+        for (String expression : expressions) {
+            Rule rule = ExpressionRule.getRule(expression);
+            long[] candidates = index.getCandidates(rule);
+            List<Long> expected = new ArrayList<>();
+            for (int i = first; i < events.size(); i++) {
+                if (rule.evaluate(events.get(i), null)) {
+                    expected.add((long) i);
+                    assertTrue(expression + " " + i, Arrays.binarySearch(candidates, i) >= 0);
+                }
+            }
+            assertTrue(expression, candidates.length == 0 || candidates[0] >= first);
+            assertTrue(expression, candidates.length < events.size() - first || expected.size() > 4000);
+        }
+        assertArrayEquals(new long[0], index.getCandidates(ExpressionRule.getRule("msg ~= nothing")));
+        // numbers aren't indexed
+        assertNull(index.getCandidates(ExpressionRule.getRule("msg ~= ok || msg ~= 42")));
+    }
+
+    @Test
+    public void testOnlyNarrowsMessageRules() {
+        MessageTokenIndex index = new MessageTokenIndex();
+        index.add(0, "starting up");
+        index.add(1, "shutting down");
+        assertNull(index.getCandidates(ExpressionRule.getRule("level == WARN")));
+        assertNull(index.getCandidates(ExpressionRule.getRule("msg ~= down || level == WARN")));
+        assertNull(index.getCandidates(ExpressionRule.getRule("! ( msg ~= down )")));
+        assertArrayEquals(new long[] {1}, index.getCandidates(ExpressionRule.getRule("msg ~= down && level == WARN")));
+        assertArrayEquals(new long[] {0, 1}, index.getCandidates(ExpressionRule.getRule("msg ~= ing")));
+
+        index.clear();
+        index.add(0, "shutting down");
+        assertArrayEquals(new long[] {0}, index.getCandidates(ExpressionRule.getRule("msg == 'shutting down'")));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.junit.Test;
+
+/**
+ * Tests for RuleEvaluator.
+ */
+public class RuleEvaluatorTest {
+
+    @Test
+    public void testSameAsSequentialEvaluation() {
+        List<ChainsawLoggingEvent> events = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            events.add(new ChainsawLoggingEventBuilder()
+                    .setTimestamp(Instant.ofEpochMilli(i))
+                    .setLevel(i % 5 == 0 ? Level.WARN : Level.INFO)
+                    .setLogger("org.example.Logger" + (i % 7))
+                    .setMessage("message " + i)
+                    .create());
+        }
+        Rule rule = ExpressionRule.getRule("( msg like .*7[0-9]$ || level == WARN ) && logger != org.example.Logger3");
+
+        BitSet expected = new BitSet();
+        for (int i = 0; i < events.size(); i++) {
+            if (rule.evaluate(events.get(i), null)) {
+                expected.set(i);
+            }
+        }
+        assertEquals(expected, RuleEvaluator.evaluate(rule, events));
+        assertEquals(expected.get(0, 1000), RuleEvaluator.evaluate(rule, events.subList(0, 1000)));
+    }
+}
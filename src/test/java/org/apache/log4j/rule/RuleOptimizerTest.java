@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.junit.Test;
+
+/**
+ * Tests for RuleOptimizer.
+ */
+public class RuleOptimizerTest {
+
+    private static ChainsawLoggingEvent event(Level level, String logger, String message) {
+        return new ChainsawLoggingEventBuilder()
+                .setTimestamp(Instant.ofEpochMilli(1000))
+                .setLevel(level)
+                .setLogger(logger)
+                .setMessage(message)
+                .create();
+    }
+
+    private static List<String> explain(Rule rule) {
+        return RuleOptimizer.explain(rule).lines().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFlattensAndOrdersCheapestFirst() {
+        Rule rule = ExpressionRule.getRule("msg like .*timeout.* && ( logger == org.example && level == ERROR )");
+        List<String> lines = explain(rule);
+
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("AND"));
+        assertTrue(lines.get(1).trim().startsWith("LEVEL == ERROR"));
+        assertTrue(lines.get(2).trim().startsWith("LOGGER == org.example"));
+        assertTrue(lines.get(3).trim().startsWith("MSG like .*timeout.*"));
+
+        assertTrue(rule.evaluate(event(Level.ERROR, "org.example", "a timeout occurred"), null));
+        assertFalse(rule.evaluate(event(Level.ERROR, "org.example", "done"), null));
+        assertFalse(rule.evaluate(event(Level.INFO, "org.example", "a timeout occurred"), null));
+    }
+
+    @Test
+    public void testFoldsConstants() {
+        assertSame(RuleOptimizer.FALSE, optimized("level == WARN && prop.size > big"));
+        assertSame(RuleOptimizer.TRUE, optimized("! ( prop.size > big ) || level == WARN"));
+        Rule rule = optimized("level == WARN && ! ( prop.size > big )");
+        assertTrue(rule instanceof LevelEqualsRule);
+    }
+
+    @Test
+    public void testReordersByObservedPassRate() {
+        // the message is estimated to reject more events than the not-equals rule
+        Rule rule = ExpressionRule.getRule("logger != org.example && msg == hello");
+        ChainsawLoggingEvent event = event(Level.INFO, "org.example", "hello");
+        assertTrue(explain(rule).get(1).contains("MSG"));
+        for (int i = 0; i < 4096; i++) {
+            assertFalse(rule.evaluate(event, null));
+        }
+        // but only the logger rejects them, so it goes first
+        assertTrue(explain(rule).get(1).contains("LOGGER"));
+    }
+
+    @Test
+    public void testMatchesSameAsWritten() {
+        Rule rule = ExpressionRule.getRule("msg ~= time || level == ERROR || logger == org.example");
+        Map<String, Set<String>> matches = new HashMap<>();
+        assertTrue(rule.evaluate(event(Level.ERROR, "org.example", "timeout"), matches));
+        assertEquals(3, matches.size());
+        assertTrue(matches.get("MSG").contains("time"));
+    }
+
+    @Test
+    public void testSharedSubexpressionsEvaluatedOnce() {
+        RuleOptimizer.SharedRules rules = RuleOptimizer.optimizeShared(Arrays.asList(
+                ExpressionRule.getRule("level == ERROR && msg like .*timeout.*"),
+                ExpressionRule.getRule("msg like .*timeout.* || logger == org.example")));
+        assertTrue(rules.toString().contains("SHARED MSG like .*timeout.*"));
+
+        ChainsawLoggingEvent event = event(Level.ERROR, "org.other", "a timeout occurred");
+        rules.reset();
+        assertTrue(rules.evaluate(0, event));
+        assertTrue(rules.evaluate(1, event));
+        rules.reset();
+        event = event(Level.ERROR, "org.other", "done");
+        assertFalse(rules.evaluate(0, event));
+        assertFalse(rules.evaluate(1, event));
+    }
+
+    @Test
+    public void testPropertiesSharedByExactKey() {
+        RuleOptimizer.SharedRules rules = RuleOptimizer.optimizeShared(Arrays.asList(
+                ExpressionRule.getRule("prop.a ~= x"),
+                ExpressionRule.getRule("prop.A ~= x"),
+                ExpressionRule.getRule("prop.a ~= x")));
+        assertEquals(
+                2, Pattern.compile("SHARED").matcher(rules.toString()).results().count());
+
+        ChainsawLoggingEvent event = event(Level.INFO, "org.example", "done");
+        event.setProperty("a", "x");
+        event.setProperty("A", "y");
+        rules.reset();
+        assertTrue(rules.evaluate(0, event));
+        assertFalse(rules.evaluate(1, event));
+        assertTrue(rules.evaluate(2, event));
+    }
+
+    @Test
+    public void testMergesPartialTextMatchesOnSameField() {
+        Rule rule = optimized("msg ~= E100 || level == FATAL || msg ~= e200 || logger ~= net");
+        assertTrue(rule.toString().contains("MSG ~= any of (E100, e200)"));
+        assertTrue(rule.toString().contains("LOGGER ~= net"));
+
+        Map<String, Set<String>> matches = new HashMap<>();
+        assertTrue(rule.evaluate(event(Level.INFO, "org.example", "codes e100 and E200"), matches));
+        assertEquals(new HashSet<>(Arrays.asList("E100", "e200")), matches.get("MSG"));
+        assertFalse(rule.evaluate(event(Level.INFO, "org.example", "code E300"), null));
+    }
+
+    @Test
+    public void testMergesPartialTextMatchesOnSamePropertyKey() {
+        Rule rule = optimized("prop.a ~= x || prop.A ~= y || prop.a ~= z");
+        assertTrue(rule.toString().contains("PROP.A ~= any of (x, z)"));
+
+        ChainsawLoggingEvent event = event(Level.INFO, "org.example", "done");
+        event.setProperty("a", "q");
+        event.setProperty("A", "y");
+        assertTrue(rule.evaluate(event, null));
+    }
+
+    @Test
+    public void testLiteralLikeSameAsRegex() {
+        String[] patterns = {"abc", ".*abc", "abc.*", ".*abc.*", ".*", ""};
+        String[] texts = {"abc", "ABC", "xabc", "abcx", "xAbCx", "x\nabc", "abc\n", "", "ab"};
+        for (String pattern : patterns) {
+            Rule rule = LikeRule.getRule("msg", pattern);
+            Pattern regex = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+            for (String text : texts) {
+                assertEquals(
+                        pattern + " / " + text,
+                        regex.matcher(text).matches(),
+                        rule.evaluate(event(Level.INFO, "org.example", text), null));
+            }
+        }
+    }
+
+    private static Rule optimized(String expression) {
+        return ((ExpressionRule) ExpressionRule.getRule(expression)).getCompiledRule();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.rule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for TextSearcher and MultiTermSearcher.
+ */
+public class TextSearcherTest {
+
+    @Test
+    public void testSameAsLowerCaseIndexOf() {
+        Random random = new Random(42);
+        String alphabet = "abAB cÉé";
+        for (int n = 0; n < 5000; n++) {
+            String text = randomText(random, alphabet, random.nextInt(20));
+            String term = randomText(random, alphabet, random.nextInt(4));
+            boolean expected = text.toLowerCase(Locale.ROOT).contains(term.toLowerCase(Locale.ROOT));
+            assertEquals(text + " / " + term, expected, new TextSearcher(term, false).isFoundIn(text));
+            assertEquals(text + " / " + term, expected, new MultiTermSearcher(Arrays.asList(term)).isAnyFoundIn(text));
+        }
+    }
+
+    @Test
+    public void testFindsAllTerms() {
+        List<String> terms = Arrays.asList("he", "she", "his", "hers", "ERR-42");
+        MultiTermSearcher searcher = new MultiTermSearcher(terms);
+        boolean[] found = new boolean[terms.size()];
+        assertTrue(searcher.findAll("uSHErs got err-42", found));
+        assertArrayEquals(new boolean[] {true, true, false, true, true}, found);
+        assertFalse(searcher.isAnyFoundIn("nothing to see"));
+    }
+
+    @Test
+    public void testAsciiOnlyFolding() {
+        assertTrue(new TextSearcher("Café", true).isFoundAt("CAFé", 0));
+        assertFalse(new TextSearcher("Café", true).isFoundAt("CAFÉ", 0));
+        assertTrue(new TextSearcher("Café", false).isFoundAt("CAFÉ", 0));
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            buf.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return buf.toString();
+    }
+}
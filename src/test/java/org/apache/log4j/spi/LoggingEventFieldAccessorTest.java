@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.log4j.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.Locale;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
+import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEventBuilder;
+import org.apache.log4j.chainsaw.logevents.Level;
+import org.apache.log4j.chainsaw.logevents.LocationInfo;
+import org.apache.log4j.rule.ExpressionRule;
+import org.apache.log4j.rule.Rule;
+import org.junit.Test;
+
+/**
+ * Tests for LoggingEventFieldAccessor.
+ */
+public class LoggingEventFieldAccessorTest {
+    private static final LoggingEventFieldResolver RESOLVER = LoggingEventFieldResolver.getInstance();
+
+    private static ChainsawLoggingEvent createEvent() {
+        ChainsawLoggingEvent event = new ChainsawLoggingEventBuilder()
+                .setTimestamp(Instant.ofEpochMilli(1234567))
+                .setLevel(Level.WARN)
+                .setLogger("org.example.Logger")
+                .setThreadName("main")
+                .setMessage("disk full")
+                .setLocationInfo(new LocationInfo("Example.java", "org.example.Example", "run", 42))
+                .create();
+        event.setProperty("Retries", "12");
+        event.setProperty("host", "alpha");
+        return event;
+    }
+
+    @Test
+    public void testAccessorsMatchResolver() {
+        ChainsawLoggingEvent event = createEvent();
+        for (String field : new String[] {
+            "logger",
+            "LEVEL",
+            "msg",
+            "ndc",
+            "timestamp",
+            "thread",
+            "class",
+            "file",
+            "line",
+            "method",
+            "PROP.host",
+            "prop.retries",
+            "PROP.missing"
+        }) {
+            assertEquals(
+                    field,
+                    RESOLVER.getValue(field, event),
+                    RESOLVER.getAccessor(field).getValue(event));
+        }
+        assertSame(RESOLVER.getAccessor("logger"), RESOLVER.getAccessor("LOGGER"));
+        assertEquals("PROP.RETRIES", RESOLVER.getAccessor("prop.Retries").getName());
+        // property accessors are reused too
+        assertSame(RESOLVER.getAccessor("PROP.host"), RESOLVER.getAccessor("PROP.host"));
+    }
+
+    @Test
+    public void testFieldNamesIgnoreDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            // Turkish upper-cases i to a dotted capital I
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertTrue(RESOLVER.isField("prop.item"));
+            assertEquals("PROP.ITEM", RESOLVER.getAccessor("prop.item").getName());
+            assertEquals("item", RESOLVER.getAccessor("prop.item").getPropertyKey());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void testNumericValues() {
+        ChainsawLoggingEvent event = createEvent();
+        assertEquals(1234567, RESOLVER.getAccessor("timestamp").getLong(event));
+        assertEquals(42, RESOLVER.getAccessor("line").getLong(event));
+        // property keys fall back to a case-insensitive match
+        assertEquals(12, RESOLVER.getAccessor("PROP.retries").getLong(event));
+        assertEquals(
+                LoggingEventFieldAccessor.NO_VALUE,
+                RESOLVER.getAccessor("PROP.host").getLong(event));
+
+        Rule rule = ExpressionRule.getRule("PROP.Retries > 10 && PROP.host == alpha");
+        assertTrue(rule.evaluate(event, null));
+        assertFalse(ExpressionRule.getRule("PROP.host > 10").evaluate(event, null));
+    }
+}
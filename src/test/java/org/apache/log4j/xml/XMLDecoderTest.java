@@ -18,20 +18,23 @@ package org.apache.log4j.xml;
 
 import static junit.framework.TestCase.assertEquals;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 import org.apache.log4j.chainsaw.logevents.ChainsawLoggingEvent;
-import org.junit.Ignore;
 import org.junit.Test;
 
 /**
  * Tests for XMLDecoder.
  */
-@Ignore
 public class XMLDecoderTest {
 
     public String getStringFromResource(final String resourceName, final int maxSize) throws Exception {
@@ -80,4 +83,68 @@ public class XMLDecoderTest {
         Vector<ChainsawLoggingEvent> events = decoder.decode(resource);
         assertEquals(15, events.size());
     }
+
+    @Test
+    public void testDecodeEventsInChunks() throws Exception {
+        String xmlStr = getStringFromResource("xmlLayout.1.xml", 10000);
+        XMLDecoder decoder = new XMLDecoder();
+        List<ChainsawLoggingEvent> events = new ArrayList<>();
+        // chunks which split records, and record ends
+        for (int i = 0; i < xmlStr.length(); i += 37) {
+            List<ChainsawLoggingEvent> chunkEvents =
+                    decoder.decodeEvents(xmlStr.substring(i, Math.min(xmlStr.length(), i + 37)));
+            if (chunkEvents != null) {
+                events.addAll(chunkEvents);
+            }
+        }
+        assertEquals(17, events.size());
+        assertEquals("in X() constructor", events.get(0).m_message);
+        assertEquals("org.apache.log4j.xml.XMLLayoutTestCase$X", events.get(0).m_logger);
+    }
+
+    @Test
+    public void testDecodeBytes() throws Exception {
+        byte[] bytes = (getStringFromResource("xmlLayout.1.xml", 10000)
+                        + "<log4j:event logger=\"x\" timestamp=\"1\" level=\"INFO\" thread=\"main\">"
+                        + "<log4j:message>café</log4j:message></log4j:event>")
+                .getBytes(StandardCharsets.UTF_8);
+        XMLDecoder decoder = new XMLDecoder();
+        List<ChainsawLoggingEvent> events = new ArrayList<>();
+        // chunks which split records, and the bytes of a character
+        ByteBuffer chunk = ByteBuffer.allocate(37);
+        for (int i = 0; i < bytes.length; i += chunk.capacity()) {
+            chunk.clear();
+            chunk.put(bytes, i, Math.min(chunk.capacity(), bytes.length - i)).flip();
+            decoder.decode(chunk, events::add);
+        }
+        assertEquals(18, events.size());
+        assertEquals("café", events.get(17).m_message);
+
+        events.clear();
+        new XMLDecoder().decode(new ByteArrayInputStream(bytes), events::add);
+        assertEquals(18, events.size());
+        assertEquals("café", events.get(17).m_message);
+    }
+
+    @Test
+    public void testDecodeUtilLoggingEvents() throws Exception {
+        String xmlStr = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+                + "<!DOCTYPE log SYSTEM \"logger.dtd\">\n<log>\n"
+                + "<record>\n  <date>2024-05-17T10:30:15</date>\n  <millis>1715941815000</millis>\n"
+                + "  <sequence>7</sequence>\n  <logger>com.example</logger>\n  <level>INFO</level>\n"
+                + "  <class>com.example.Main</class>\n  <method>main</method>\n  <thread>1</thread>\n"
+                + "  <message>started &amp; ready</message>\n</record>\n"
+                + "<record>\n  <millis>1715941816000</millis>\n  <logger>com.example</logger>\n"
+                + "  <level>WARN</level>\n  <thread>1</thread>\n  <message>slow</message>\n"
+                + "  <exception>\n    <message>java.io.IOException</message>\n"
+                + "    <frame><class>com.example.Main</class><method>main</method></frame>\n"
+                + "  </exception>\n</record>\n";
+        UtilLoggingXMLDecoder decoder = new UtilLoggingXMLDecoder();
+        Vector<ChainsawLoggingEvent> events = decoder.decodeEvents(xmlStr);
+        assertEquals(2, events.size());
+        assertEquals("started & ready", events.get(0).m_message);
+        assertEquals("7", events.get(0).m_mdc.get("log4jid"));
+        assertEquals("com.example.Main", events.get(0).m_locationInfo.className);
+        assertEquals("slow", events.get(1).m_message);
+    }
 }